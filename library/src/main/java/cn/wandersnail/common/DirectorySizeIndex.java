@@ -0,0 +1,417 @@
+package cn.wandersnail.common;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 文件夹大小索引。启动时扫描一次，之后根据WatchService的事件增量更新，并定期重新扫描校正，
+ * 查询文件夹大小为O(1)，适合频繁检查缓存目录配额。
+ * <p>
+ * 事件是异步到达的，结果最终一致。不跟随符号链接。事件丢失（溢出）时立即在后台重新扫描，
+ * 无法监听的文件夹（如超出inotify上限）由定期扫描校正。后台扫描及事件处理的异常记录在{@link Stats}中
+ * <p>
+ * date: 2026/10/19 00:50
+ * author: zengfansheng
+ */
+public class DirectorySizeIndex implements Closeable {
+    private final Path root;
+    private final Map<WatchKey, Path> watchKeys = new HashMap<>();
+    private final Map<Path, WatchKey> dirKeys = new HashMap<>();
+    private final AtomicLong eventCount = new AtomicLong();
+    private final AtomicLong reconcileCount = new AtomicLong();
+    private final AtomicLong errorCount = new AtomicLong();
+    private final AtomicBoolean reconcilePending = new AtomicBoolean();
+    private volatile Map<Path, Long> fileSizes = new ConcurrentHashMap<>();
+    private volatile Map<Path, Long> dirSizes = new ConcurrentHashMap<>();
+    private Map<Path, Set<Path>> children = new HashMap<>();//文件夹的直接子项，删除文件夹时只需遍历其子树
+    private volatile long lastDrift;
+    private volatile Exception lastError;
+    private long reconcileIntervalMillis = TimeUnit.MINUTES.toMillis(10);
+    private WatchService watchService;
+    private ScheduledExecutorService reconcileExecutor;
+    private boolean closed;
+
+    /**
+     * @param root 要索引的文件夹
+     */
+    public DirectorySizeIndex(File root) {
+        this.root = root.toPath().toAbsolutePath().normalize();
+    }
+
+    /**
+     * 设置定期重新扫描的间隔，默认10分钟，小于等于0时不定期扫描。需在{@link #start()}前设置
+     */
+    public DirectorySizeIndex setReconcileInterval(long duration, TimeUnit unit) {
+        reconcileIntervalMillis = unit.toMillis(duration);
+        return this;
+    }
+
+    /**
+     * 扫描并开始监听
+     */
+    public synchronized void start() throws IOException {
+        if (watchService != null || closed) {
+            return;
+        }
+        watchService = FileSystems.getDefault().newWatchService();
+        reconcile();
+        Thread thread = new Thread(this::processEvents, "DirectorySizeIndex-watch");
+        thread.setDaemon(true);
+        thread.start();
+        reconcileExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "DirectorySizeIndex-reconcile");
+            t.setDaemon(true);
+            return t;
+        });
+        if (reconcileIntervalMillis > 0) {
+            reconcileExecutor.scheduleWithFixedDelay(this::reconcileQuietly, reconcileIntervalMillis,
+                    reconcileIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    //在后台重新扫描，已有未执行的扫描时不重复提交
+    private void requestReconcile() {
+        if (reconcilePending.compareAndSet(false, true)) {
+            try {
+                reconcileExecutor.execute(() -> {
+                    reconcilePending.set(false);
+                    reconcileQuietly();
+                });
+            } catch (RejectedExecutionException e) {
+                //已关闭
+                reconcilePending.set(false);
+            }
+        }
+    }
+
+    private void reconcileQuietly() {
+        try {
+            reconcile();
+        } catch (Exception e) {
+            onError(e);
+        }
+    }
+
+    private void onError(Exception e) {
+        errorCount.incrementAndGet();
+        lastError = e;
+    }
+
+    /**
+     * 获取根文件夹的大小
+     */
+    public long getSize() {
+        return getSize(root);
+    }
+
+    /**
+     * 获取索引中文件或文件夹的大小
+     *
+     * @param file 根文件夹内的文件或文件夹
+     * @return 不在索引中时返回0
+     */
+    public long getSize(File file) {
+        return getSize(file.toPath().toAbsolutePath().normalize());
+    }
+
+    private long getSize(Path path) {
+        Long size = dirSizes.get(path);
+        if (size == null) {
+            size = fileSizes.get(path);
+        }
+        return size == null ? 0 : size;
+    }
+
+    /**
+     * 重新扫描整个文件夹并替换索引，扫描期间查询返回旧值
+     */
+    public synchronized void reconcile() throws IOException {
+        if (closed) {
+            return;
+        }
+        //持有锁期间不处理事件，扫描开始时的索引值即为被替换的值
+        long indexedSize = getSize();
+        Map<Path, Long> files = new ConcurrentHashMap<>();
+        Map<Path, Long> dirs = new ConcurrentHashMap<>();
+        Map<Path, Set<Path>> tree = new HashMap<>();
+        scan(root, files, dirs, tree);
+        fileSizes = files;
+        dirSizes = dirs;
+        children = tree;
+        if (reconcileCount.getAndIncrement() > 0) {
+            lastDrift = dirs.getOrDefault(root, 0L) - indexedSize;
+        }
+    }
+
+    //扫描子树，注册监听，并把文件大小累加到各级文件夹
+    private void scan(Path start, Map<Path, Long> files, Map<Path, Long> dirs, Map<Path, Set<Path>> tree)
+            throws IOException {
+        Files.walkFileTree(start, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                register(dir);
+                if (dirs.putIfAbsent(dir, 0L) == null && !dir.equals(root)) {
+                    addChild(tree, dir);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                Long old = files.put(file, attrs.size());
+                if (old == null) {
+                    addChild(tree, file);
+                }
+                addToParents(dirs, file, attrs.size() - (old == null ? 0 : old));
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                //扫描期间被删除或无权限，跳过
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private void register(Path dir) {
+        try {
+            WatchKey key = dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+            watchKeys.put(key, dir);
+            dirKeys.put(dir, key);
+        } catch (IOException ignore) {
+            //超出监听上限等，由定期扫描校正
+        }
+    }
+
+    private static void addChild(Map<Path, Set<Path>> tree, Path path) {
+        tree.computeIfAbsent(path.getParent(), k -> new HashSet<>()).add(path);
+    }
+
+    private static void removeChild(Map<Path, Set<Path>> tree, Path path) {
+        Set<Path> siblings = tree.get(path.getParent());
+        if (siblings != null) {
+            siblings.remove(path);
+        }
+    }
+
+    private void addToParents(Map<Path, Long> dirs, Path path, long delta) {
+        if (delta == 0) {
+            return;
+        }
+        for (Path p = path.getParent(); p != null && p.startsWith(root); p = p.getParent()) {
+            dirs.merge(p, delta, Long::sum);
+        }
+    }
+
+    private void processEvents() {
+        while (true) {
+            WatchKey key;
+            try {
+                key = watchService.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                Path dir = watchKeys.get(key);
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    eventCount.incrementAndGet();
+                    try {
+                        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                            requestReconcile();
+                        } else if (dir != null) {
+                            onEvent(event.kind(), dir.resolve((Path) event.context()));
+                        }
+                    } catch (IOException e) {
+                        onError(e);
+                    }
+                }
+                if (!key.reset()) {
+                    Path removed = watchKeys.remove(key);
+                    if (removed != null) {
+                        dirKeys.remove(removed, key);
+                    }
+                }
+            }
+        }
+    }
+
+    private void onEvent(WatchEvent.Kind<?> kind, Path path) throws IOException {
+        Map<Path, Long> files = fileSizes;
+        Map<Path, Long> dirs = dirSizes;
+        Map<Path, Set<Path>> tree = children;
+        if (kind == StandardWatchEventKinds.ENTRY_DELETE) {
+            Long old = files.remove(path);
+            if (old != null) {
+                removeChild(tree, path);
+                addToParents(dirs, path, -old);
+            } else if (dirs.containsKey(path)) {
+                removeChild(tree, path);
+                addToParents(dirs, path, -removeDir(files, dirs, tree, path));
+            }
+            return;
+        }
+        BasicFileAttributes attrs;
+        try {
+            attrs = Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        } catch (IOException e) {
+            //已被删除，等待删除事件
+            return;
+        }
+        if (attrs.isDirectory()) {
+            if (kind == StandardWatchEventKinds.ENTRY_CREATE) {
+                //监听注册前文件夹内可能已有文件
+                scan(path, files, dirs, tree);
+            }
+        } else {
+            Long old = files.put(path, attrs.size());
+            if (old == null) {
+                addChild(tree, path);
+            }
+            addToParents(dirs, path, attrs.size() - (old == null ? 0 : old));
+        }
+    }
+
+    //移除文件夹的子树，返回移除的文件大小之和，只遍历子树
+    private long removeDir(Map<Path, Long> files, Map<Path, Long> dirs, Map<Path, Set<Path>> tree, Path dir) {
+        long removed = 0;
+        dirs.remove(dir);
+        WatchKey key = dirKeys.remove(dir);
+        if (key != null) {
+            //移出根文件夹的文件夹仍有效，需取消监听
+            watchKeys.remove(key);
+            key.cancel();
+        }
+        Set<Path> items = tree.remove(dir);
+        if (items != null) {
+            for (Path item : items) {
+                Long size = files.remove(item);
+                if (size != null) {
+                    removed += size;
+                } else {
+                    removed += removeDir(files, dirs, tree, item);
+                }
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * 获取统计信息
+     */
+    public Stats getStats() {
+        return new Stats(getSize(), fileSizes.size(), dirSizes.size(), eventCount.get(), reconcileCount.get(), lastDrift,
+                errorCount.get(), lastError);
+    }
+
+    /**
+     * 停止监听
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (reconcileExecutor != null) {
+            reconcileExecutor.shutdownNow();
+        }
+        if (watchService != null) {
+            watchService.close();
+        }
+        watchKeys.clear();
+        dirKeys.clear();
+    }
+
+    /**
+     * 统计信息快照
+     */
+    public static class Stats {
+        /**
+         * 根文件夹大小
+         */
+        public final long size;
+        /**
+         * 索引中的文件数
+         */
+        public final int fileCount;
+        /**
+         * 索引中的文件夹数
+         */
+        public final int dirCount;
+        /**
+         * 处理的事件数
+         */
+        public final long eventCount;
+        /**
+         * 扫描次数，包含启动时的扫描
+         */
+        public final long reconcileCount;
+        /**
+         * 最近一次扫描校正的偏差，即扫描结果减去扫描时索引的大小，单位：字节
+         */
+        public final long lastDrift;
+        /**
+         * 后台扫描及事件处理出错的次数
+         */
+        public final long errorCount;
+        /**
+         * 最近一次出错的异常，没有时为null
+         */
+        public final Exception lastError;
+
+        Stats(long size, int fileCount, int dirCount, long eventCount, long reconcileCount, long lastDrift,
+              long errorCount, Exception lastError) {
+            this.size = size;
+            this.fileCount = fileCount;
+            this.dirCount = dirCount;
+            this.eventCount = eventCount;
+            this.reconcileCount = reconcileCount;
+            this.lastDrift = lastDrift;
+            this.errorCount = errorCount;
+            this.lastError = lastError;
+        }
+
+        @Override
+        public String toString() {
+            return "Stats{" +
+                    "size=" + size +
+                    ", fileCount=" + fileCount +
+                    ", dirCount=" + dirCount +
+                    ", eventCount=" + eventCount +
+                    ", reconcileCount=" + reconcileCount +
+                    ", lastDrift=" + lastDrift +
+                    ", errorCount=" + errorCount +
+                    ", lastError=" + lastError +
+                    '}';
+        }
+    }
+}
@@ -0,0 +1,470 @@
+package cn.wandersnail.common;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystemLoopException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributeView;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 文件复制。默认使用FileChannel.transferTo，在Linux上由内核完成复制（sendfile），数据不经过Java堆；
+ * 无法零拷贝时退回缓冲区复制，也可关闭NIO使用原来的流复制
+ * <p>
+ * date: 2026/10/18 23:40
+ * author: zengfansheng
+ */
+public class FileCopier {
+    private int bufferSize = 40960;
+    private boolean nio = true;
+    private boolean preserveAttributes;
+    private boolean sparse;
+    private int parallelism = Math.max(2, Runtime.getRuntime().availableProcessors());
+    private ProgressListener progressListener;
+
+    /**
+     * 设置缓冲区大小，只在退回缓冲区复制、流复制及稀疏复制时使用
+     */
+    public FileCopier setBufferSize(int bufferSize) {
+        this.bufferSize = Math.max(4096, bufferSize);
+        return this;
+    }
+
+    /**
+     * 是否使用NIO复制，默认true。false时使用流复制
+     */
+    public FileCopier setNio(boolean nio) {
+        this.nio = nio;
+        return this;
+    }
+
+    /**
+     * 是否保留文件属性，包括修改时间、访问时间、创建时间及POSIX权限，默认false
+     */
+    public FileCopier setPreserveAttributes(boolean preserveAttributes) {
+        this.preserveAttributes = preserveAttributes;
+        return this;
+    }
+
+    /**
+     * 是否保留稀疏文件的空洞，默认false。开启后全为0的块不写入，目标文件同样稀疏，
+     * 但需要读入内存判断，不再是零拷贝，适用于虚拟机镜像等大量空洞的文件
+     */
+    public FileCopier setSparse(boolean sparse) {
+        this.sparse = sparse;
+        return this;
+    }
+
+    /**
+     * 设置并行复制文件夹时的线程数，默认为CPU核数，至少为2
+     */
+    public FileCopier setParallelism(int parallelism) {
+        this.parallelism = Math.max(1, parallelism);
+        return this;
+    }
+
+    /**
+     * 设置并行复制文件夹时的进度监听
+     */
+    public FileCopier setProgressListener(ProgressListener progressListener) {
+        this.progressListener = progressListener;
+        return this;
+    }
+
+    /**
+     * 复制文件或文件夹
+     *
+     * @param src    源文件或文件夹
+     * @param target 目标文件或文件夹
+     */
+    public void copy(File src, File target) throws IOException {
+        if (src.isDirectory()) {
+            copyDir(src, target);
+        } else {
+            copyFile(src, target);
+        }
+    }
+
+    /**
+     * 复制文件，目标文件存在时覆盖
+     *
+     * @param src    源文件
+     * @param target 目标文件
+     */
+    public void copyFile(File src, File target) throws IOException {
+        Path source = src.toPath();
+        Path dest = target.toPath();
+        if (!nio) {
+            streamCopy(src, target);
+        } else if (sparse) {
+            sparseCopy(source, dest);
+        } else {
+            channelCopy(source, dest);
+        }
+        if (preserveAttributes) {
+            copyAttributes(source, dest);
+        }
+    }
+
+    /**
+     * 复制文件夹，跟随符号链接
+     *
+     * @param srcDir    源文件夹
+     * @param targetDir 目标文件夹
+     */
+    public void copyDir(File srcDir, File targetDir) throws IOException {
+        Path source = srcDir.toPath();
+        Path dest = targetDir.toPath();
+        Files.walkFileTree(source, EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                Files.createDirectories(dest.resolve(source.relativize(dir).toString()));
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                copyFile(file.toFile(), dest.resolve(source.relativize(file).toString()).toFile());
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException exc) throws IOException {
+                //符号链接成环时跳过
+                if (exc instanceof FileSystemLoopException) {
+                    return FileVisitResult.CONTINUE;
+                }
+                throw exc;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+                if (exc != null) {
+                    throw exc;
+                }
+                //文件写完后再设置，否则修改时间会被覆盖
+                if (preserveAttributes) {
+                    copyAttributes(dir, dest.resolve(source.relativize(dir).toString()));
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    /**
+     * 并行复制文件夹，每个文件夹、文件一个任务，由ForkJoin线程池工作窃取执行，适合大量小文件。
+     * 跟随符号链接，单个文件失败不影响其他文件，失败的文件收集到结果中
+     *
+     * @param srcDir    源文件夹
+     * @param targetDir 目标文件夹
+     * @return 复制结果
+     */
+    public Result copyDirParallel(File srcDir, File targetDir) {
+        ParallelCopy copy = new ParallelCopy();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            pool.invoke(new DirTask(copy, srcDir.toPath(), targetDir.toPath(), Collections.emptyList()));
+        } finally {
+            pool.shutdown();
+        }
+        if (progressListener != null) {
+            progressListener.onProgress(copy.files.get(), copy.bytes.get());
+        }
+        return new Result(copy.files.get(), copy.bytes.get(), new ArrayList<>(copy.failures));
+    }
+
+    //保留属性时复制文件夹的属性，需在文件夹内的文件写完后调用
+    void copyDirAttributes(File srcDir, File targetDir) throws IOException {
+        if (preserveAttributes) {
+            copyAttributes(srcDir.toPath(), targetDir.toPath());
+        }
+    }
+
+    private void channelCopy(Path source, Path dest) throws IOException {
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(dest, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                     StandardOpenOption.TRUNCATE_EXISTING)) {
+            long size = in.size();
+            long position = 0;
+            while (position < size) {
+                long count = in.transferTo(position, size - position, out);
+                if (count <= 0) {
+                    break;
+                }
+                position += count;
+            }
+            //无法继续零拷贝（如部分虚拟文件系统报告的大小为0），剩余部分用缓冲区复制到文件末尾
+            in.position(position);
+            out.position(position);
+            ByteBuffer buffer = ByteBuffer.allocate(bufferSize);
+            while (in.read(buffer) != -1) {
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    out.write(buffer);
+                }
+                buffer.clear();
+            }
+        }
+    }
+
+    private void sparseCopy(Path source, Path dest) throws IOException {
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(dest, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                     StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.SPARSE)) {
+            //按4K对齐，与文件系统块大小一致，空洞才能落在整块上
+            ByteBuffer buffer = ByteBuffer.allocate(bufferSize / 4096 * 4096);
+            long position = 0;
+            int len;
+            while ((len = in.read(buffer)) != -1) {
+                if (buffer.hasRemaining() && len > 0) {
+                    //读满一块再判断
+                    continue;
+                }
+                position = writeBlock(out, buffer, position);
+            }
+            position = writeBlock(out, buffer, position);
+            if (out.size() < position) {
+                //末尾是空洞，写入最后一个字节撑开文件长度
+                out.write(ByteBuffer.allocate(1), position - 1);
+            }
+        }
+    }
+
+    private static long writeBlock(FileChannel out, ByteBuffer buffer, long position) throws IOException {
+        buffer.flip();
+        int len = buffer.remaining();
+        if (len > 0 && !isZero(buffer.array(), len)) {
+            while (buffer.hasRemaining()) {
+                position += out.write(buffer, position);
+            }
+        } else {
+            position += len;
+        }
+        buffer.clear();
+        return position;
+    }
+
+    private static boolean isZero(byte[] bytes, int len) {
+        for (int i = 0; i < len; i++) {
+            if (bytes[i] != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void streamCopy(File src, File target) throws IOException {
+        BufferedInputStream fis = null;
+        BufferedOutputStream fos = null;
+        try {
+            fis = new BufferedInputStream(new FileInputStream(src));
+            fos = new BufferedOutputStream(new FileOutputStream(target));
+            byte[] buffer = new byte[bufferSize];
+            int len;
+            while ((len = fis.read(buffer)) != -1) {
+                fos.write(buffer, 0, len);
+            }
+            fos.flush();
+        } finally {
+            IOUtils.closeQuietly(fis, fos);
+        }
+    }
+
+    private class ParallelCopy {
+        final AtomicLong files = new AtomicLong();
+        final AtomicLong bytes = new AtomicLong();
+        final ConcurrentLinkedQueue<Failure> failures = new ConcurrentLinkedQueue<>();
+
+        void onFileCopied(long size) {
+            long count = files.incrementAndGet();
+            long total = bytes.addAndGet(size);
+            if (progressListener != null) {
+                progressListener.onProgress(count, total);
+            }
+        }
+    }
+
+    private class DirTask extends RecursiveAction {
+        private static final long serialVersionUID = -76279856829261102L;
+        private final ParallelCopy copy;
+        private final Path source;
+        private final Path dest;
+        private final List<Object> ancestorKeys;//上级文件夹的标识，用于发现符号链接成环
+
+        DirTask(ParallelCopy copy, Path source, Path dest, List<Object> ancestorKeys) {
+            this.copy = copy;
+            this.source = source;
+            this.dest = dest;
+            this.ancestorKeys = ancestorKeys;
+        }
+
+        @Override
+        protected void compute() {
+            List<RecursiveAction> tasks = new ArrayList<>();
+            try {
+                Object key = Files.readAttributes(source, BasicFileAttributes.class).fileKey();
+                if (key != null && ancestorKeys.contains(key)) {
+                    throw new FileSystemLoopException(source.toString());
+                }
+                List<Object> keys = ancestorKeys;
+                if (key != null) {
+                    keys = new ArrayList<>(ancestorKeys);
+                    keys.add(key);
+                }
+                Files.createDirectories(dest);
+                try (DirectoryStream<Path> stream = Files.newDirectoryStream(source)) {
+                    for (Path path : stream) {
+                        Path target = dest.resolve(path.getFileName().toString());
+                        BasicFileAttributes attrs;
+                        try {
+                            attrs = Files.readAttributes(path, BasicFileAttributes.class);
+                        } catch (IOException e) {
+                            //失效的符号链接等
+                            copy.failures.add(new Failure(path.toFile(), e));
+                            continue;
+                        }
+                        if (attrs.isDirectory()) {
+                            tasks.add(new DirTask(copy, path, target, keys));
+                        } else {
+                            tasks.add(new FileTask(copy, path, target, attrs.size()));
+                        }
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                copy.failures.add(new Failure(source.toFile(), e));
+                invokeAll(tasks);
+                return;
+            }
+            invokeAll(tasks);
+            try {
+                copyDirAttributes(source.toFile(), dest.toFile());
+            } catch (IOException e) {
+                copy.failures.add(new Failure(source.toFile(), e));
+            }
+        }
+    }
+
+    private class FileTask extends RecursiveAction {
+        private static final long serialVersionUID = 4857330283820419388L;
+        private final ParallelCopy copy;
+        private final Path source;
+        private final Path dest;
+        private final long size;
+
+        FileTask(ParallelCopy copy, Path source, Path dest, long size) {
+            this.copy = copy;
+            this.source = source;
+            this.dest = dest;
+            this.size = size;
+        }
+
+        @Override
+        protected void compute() {
+            try {
+                copyFile(source.toFile(), dest.toFile());
+                copy.onFileCopied(size);
+            } catch (IOException | RuntimeException e) {
+                copy.failures.add(new Failure(source.toFile(), e));
+            }
+        }
+    }
+
+    /**
+     * 复制进度监听，在复制线程中回调，需线程安全
+     */
+    public interface ProgressListener {
+        /**
+         * 每复制完一个文件回调一次，结束时再回调一次
+         *
+         * @param files 已复制的文件数
+         * @param bytes 已复制的字节数
+         */
+        void onProgress(long files, long bytes);
+    }
+
+    /**
+     * 复制失败的文件或文件夹
+     */
+    public static class Failure {
+        public final File file;
+        public final Exception error;
+
+        Failure(File file, Exception error) {
+            this.file = file;
+            this.error = error;
+        }
+
+        @Override
+        public String toString() {
+            return file + ": " + error;
+        }
+    }
+
+    /**
+     * 复制结果
+     */
+    public static class Result {
+        /**
+         * 复制成功的文件数
+         */
+        public final long copiedFiles;
+        /**
+         * 复制成功的字节数
+         */
+        public final long copiedBytes;
+        /**
+         * 失败的文件或文件夹
+         */
+        public final List<Failure> failures;
+
+        Result(long copiedFiles, long copiedBytes, List<Failure> failures) {
+            this.copiedFiles = copiedFiles;
+            this.copiedBytes = copiedBytes;
+            this.failures = Collections.unmodifiableList(failures);
+        }
+
+        public boolean isSuccessful() {
+            return failures.isEmpty();
+        }
+
+        @Override
+        public String toString() {
+            return "Result{" +
+                    "copiedFiles=" + copiedFiles +
+                    ", copiedBytes=" + copiedBytes +
+                    ", failures=" + failures.size() +
+                    '}';
+        }
+    }
+
+    private static void copyAttributes(Path source, Path dest) throws IOException {
+        BasicFileAttributes attrs = Files.readAttributes(source, BasicFileAttributes.class);
+        Files.getFileAttributeView(dest, BasicFileAttributeView.class)
+                .setTimes(attrs.lastModifiedTime(), attrs.lastAccessTime(), attrs.creationTime());
+        PosixFileAttributeView posix = Files.getFileAttributeView(dest, PosixFileAttributeView.class);
+        if (posix != null) {
+            posix.setPermissions(Files.getPosixFilePermissions(source));
+        }
+    }
+}
@@ -0,0 +1,336 @@
+package cn.wandersnail.common;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 并行删除文件夹。每个文件夹一个任务，用Files.walkFileTree遍历一层，文件按批删除，子文件夹分给ForkJoin线程池，
+ * 子项删完后再删除文件夹自身（后序）。不跟随符号链接，只删除链接本身。
+ * 删除失败的文件不会被忽略，收集到结果中
+ * <p>
+ * date: 2026/10/19 01:20
+ * author: zengfansheng
+ */
+public class FileDeleter {
+    private static final int BATCH_SIZE = 512;
+    private static final String TRASH_PREFIX = ".trash-";
+    //后台回收共用一个线程，避免多个回收任务同时占满磁盘
+    private static final ExecutorService reclaimExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "FileDeleter-reclaim");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private int parallelism = Math.max(2, Runtime.getRuntime().availableProcessors());
+    private File trashDir;
+
+    /**
+     * 设置线程数，默认为CPU核数，至少为2
+     */
+    public FileDeleter setParallelism(int parallelism) {
+        this.parallelism = Math.max(1, parallelism);
+        return this;
+    }
+
+    /**
+     * 设置回收站文件夹，{@link #deleteInBackground(File)}时先移动到此处。需与待删除的文件在同一文件系统，
+     * 否则无法原子移动。默认放在待删除文件所在的文件夹
+     */
+    public FileDeleter setTrashDir(File trashDir) {
+        this.trashDir = trashDir;
+        return this;
+    }
+
+    /**
+     * 删除文件或文件夹，包含自身
+     */
+    public Result delete(File file) {
+        return run(file.toPath(), true);
+    }
+
+    /**
+     * 删除文件夹内的所有文件，保留自身
+     */
+    public Result empty(File dir) {
+        return run(dir.toPath(), false);
+    }
+
+    /**
+     * 先把文件夹原子重命名到回收站，再在后台删除。返回时原路径已不存在，可立即重新创建；
+     * 无法原子移动（如跨文件系统）时直接在后台删除原路径
+     *
+     * @return 后台删除完成时结束
+     */
+    public CompletableFuture<Result> deleteInBackground(File file) {
+        Path source = file.toPath();
+        Path target = source;
+        try {
+            Path trash = trashDir == null ? source.toAbsolutePath().getParent() : trashDir.toPath();
+            Files.createDirectories(trash);
+            Path moved = trash.resolve(TRASH_PREFIX + source.getFileName() + "-" + StringUtils.randomUuid());
+            Files.move(source, moved, StandardCopyOption.ATOMIC_MOVE);
+            target = moved;
+        } catch (NoSuchFileException e) {
+            return CompletableFuture.completedFuture(new Result(0, 0, 0, Collections.emptyList()));
+        } catch (IOException | RuntimeException e) {
+            //无法原子移动，退回原地删除
+        }
+        Path path = target;
+        return CompletableFuture.supplyAsync(() -> run(path, true), reclaimExecutor);
+    }
+
+    /**
+     * 在后台清理回收站中上次未删除完的文件，如进程在后台删除中途退出
+     *
+     * @param dir 回收站文件夹，未设置{@link #setTrashDir(File)}时为待删除文件所在的文件夹
+     */
+    public CompletableFuture<Result> reclaimTrash(File dir) {
+        return CompletableFuture.supplyAsync(() -> {
+            Deletion deletion = new Deletion();
+            File[] files = dir.listFiles((d, name) -> name.startsWith(TRASH_PREFIX));
+            if (files != null) {
+                for (File file : files) {
+                    deletion.merge(run(file.toPath(), true));
+                }
+            }
+            return deletion.toResult();
+        }, reclaimExecutor);
+    }
+
+    private Result run(Path path, boolean deleteSelf) {
+        Deletion deletion = new Deletion();
+        BasicFileAttributes attrs;
+        try {
+            attrs = Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        } catch (NoSuchFileException e) {
+            return deletion.toResult();
+        } catch (IOException e) {
+            deletion.failures.add(new Failure(path.toFile(), e));
+            return deletion.toResult();
+        }
+        if (attrs.isDirectory()) {
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                pool.invoke(new DirTask(deletion, path, deleteSelf));
+            } finally {
+                pool.shutdown();
+            }
+        } else if (deleteSelf) {
+            deletion.deleteFile(path, attrs.size());
+        }
+        return deletion.toResult();
+    }
+
+    private static class Deletion {
+        final AtomicLong files = new AtomicLong();
+        final AtomicLong dirs = new AtomicLong();
+        final AtomicLong bytes = new AtomicLong();
+        final ConcurrentLinkedQueue<Failure> failures = new ConcurrentLinkedQueue<>();
+
+        boolean deleteFile(Path path, long size) {
+            try {
+                Files.delete(path);
+                files.incrementAndGet();
+                bytes.addAndGet(size);
+                return true;
+            } catch (NoSuchFileException e) {
+                //已被其他地方删除
+                return true;
+            } catch (IOException e) {
+                failures.add(new Failure(path.toFile(), e));
+                return false;
+            }
+        }
+
+        void merge(Result result) {
+            files.addAndGet(result.deletedFiles);
+            dirs.addAndGet(result.deletedDirs);
+            bytes.addAndGet(result.deletedBytes);
+            failures.addAll(result.failures);
+        }
+
+        Result toResult() {
+            return new Result(files.get(), dirs.get(), bytes.get(), new ArrayList<>(failures));
+        }
+    }
+
+    private static class DirTask extends RecursiveAction {
+        private static final long serialVersionUID = 3347793168206518860L;
+        private final Deletion deletion;
+        private final Path dir;
+        private final boolean deleteSelf;
+        private volatile boolean childFailed;
+
+        DirTask(Deletion deletion, Path dir, boolean deleteSelf) {
+            this.deletion = deletion;
+            this.dir = dir;
+            this.deleteSelf = deleteSelf;
+        }
+
+        @Override
+        protected void compute() {
+            List<DirTask> subdirs = new ArrayList<>();
+            List<Path> batch = new ArrayList<>();
+            List<Long> sizes = new ArrayList<>();
+            List<RecursiveAction> tasks = new ArrayList<>();
+            try {
+                //深度为1时，子文件夹也通过visitFile返回，不跟随符号链接
+                Files.walkFileTree(dir, EnumSet.noneOf(FileVisitOption.class), 1, new SimpleFileVisitor<Path>() {
+                    @Override
+                    public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                        if (attrs.isDirectory()) {
+                            DirTask task = new DirTask(deletion, file, true);
+                            subdirs.add(task);
+                            tasks.add(task);
+                        } else {
+                            batch.add(file);
+                            sizes.add(attrs.size());
+                            if (batch.size() >= BATCH_SIZE) {
+                                tasks.add(new BatchTask(DirTask.this, new ArrayList<>(batch), new ArrayList<>(sizes)));
+                                batch.clear();
+                                sizes.clear();
+                            }
+                        }
+                        return FileVisitResult.CONTINUE;
+                    }
+
+                    @Override
+                    public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                        if (!(exc instanceof NoSuchFileException)) {
+                            deletion.failures.add(new Failure(file.toFile(), exc));
+                            childFailed = true;
+                        }
+                        return FileVisitResult.CONTINUE;
+                    }
+                });
+            } catch (NoSuchFileException e) {
+                return;
+            } catch (IOException e) {
+                deletion.failures.add(new Failure(dir.toFile(), e));
+                return;
+            }
+            if (!batch.isEmpty()) {
+                tasks.add(new BatchTask(this, batch, sizes));
+            }
+            invokeAll(tasks);
+            for (DirTask task : subdirs) {
+                if (task.childFailed) {
+                    childFailed = true;
+                }
+            }
+            //子项有删除失败的，文件夹必定非空，不再尝试，失败原因已记录
+            if (deleteSelf && !childFailed) {
+                try {
+                    Files.delete(dir);
+                    deletion.dirs.incrementAndGet();
+                } catch (NoSuchFileException ignore) {
+                } catch (IOException e) {
+                    deletion.failures.add(new Failure(dir.toFile(), e));
+                    childFailed = true;
+                }
+            }
+        }
+    }
+
+    private static class BatchTask extends RecursiveAction {
+        private static final long serialVersionUID = 8997005008153237588L;
+        private final DirTask parent;
+        private final List<Path> files;
+        private final List<Long> sizes;
+
+        BatchTask(DirTask parent, List<Path> files, List<Long> sizes) {
+            this.parent = parent;
+            this.files = files;
+            this.sizes = sizes;
+        }
+
+        @Override
+        protected void compute() {
+            for (int i = 0; i < files.size(); i++) {
+                if (!parent.deletion.deleteFile(files.get(i), sizes.get(i))) {
+                    parent.childFailed = true;
+                }
+            }
+        }
+    }
+
+    /**
+     * 删除失败的文件或文件夹
+     */
+    public static class Failure {
+        public final File file;
+        public final IOException error;
+
+        Failure(File file, IOException error) {
+            this.file = file;
+            this.error = error;
+        }
+
+        @Override
+        public String toString() {
+            return file + ": " + error;
+        }
+    }
+
+    /**
+     * 删除结果
+     */
+    public static class Result {
+        /**
+         * 删除的文件数，包含符号链接
+         */
+        public final long deletedFiles;
+        /**
+         * 删除的文件夹数
+         */
+        public final long deletedDirs;
+        /**
+         * 删除的文件大小之和，单位：字节
+         */
+        public final long deletedBytes;
+        /**
+         * 删除失败的文件或文件夹
+         */
+        public final List<Failure> failures;
+
+        Result(long deletedFiles, long deletedDirs, long deletedBytes, List<Failure> failures) {
+            this.deletedFiles = deletedFiles;
+            this.deletedDirs = deletedDirs;
+            this.deletedBytes = deletedBytes;
+            this.failures = Collections.unmodifiableList(failures);
+        }
+
+        public boolean isSuccessful() {
+            return failures.isEmpty();
+        }
+
+        @Override
+        public String toString() {
+            return "Result{" +
+                    "deletedFiles=" + deletedFiles +
+                    ", deletedDirs=" + deletedDirs +
+                    ", deletedBytes=" + deletedBytes +
+                    ", failures=" + failures.size() +
+                    '}';
+        }
+    }
+}
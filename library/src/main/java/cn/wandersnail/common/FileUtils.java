@@ -245,28 +245,27 @@ public class FileUtils {
     }
 
     /**
-     * 复制文件
+     * 复制文件，使用FileChannel.transferTo零拷贝，无法零拷贝时退回缓冲区复制
      * @param src 源文件
      * @param target 目标文件
-     * @param bufferSize 读取流时的缓存大小
+     * @param bufferSize 退回缓冲区复制时的缓存大小
      */
     public static void copyFile(File src, File target, int bufferSize) {
+        copyFile(src, target, new FileCopier().setBufferSize(bufferSize));
+    }
+
+    /**
+     * 复制文件
+     * @param src 源文件
+     * @param target 目标文件
+     * @param copier 复制方式，可设置是否保留文件属性、稀疏文件等
+     */
+    public static void copyFile(File src, File target, FileCopier copier) {
         if (!src.exists()) return;
-        BufferedInputStream fis = null;
-        BufferedOutputStream fos = null;
         try {
-            fis = new BufferedInputStream(new FileInputStream(src));
-            fos = new BufferedOutputStream(new FileOutputStream(target));
-            byte[] buffer = new byte[bufferSize];
-            int len;
-            while ((len = fis.read(buffer)) != -1) {
-                fos.write(buffer, 0, len);
-            }
-            fos.flush();
+            copier.copyFile(src, target);
         } catch (Exception e) {
             e.printStackTrace();
-        } finally {
-            IOUtils.closeQuietly(fis, fos);
         }
     }
 
@@ -283,10 +282,20 @@ public class FileUtils {
      * 复制文件夹
      * @param srcDir 源文件夹
      * @param targetDir 目标文件夹
-     * @param bufferSize 读取流时的缓存大小
+     * @param bufferSize 退回缓冲区复制时的缓存大小
      */
-    @SuppressWarnings("ResultOfMethodCallIgnored")
     public static void copyDir(File srcDir, File targetDir, int bufferSize) {
+        copyDir(srcDir, targetDir, new FileCopier().setBufferSize(bufferSize));
+    }
+
+    /**
+     * 复制文件夹，单个文件复制失败不影响其他文件
+     * @param srcDir 源文件夹
+     * @param targetDir 目标文件夹
+     * @param copier 复制方式，可设置是否保留文件属性、稀疏文件等
+     */
+    @SuppressWarnings("ResultOfMethodCallIgnored")
+    public static void copyDir(File srcDir, File targetDir, FileCopier copier) {
         //目标目录新建源文件夹
         if (!targetDir.exists()) {
             targetDir.mkdirs();
@@ -296,12 +305,28 @@ public class FileUtils {
         if (files != null && files.length > 0) {
             for (File file : files) {
                 if (file.isFile()) {
-                    copyFile(file, new File(targetDir, file.getName()), bufferSize);
+                    copyFile(file, new File(targetDir, file.getName()), copier);
                 } else {
-                    copyDir(file, new File(targetDir, file.getName()), bufferSize);
+                    copyDir(file, new File(targetDir, file.getName()), copier);
                 }
             }
         }
+        try {
+            copier.copyDirAttributes(srcDir, targetDir);
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * 并行复制文件夹，适合大量小文件
+     * @param srcDir 源文件夹
+     * @param targetDir 目标文件夹
+     * @param parallelism 并行线程数
+     * @return 复制结果，包含复制的文件数、字节数及失败的文件
+     */
+    public static FileCopier.Result copyDirParallel(File srcDir, File targetDir, int parallelism) {
+        return new FileCopier().setParallelism(parallelism).copyDirParallel(srcDir, targetDir);
     }
 
     /**
@@ -317,14 +342,24 @@ public class FileUtils {
      * 复制文件或文件夹
      * @param src 源文件或文件夹
      * @param target 目标文件或文件夹
-     * @param bufferSize 读取流时的缓存大小
+     * @param bufferSize 退回缓冲区复制时的缓存大小
      */
     public static void copy(File src, File target, int bufferSize) {
+        copy(src, target, new FileCopier().setBufferSize(bufferSize));
+    }
+
+    /**
+     * 复制文件或文件夹
+     * @param src 源文件或文件夹
+     * @param target 目标文件或文件夹
+     * @param copier 复制方式，可设置是否保留文件属性、稀疏文件等
+     */
+    public static void copy(File src, File target, FileCopier copier) {
         if (src.exists()) {
             if (src.isFile()) {
-                copyFile(src, target, bufferSize);
+                copyFile(src, target, copier);
             } else {
-                copyDir(src, target, bufferSize);
+                copyDir(src, target, copier);
             }
         }
     }
@@ -355,6 +390,15 @@ public class FileUtils {
         }
     }
 
+    /**
+     * 并行获取文件或文件夹大小，适合文件数量很多的文件夹。与{@link #getSize(File)}一样跟随符号链接
+     *
+     * @param parallelism 并行线程数
+     */
+    public static long getSize(File file, int parallelism) {
+        return new SizeCalculator().setParallelism(parallelism).setFollowLinks(true).calculate(file).size;
+    }
+
     /**
      * 删除文件夹，包含自身
      */
@@ -381,6 +425,26 @@ public class FileUtils {
         }
     }
 
+    /**
+     * 并行删除文件夹，包含自身。适合文件数量很多的文件夹
+     *
+     * @param parallelism 并行线程数
+     * @return 删除结果，包含删除的文件数及失败的文件
+     */
+    public static FileDeleter.Result deleteDir(File dir, int parallelism) {
+        return new FileDeleter().setParallelism(parallelism).delete(dir);
+    }
+
+    /**
+     * 并行删除文件夹内所有文件。适合文件数量很多的文件夹
+     *
+     * @param parallelism 并行线程数
+     * @return 删除结果，包含删除的文件数及失败的文件
+     */
+    public static FileDeleter.Result emptyDir(File dir, int parallelism) {
+        return new FileDeleter().setParallelism(parallelism).empty(dir);
+    }
+
     /*
      * 比较大小并删除源
      */
@@ -0,0 +1,216 @@
+package cn.wandersnail.common;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystemLoopException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 并行计算文件夹大小。每个文件夹一个任务，用Files.walkFileTree遍历一层，大小直接取遍历时得到的属性，
+ * 每个文件只需一次stat，子文件夹分给ForkJoin线程池工作窃取执行
+ * <p>
+ * date: 2026/10/19 00:20
+ * author: zengfansheng
+ */
+public class SizeCalculator {
+    private int parallelism = Math.max(2, Runtime.getRuntime().availableProcessors());
+    private int breakdownDepth;
+    private boolean followLinks;
+
+    /**
+     * 设置线程数，默认为CPU核数，至少为2
+     */
+    public SizeCalculator setParallelism(int parallelism) {
+        this.parallelism = Math.max(1, parallelism);
+        return this;
+    }
+
+    /**
+     * 设置按子文件夹统计的深度，默认0不统计。1为统计直接子文件夹，2再包含孙文件夹，以此类推
+     */
+    public SizeCalculator setBreakdownDepth(int breakdownDepth) {
+        this.breakdownDepth = Math.max(0, breakdownDepth);
+        return this;
+    }
+
+    /**
+     * 是否跟随符号链接，默认false，符号链接只计自身大小
+     */
+    public SizeCalculator setFollowLinks(boolean followLinks) {
+        this.followLinks = followLinks;
+        return this;
+    }
+
+    /**
+     * 计算文件或文件夹的大小
+     */
+    public Result calculate(File file) {
+        Path root = file.toPath();
+        Calculation calc = new Calculation(root);
+        long size;
+        BasicFileAttributes attrs = null;
+        try {
+            attrs = followLinks ? Files.readAttributes(root, BasicFileAttributes.class) :
+                    Files.readAttributes(root, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        } catch (IOException e) {
+            calc.failures.add(file);
+        }
+        if (attrs == null) {
+            size = 0;
+        } else if (attrs.isDirectory()) {
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                size = pool.invoke(new DirTask(calc, root, 0, Collections.emptyList()));
+            } finally {
+                pool.shutdown();
+            }
+        } else {
+            calc.files.incrementAndGet();
+            size = attrs.size();
+        }
+        return new Result(size, calc.files.get(), calc.dirs.get(), new HashMap<>(calc.breakdown),
+                new ArrayList<>(calc.failures));
+    }
+
+    private static class Calculation {
+        final Path root;
+        final AtomicLong files = new AtomicLong();
+        final AtomicLong dirs = new AtomicLong();
+        final Map<String, Long> breakdown = new ConcurrentHashMap<>();
+        final ConcurrentLinkedQueue<File> failures = new ConcurrentLinkedQueue<>();
+
+        Calculation(Path root) {
+            this.root = root;
+        }
+    }
+
+    private class DirTask extends RecursiveTask<Long> {
+        private static final long serialVersionUID = 8547364535807996398L;
+        private final Calculation calc;
+        private final Path dir;
+        private final int depth;
+        private final List<Object> ancestorKeys;//上级文件夹的标识，跟随符号链接时用于发现成环
+
+        DirTask(Calculation calc, Path dir, int depth, List<Object> ancestorKeys) {
+            this.calc = calc;
+            this.dir = dir;
+            this.depth = depth;
+            this.ancestorKeys = ancestorKeys;
+        }
+
+        @Override
+        protected Long compute() {
+            List<DirTask> subtasks = new ArrayList<>();
+            long[] size = {0};
+            EnumSet<FileVisitOption> options = followLinks ? EnumSet.of(FileVisitOption.FOLLOW_LINKS) :
+                    EnumSet.noneOf(FileVisitOption.class);
+            try {
+                List<Object> keys = ancestorKeys;
+                if (followLinks) {
+                    Object key = Files.readAttributes(dir, BasicFileAttributes.class).fileKey();
+                    if (key != null && ancestorKeys.contains(key)) {
+                        throw new FileSystemLoopException(dir.toString());
+                    }
+                    if (key != null) {
+                        keys = new ArrayList<>(ancestorKeys);
+                        keys.add(key);
+                    }
+                }
+                calc.dirs.incrementAndGet();
+                List<Object> childKeys = keys;
+                //深度为1时，子文件夹也通过visitFile返回，不再深入
+                Files.walkFileTree(dir, options, 1, new SimpleFileVisitor<Path>() {
+                    @Override
+                    public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                        if (attrs.isDirectory()) {
+                            DirTask task = new DirTask(calc, file, depth + 1, childKeys);
+                            task.fork();
+                            subtasks.add(task);
+                        } else {
+                            calc.files.incrementAndGet();
+                            size[0] += attrs.size();
+                        }
+                        return FileVisitResult.CONTINUE;
+                    }
+
+                    @Override
+                    public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                        calc.failures.add(file.toFile());
+                        return FileVisitResult.CONTINUE;
+                    }
+                });
+            } catch (IOException e) {
+                calc.failures.add(dir.toFile());
+            }
+            for (DirTask task : subtasks) {
+                size[0] += task.join();
+            }
+            if (depth > 0 && depth <= breakdownDepth) {
+                calc.breakdown.put(calc.root.relativize(dir).toString(), size[0]);
+            }
+            return size[0];
+        }
+    }
+
+    /**
+     * 计算结果
+     */
+    public static class Result {
+        /**
+         * 总大小，单位：字节
+         */
+        public final long size;
+        /**
+         * 文件数
+         */
+        public final long fileCount;
+        /**
+         * 文件夹数，包含自身
+         */
+        public final long dirCount;
+        /**
+         * 各子文件夹的大小，键为相对路径，深度由{@link SizeCalculator#setBreakdownDepth(int)}决定
+         */
+        public final Map<String, Long> breakdown;
+        /**
+         * 无法读取的文件或文件夹，未计入大小
+         */
+        public final List<File> failures;
+
+        Result(long size, long fileCount, long dirCount, Map<String, Long> breakdown, List<File> failures) {
+            this.size = size;
+            this.fileCount = fileCount;
+            this.dirCount = dirCount;
+            this.breakdown = Collections.unmodifiableMap(breakdown);
+            this.failures = Collections.unmodifiableList(failures);
+        }
+
+        @Override
+        public String toString() {
+            return "Result{" +
+                    "size=" + size +
+                    ", fileCount=" + fileCount +
+                    ", dirCount=" + dirCount +
+                    ", breakdown=" + breakdown.size() +
+                    ", failures=" + failures.size() +
+                    '}';
+        }
+    }
+}
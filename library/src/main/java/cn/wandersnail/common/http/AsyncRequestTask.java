@@ -0,0 +1,121 @@
+package cn.wandersnail.common.http;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledFuture;
+
+import okhttp3.ResponseBody;
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Converter;
+import retrofit2.Response;
+
+/**
+ * 基于OkHttp异步调用的请求任务，不经过RxJava调度，结果通过CompletableFuture返回。
+ * 超时与同步请求一致，正常完成并标记{@link ConvertedResponse#isCallTimeout}；网络异常时异常完成
+ * <p>
+ * date: 2026/10/18 21:50
+ * author: zengfansheng
+ */
+class AsyncRequestTask<T> {
+    final CompletableFuture<ConvertedResponse<T>> future;
+    private final ConvertedResponse<T> convertedResp;
+    private final Converter<ResponseBody, T> converter;
+    private final CacheLookup cacheLookup;
+    private final Executor executor;
+    private ScheduledFuture<?> timeoutFuture;
+
+    /**
+     * @param cacheLookup 缓存查询，未开启缓存时为null
+     * @param executor    执行转换及完成future的线程池，为null时在OkHttp的调度线程中执行
+     */
+    AsyncRequestTask(Call<ResponseBody> call, Converter<ResponseBody, T> converter, Configuration configuration,
+                     CacheLookup cacheLookup, Executor executor) {
+        this.converter = converter;
+        this.cacheLookup = cacheLookup;
+        this.executor = executor;
+        convertedResp = new ConvertedResponse<>(call);
+        future = new CompletableFuture<ConvertedResponse<T>>() {
+            @Override
+            public boolean cancel(boolean mayInterruptIfRunning) {
+                call.cancel();
+                return super.cancel(mayInterruptIfRunning);
+            }
+        };
+        if (cacheLookup != null && cacheLookup.isFresh()) {
+            //缓存未过期，不发请求
+            dispatch(cacheLookup.getCachedResponse(call.request()));
+            return;
+        }
+        if (configuration.callTimeout > 0) {
+            timeoutFuture = EasyHttp.callTimeoutService.schedule(configuration.callTimeout * 1000L, () -> {
+                convertedResp.isCallTimeout = true;
+                call.cancel();
+            });
+        }
+        call.enqueue(new Callback<ResponseBody>() {
+            @Override
+            public void onResponse(Call<ResponseBody> call, Response<ResponseBody> response) {
+                cancelTimeout();
+                dispatch(cacheLookup == null ? response : cacheLookup.onResponse(response));
+            }
+
+            @Override
+            public void onFailure(Call<ResponseBody> call, Throwable t) {
+                cancelTimeout();
+                if (convertedResp.isCallTimeout) {
+                    complete();
+                } else {
+                    run(() -> future.completeExceptionally(t));
+                }
+            }
+        });
+    }
+
+    private void cancelTimeout() {
+        if (timeoutFuture != null) {
+            timeoutFuture.cancel(false);
+        }
+    }
+
+    private void dispatch(Response<ResponseBody> response) {
+        run(() -> {
+            convertedResp.response = response;
+            convert(response);
+            future.complete(convertedResp);
+        });
+    }
+
+    private void complete() {
+        run(() -> future.complete(convertedResp));
+    }
+
+    private void run(Runnable runnable) {
+        if (executor == null) {
+            runnable.run();
+        } else {
+            try {
+                executor.execute(runnable);
+            } catch (Exception e) {
+                //线程池已关闭或拒绝
+                future.completeExceptionally(e);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void convert(Response<ResponseBody> response) {
+        if (response.isSuccessful()) {
+            try {
+                ResponseBody body = response.body();
+                if (cacheLookup != null) {
+                    convertedResp.convertedResponse = cacheLookup.convert(response, converter);
+                } else if (body != null) {
+                    convertedResp.convertedResponse = converter == null ? (T) body : ConvertTimer.convert(converter, body, response);
+                }
+            } catch (Throwable t) {
+                convertedResp.convertError = t;
+            }
+        }
+    }
+}
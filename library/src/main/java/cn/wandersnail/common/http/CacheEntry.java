@@ -0,0 +1,113 @@
+package cn.wandersnail.common.http;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import okhttp3.CacheControl;
+import okhttp3.Headers;
+import okhttp3.MediaType;
+
+/**
+ * 响应缓存条目，保存响应头、响应体及各转换器转换后的结果
+ * <p>
+ * date: 2026/10/18 20:40
+ * author: zengfansheng
+ */
+class CacheEntry {
+    final String key;
+    final byte[] body;
+    volatile Headers headers;
+    volatile long expiresAt;//在此之前无需向服务器确认
+    //转换器被回收后结果随之移除
+    private final Map<Object, Object> convertedMap = Collections.synchronizedMap(new WeakHashMap<>());
+
+    CacheEntry(String key, Headers headers, byte[] body, long expiresAt) {
+        this.key = key;
+        this.headers = headers;
+        this.body = body;
+        this.expiresAt = expiresAt;
+    }
+
+    boolean isFresh() {
+        return System.currentTimeMillis() < expiresAt;
+    }
+
+    String getETag() {
+        return headers.get("ETag");
+    }
+
+    String getLastModified() {
+        return headers.get("Last-Modified");
+    }
+
+    /**
+     * 是否有可用于条件请求的校验头
+     */
+    boolean hasValidators() {
+        return getETag() != null || getLastModified() != null;
+    }
+
+    MediaType getMediaType() {
+        String type = headers.get("Content-Type");
+        return type == null ? null : MediaType.parse(type);
+    }
+
+    Object getConverted(Object converter) {
+        return convertedMap.get(converter);
+    }
+
+    void putConverted(Object converter, Object converted) {
+        convertedMap.put(converter, converted);
+    }
+
+    /**
+     * 用304响应的头更新缓存的头
+     */
+    void update(Headers notModifiedHeaders, long expiresAt) {
+        Headers.Builder builder = headers.newBuilder();
+        for (String name : notModifiedHeaders.names()) {
+            //304的Content-Length等描述的不是缓存的内容
+            if (!"Content-Length".equalsIgnoreCase(name) && !"Content-Encoding".equalsIgnoreCase(name) &&
+                    !"Transfer-Encoding".equalsIgnoreCase(name)) {
+                builder.removeAll(name);
+                for (String value : notModifiedHeaders.values(name)) {
+                    builder.add(name, value);
+                }
+            }
+        }
+        headers = builder.build();
+        this.expiresAt = expiresAt;
+    }
+
+    /**
+     * 根据Cache-Control及Expires计算过期时间
+     *
+     * @param defaultMaxAge 响应未声明有效期时使用，单位：毫秒
+     */
+    static long computeExpiresAt(Headers headers, long defaultMaxAge) {
+        long now = System.currentTimeMillis();
+        CacheControl cacheControl = CacheControl.parse(headers);
+        if (cacheControl.noCache()) {
+            return now;
+        }
+        if (cacheControl.maxAgeSeconds() >= 0) {
+            long age = 0;
+            String ageValue = headers.get("Age");
+            if (ageValue != null) {
+                try {
+                    age = Long.parseLong(ageValue.trim());
+                } catch (NumberFormatException ignore) {
+                }
+            }
+            return now + Math.max(0, cacheControl.maxAgeSeconds() - age) * 1000;
+        }
+        Date expires = headers.getDate("Expires");
+        if (expires != null) {
+            Date date = headers.getDate("Date");
+            return now + Math.max(0, expires.getTime() - (date == null ? now : date.getTime()));
+        }
+        return now + defaultMaxAge;
+    }
+}
@@ -0,0 +1,165 @@
+package cn.wandersnail.common.http;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import okhttp3.CacheControl;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.ResponseBody;
+import okio.BufferedSource;
+import retrofit2.Converter;
+import retrofit2.Response;
+
+/**
+ * 单次GET请求的缓存查询，负责条件请求头、304处理、响应写入缓存及转换结果复用
+ * <p>
+ * date: 2026/10/18 21:05
+ * author: zengfansheng
+ */
+class CacheLookup {
+    private final ResponseCache cache;
+    private final String key;
+    private final boolean noStore;
+    private volatile CacheEntry entry;
+    private volatile boolean fromCache;//响应来自缓存，无需再写入
+
+    CacheLookup(ResponseCache cache, String url, Map<String, String> headers) {
+        this.cache = cache;
+        key = ResponseCache.key(url, headers);
+        noStore = headers != null && CacheControl.parse(okhttp3.Headers.of(headers)).noStore();
+        entry = noStore ? null : cache.get(key);
+    }
+
+    /**
+     * 缓存未过期，可不发请求
+     */
+    boolean isFresh() {
+        CacheEntry e = entry;
+        return e != null && e.isFresh();
+    }
+
+    /**
+     * 在原请求头上加入条件请求头
+     */
+    Map<String, String> getRequestHeaders(Map<String, String> headers) {
+        CacheEntry e = entry;
+        if (e == null || !e.hasValidators()) {
+            return headers;
+        }
+        Map<String, String> map = headers == null ? new HashMap<>() : new HashMap<>(headers);
+        if (e.getETag() != null) {
+            map.put("If-None-Match", e.getETag());
+        }
+        if (e.getLastModified() != null) {
+            map.put("If-Modified-Since", e.getLastModified());
+        }
+        return map;
+    }
+
+    /**
+     * 直接使用缓存的响应
+     */
+    Response<ResponseBody> getCachedResponse(Request request) {
+        cache.onHit();
+        fromCache = true;
+        return createResponse(entry, request);
+    }
+
+    /**
+     * 处理网络响应，304时换成缓存的响应
+     */
+    Response<ResponseBody> onResponse(Response<ResponseBody> response) {
+        CacheEntry e = entry;
+        if (response.code() == 304 && e != null) {
+            ResponseBody errorBody = response.errorBody();
+            if (errorBody != null) {
+                errorBody.close();
+            }
+            e.update(response.headers(), CacheEntry.computeExpiresAt(response.headers(), cache.getDefaultMaxAgeMillis()));
+            cache.onRevalidated(e);
+            fromCache = true;
+            return createResponse(e, response.raw().request());
+        }
+        if (response.isSuccessful()) {
+            cache.onMiss();
+        }
+        //服务器返回了新内容，旧的条目不再使用
+        entry = null;
+        fromCache = false;
+        return response;
+    }
+
+    /**
+     * 转换响应体，可复用时直接返回缓存的转换结果
+     */
+    @SuppressWarnings("unchecked")
+    <T> T convert(Response<ResponseBody> response, Converter<ResponseBody, T> converter) throws IOException {
+        ResponseBody body = response.body();
+        if (body == null) {
+            return null;
+        }
+        if (!fromCache) {
+            CacheEntry stored = store(response, body);
+            if (stored != null) {
+                entry = stored;
+                body = ResponseBody.create(stored.getMediaType(), stored.body);
+            }
+        }
+        if (converter == null) {
+            return (T) body;
+        }
+        CacheEntry e = entry;
+        if (e != null) {
+            Object converted = e.getConverted(converter);
+            if (converted != null) {
+                body.close();
+                cache.onConversionHit();
+                return (T) converted;
+            }
+        }
+        T result = ConvertTimer.convert(converter, body, response);
+        if (e != null && result != null) {
+            e.putConverted(converter, result);
+        }
+        return result;
+    }
+
+    //可缓存时读出响应体写入缓存，超过大小上限时不读完，原响应体仍可继续使用
+    private CacheEntry store(Response<ResponseBody> response, ResponseBody body) throws IOException {
+        if (noStore || response.code() != 200 || CacheControl.parse(response.headers()).noStore() ||
+                "*".equals(response.headers().get("Vary"))) {
+            return null;
+        }
+        long expiresAt = CacheEntry.computeExpiresAt(response.headers(), cache.getDefaultMaxAgeMillis());
+        boolean hasValidators = response.headers().get("ETag") != null || response.headers().get("Last-Modified") != null;
+        if (!hasValidators && expiresAt <= System.currentTimeMillis()) {
+            return null;
+        }
+        long maxEntrySize = cache.getMaxEntrySize();
+        if (body.contentLength() > maxEntrySize) {
+            return null;
+        }
+        BufferedSource source = body.source();
+        if (source.request(maxEntrySize + 1)) {
+            return null;
+        }
+        byte[] bytes = source.readByteArray();
+        body.close();
+        CacheEntry e = new CacheEntry(key, response.headers(), bytes, expiresAt);
+        cache.put(e);
+        return e;
+    }
+
+    private static Response<ResponseBody> createResponse(CacheEntry entry, Request request) {
+        okhttp3.Response raw = new okhttp3.Response.Builder()
+                .request(request)
+                .protocol(Protocol.HTTP_1_1)
+                .code(200)
+                .message("OK")
+                .headers(entry.headers)
+                .build();
+        return Response.success(ResponseBody.create(entry.getMediaType(), entry.body), raw);
+    }
+}
@@ -0,0 +1,54 @@
+package cn.wandersnail.common.http;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import cn.wandersnail.common.http.util.ThreadUtils;
+
+/**
+ * 请求超时服务。所有请求共用一个定时线程，到期时执行取消操作，
+ * 请求结束时取消的定时会立即从队列中移除，不会为每个请求占用一个休眠的线程
+ * <p>
+ * date: 2026/10/18 16:40
+ * author: zengfansheng
+ */
+class CallTimeoutService {
+    private volatile ScheduledThreadPoolExecutor executor;
+
+    CallTimeoutService() {
+        setThreadFactory(ThreadUtils.newThreadFactory("EasyHttp-timeout", false));
+    }
+
+    /**
+     * 更换定时线程，已添加的定时仍在原线程到期执行
+     */
+    synchronized void setThreadFactory(ThreadFactory threadFactory) {
+        ScheduledThreadPoolExecutor old = executor;
+        ScheduledThreadPoolExecutor newExecutor = new ScheduledThreadPoolExecutor(1, threadFactory);
+        newExecutor.setRemoveOnCancelPolicy(true);
+        executor = newExecutor;
+        if (old != null) {
+            old.shutdown();
+        }
+    }
+
+    /**
+     * 添加超时定时
+     *
+     * @param timeoutMillis 超时时长，单位：毫秒
+     * @param onTimeout     超时时执行，应尽快返回
+     * @return 请求结束时调用{@link ScheduledFuture#cancel(boolean)}移除
+     */
+    ScheduledFuture<?> schedule(long timeoutMillis, Runnable onTimeout) {
+        return executor.schedule(onTimeout, timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 等待中的超时定时个数
+     */
+    int pendingCount() {
+        return executor.getQueue().size();
+    }
+}
@@ -2,6 +2,8 @@ package cn.wandersnail.common.http;
 
 import java.util.Map;
 
+import cn.wandersnail.common.http.retry.CircuitBreakerRegistry;
+import cn.wandersnail.common.http.retry.RetryPolicy;
 import retrofit2.Retrofit;
 
 /**
@@ -27,5 +29,26 @@ public class Configuration {
      * 请求头
      */
     public Map<String, String> headers;
+    /**
+     * 重试策略，使用自定义的Retrofit时无效
+     */
+    public RetryPolicy retryPolicy;
+    /**
+     * 按主机熔断，使用自定义的Retrofit时无效
+     */
+    public CircuitBreakerRegistry circuitBreakers;
+    /**
+     * GET请求的响应缓存，为null时不缓存，可使用{@link EasyHttp#getResponseCache()}
+     */
+    public ResponseCache responseCache;
+    /**
+     * 是否合并相同的并发GET请求，地址、请求头、转换器实例都相同的请求同时进行时只发一次，
+     * 结果及转换结果共用。未设置转换器时无效
+     */
+    public boolean coalesce;
+    /**
+     * 异步请求的调度策略，为null时使用{@link SchedulerStrategy#io()}
+     */
+    public SchedulerStrategy schedulerStrategy;
     HttpService service;
 }
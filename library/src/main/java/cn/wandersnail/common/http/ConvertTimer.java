@@ -0,0 +1,30 @@
+package cn.wandersnail.common.http;
+
+import java.io.IOException;
+
+import cn.wandersnail.common.http.metrics.MetricsReporter;
+import cn.wandersnail.common.http.metrics.Phase;
+import okhttp3.ResponseBody;
+import retrofit2.Converter;
+import retrofit2.Response;
+
+/**
+ * 转换响应体并记录转换耗时，未设置指标上报器时直接转换
+ * <p>
+ * date: 2026/10/18 23:25
+ * author: zengfansheng
+ */
+class ConvertTimer {
+    static <T> T convert(Converter<ResponseBody, T> converter, ResponseBody body, Response<?> response) throws IOException {
+        MetricsReporter reporter = EasyHttp.getMetricsReporter();
+        if (!reporter.isEnabled()) {
+            return converter.convert(body);
+        }
+        long start = System.nanoTime();
+        try {
+            return converter.convert(body);
+        } finally {
+            reporter.recordLatency(response.raw().request().url().host(), Phase.CONVERT, System.nanoTime() - start);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package cn.wandersnail.common.http;
 
+import io.reactivex.disposables.Disposable;
 import okhttp3.ResponseBody;
 import retrofit2.Call;
 import retrofit2.Response;
@@ -12,6 +13,7 @@ import retrofit2.Response;
  */
 public class ConvertedResponse<T> {
     private final Call<ResponseBody> call;
+    private final Disposable handle;//合并请求时调用方的句柄
     /**
      * 转换过的响应数据
      */
@@ -31,13 +33,24 @@ public class ConvertedResponse<T> {
 
     public ConvertedResponse(Call<ResponseBody> call) {
         this.call = call;
+        this.handle = null;
+    }
+
+    /**
+     * 合并请求使用，取消时只是此调用方不再等待结果，共用的请求在所有调用方都取消后才取消
+     */
+    ConvertedResponse(Disposable handle) {
+        this.call = null;
+        this.handle = handle;
     }
 
     /**
      * 取消
      */
     public void cancel() {
-        if (call.isExecuted() && !call.isCanceled()) {
+        if (handle != null) {
+            handle.dispose();
+        } else if (call.isExecuted() && !call.isCanceled()) {
             call.cancel();
         }
     }
@@ -46,6 +59,6 @@ public class ConvertedResponse<T> {
      * 是否被取消了
      */
     public boolean isCanceled() {
-        return call.isCanceled();
+        return handle != null ? handle.isDisposed() : call.isCanceled();
     }
 }
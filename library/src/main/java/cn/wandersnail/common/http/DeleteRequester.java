@@ -8,6 +8,7 @@ import io.reactivex.disposables.Disposable;
 import okhttp3.MediaType;
 import okhttp3.RequestBody;
 import okhttp3.ResponseBody;
+import retrofit2.Call;
 import retrofit2.Converter;
 
 /**
@@ -79,6 +80,11 @@ public class DeleteRequester<T> extends Requester<T> {
     @Override
     public ConvertedResponse<T> execute() {
         handleConfiguration(url, configuration);
+        return execute(createCall());
+    }
+
+    @Override
+    Call<ResponseBody> createCall() {
         if (isJsonBody) {
             if (configuration.headers == null) {
                 configuration.headers = new HashMap<>();
@@ -91,26 +97,26 @@ public class DeleteRequester<T> extends Requester<T> {
         if (configuration.headers != null && !configuration.headers.isEmpty()) {
             if (params != null) {
                 if (body != null) {
-                    return execute(configuration.service.deleteSync(url, configuration.headers, params, body));
+                    return configuration.service.deleteSync(url, configuration.headers, params, body);
                 } else {
-                    return execute(configuration.service.deleteParamsSync(url, configuration.headers, params));
+                    return configuration.service.deleteParamsSync(url, configuration.headers, params);
                 }
             } else if (body != null) {
-                return execute(configuration.service.deleteSync(url, configuration.headers, body));
+                return configuration.service.deleteSync(url, configuration.headers, body);
             } else {
-                return execute(configuration.service.deleteSync(url, configuration.headers));
+                return configuration.service.deleteSync(url, configuration.headers);
             }
         } else {
             if (params != null) {
                 if (body != null) {
-                    return execute(configuration.service.deleteParamsAndBodySync(url, params, body));
+                    return configuration.service.deleteParamsAndBodySync(url, params, body);
                 } else {
-                    return execute(configuration.service.deleteParamsSync(url, params));
+                    return configuration.service.deleteParamsSync(url, params);
                 }
             } else if (body != null) {
-                return execute(configuration.service.deleteSync(url, body));
+                return configuration.service.deleteSync(url, body);
             } else {
-                return execute(configuration.service.deleteSync(url));
+                return configuration.service.deleteSync(url);
             }
         }
     }
@@ -0,0 +1,203 @@
+package cn.wandersnail.common.http;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Properties;
+
+import okhttp3.Headers;
+import okio.ByteString;
+
+/**
+ * 响应缓存的磁盘层。每个条目对应一个.meta文件和一个.body文件，文件名为缓存键的MD5，
+ * .meta中只记录缓存键的SHA-256用于校验，不保存键本身。超过容量时按最近使用时间移除
+ * <p>
+ * date: 2026/10/18 20:48
+ * author: zengfansheng
+ */
+class DiskResponseStore {
+    private static final String KEY_KEY_HASH = "keyHash";
+    private static final String KEY_EXPIRES_AT = "expiresAt";
+    private static final String KEY_HEADERS = "headers";
+    private final File dir;
+    private final long maxSize;
+    private long size = -1;//未扫描时为-1
+
+    DiskResponseStore(File dir, long maxSize) {
+        this.dir = dir;
+        this.maxSize = maxSize;
+    }
+
+    synchronized CacheEntry get(String key) {
+        String name = fileName(key);
+        File meta = new File(dir, name + ".meta");
+        File body = new File(dir, name + ".body");
+        if (!meta.exists() || !body.exists()) {
+            return null;
+        }
+        Properties props = new Properties();
+        try (InputStream in = new FileInputStream(meta)) {
+            props.load(in);
+            //MD5碰撞时不是同一个键
+            if (!keyHash(key).equals(props.getProperty(KEY_KEY_HASH))) {
+                return null;
+            }
+            Headers.Builder builder = new Headers.Builder();
+            String headers = props.getProperty(KEY_HEADERS, "");
+            for (String line : headers.split("\n")) {
+                if (!line.isEmpty()) {
+                    builder.add(line);
+                }
+            }
+            byte[] bytes = Files.readAllBytes(body.toPath());
+            long now = System.currentTimeMillis();
+            meta.setLastModified(now);
+            return new CacheEntry(key, builder.build(), bytes, Long.parseLong(props.getProperty(KEY_EXPIRES_AT, "0")));
+        } catch (Exception e) {
+            //损坏的条目直接移除
+            remove(key);
+            return null;
+        }
+    }
+
+    synchronized void put(CacheEntry entry) {
+        if (entry.body.length > maxSize) {
+            return;
+        }
+        if (!dir.exists()) {
+            dir.mkdirs();
+        }
+        String name = fileName(entry.key);
+        File body = new File(dir, name + ".body");
+        long oldLength = body.exists() ? body.length() : 0;
+        try {
+            writeAtomically(body, entry.body);
+            writeMeta(entry);
+            if (size >= 0) {
+                size += entry.body.length - oldLength;
+            }
+        } catch (IOException e) {
+            remove(entry.key);
+        }
+        trimToSize();
+    }
+
+    /**
+     * 只更新响应头及过期时间，用于304后刷新
+     */
+    synchronized void update(CacheEntry entry) {
+        if (new File(dir, fileName(entry.key) + ".body").exists()) {
+            try {
+                writeMeta(entry);
+            } catch (IOException e) {
+                remove(entry.key);
+            }
+        }
+    }
+
+    synchronized void remove(String key) {
+        String name = fileName(key);
+        File body = new File(dir, name + ".body");
+        if (size >= 0 && body.exists()) {
+            size -= body.length();
+        }
+        body.delete();
+        new File(dir, name + ".meta").delete();
+    }
+
+    synchronized void clear() {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                if (file.getName().endsWith(".meta") || file.getName().endsWith(".body") || file.getName().endsWith(".tmp")) {
+                    file.delete();
+                }
+            }
+        }
+        size = 0;
+    }
+
+    synchronized long size() {
+        if (size < 0) {
+            size = 0;
+            File[] files = dir.listFiles((d, n) -> n.endsWith(".body"));
+            if (files != null) {
+                for (File file : files) {
+                    size += file.length();
+                }
+            }
+        }
+        return size;
+    }
+
+    private void trimToSize() {
+        if (size() <= maxSize) {
+            return;
+        }
+        File[] metas = dir.listFiles((d, n) -> n.endsWith(".meta"));
+        if (metas == null) {
+            return;
+        }
+        //读取时会更新.meta的修改时间，最久未用的排在前面
+        Arrays.sort(metas, Comparator.comparingLong(File::lastModified));
+        for (File meta : metas) {
+            if (size <= maxSize) {
+                break;
+            }
+            String name = meta.getName().substring(0, meta.getName().length() - 5);
+            File body = new File(dir, name + ".body");
+            size -= body.length();
+            body.delete();
+            meta.delete();
+        }
+    }
+
+    private void writeMeta(CacheEntry entry) throws IOException {
+        Properties props = new Properties();
+        props.setProperty(KEY_KEY_HASH, keyHash(entry.key));
+        props.setProperty(KEY_EXPIRES_AT, String.valueOf(entry.expiresAt));
+        StringBuilder sb = new StringBuilder();
+        Headers headers = entry.headers;
+        for (int i = 0; i < headers.size(); i++) {
+            sb.append(headers.name(i)).append(": ").append(headers.value(i)).append('\n');
+        }
+        props.setProperty(KEY_HEADERS, sb.toString());
+        File meta = new File(dir, fileName(entry.key) + ".meta");
+        File tmp = new File(dir, meta.getName() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(tmp)) {
+            props.store(out, null);
+        }
+        move(tmp, meta);
+    }
+
+    private void writeAtomically(File file, byte[] bytes) throws IOException {
+        File tmp = new File(dir, file.getName() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(tmp)) {
+            out.write(bytes);
+        }
+        move(tmp, file);
+    }
+
+    private void move(File from, File to) throws IOException {
+        try {
+            Files.move(from.toPath(), to.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(from.toPath(), to.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static String fileName(String key) {
+        return ByteString.encodeUtf8(key).md5().hex();
+    }
+
+    private static String keyHash(String key) {
+        return ByteString.encodeUtf8(key).sha256().hex();
+    }
+}
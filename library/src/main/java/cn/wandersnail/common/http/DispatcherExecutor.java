@@ -0,0 +1,61 @@
+package cn.wandersnail.common.http;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import cn.wandersnail.common.http.util.ThreadUtils;
+
+/**
+ * 共享OkHttp调度器使用的线程池。虚拟线程模式下交给虚拟线程执行，否则与OkHttp默认的线程池一致。
+ * 调度器本身已限制并发请求数，这里不再限制
+ * <p>
+ * date: 2026/10/18 22:20
+ * author: zengfansheng
+ */
+class DispatcherExecutor extends AbstractExecutorService {
+    private ExecutorService platformExecutor;
+
+    private synchronized ExecutorService getPlatformExecutor() {
+        if (platformExecutor == null) {
+            platformExecutor = new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60, TimeUnit.SECONDS,
+                    new SynchronousQueue<>(), ThreadUtils.newThreadFactory("OkHttp Dispatcher", false));
+        }
+        return platformExecutor;
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        ExecutorService executor = EasyHttp.getVirtualThreadExecutor();
+        (executor != null ? executor : getPlatformExecutor()).execute(command);
+    }
+
+    //共享的线程池随进程存在，不支持关闭
+    @Override
+    public void shutdown() {
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return false;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return false;
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) {
+        return false;
+    }
+}
@@ -4,15 +4,25 @@ package cn.wandersnail.common.http;
 import com.google.gson.Gson;
 
 import java.io.IOException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
+import cn.wandersnail.common.http.download.DownloadScheduler;
 import cn.wandersnail.common.http.download.DownloadWorkerBuilder;
 import cn.wandersnail.common.http.download.MultiDownloadWorkerBuilder;
+import cn.wandersnail.common.http.metrics.MetricsReporter;
+import cn.wandersnail.common.http.upload.BatchUploadWorkerBuilder;
+import cn.wandersnail.common.http.upload.ChunkedUploadWorkerBuilder;
 import cn.wandersnail.common.http.upload.SyncUploadWorkerBuilder;
 import cn.wandersnail.common.http.upload.UploadWorkerBuilder;
+import cn.wandersnail.common.http.util.SchedulerUtils;
+import cn.wandersnail.common.http.util.ThreadUtils;
 import io.reactivex.exceptions.UndeliverableException;
 import io.reactivex.plugins.RxJavaPlugins;
+import io.reactivex.schedulers.Schedulers;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
 
 /**
  * http网络请求，包含普通的get和post、上传、下载
@@ -21,8 +31,17 @@ import io.reactivex.plugins.RxJavaPlugins;
  * author: zengfansheng
  */
 public class EasyHttp {
-    static final ExecutorService executorService = Executors.newCachedThreadPool();
+    static final CallTimeoutService callTimeoutService = new CallTimeoutService();
+    static final RequestCoalescer requestCoalescer = new RequestCoalescer();
+    private static final HttpClientRegistry clientRegistry = new HttpClientRegistry(new ConnectionPool(),
+            new Dispatcher(new DispatcherExecutor()));
+    private static final DownloadScheduler downloadScheduler = new DownloadScheduler();
+    private static final ProgressAggregator progressAggregator = new ProgressAggregator(500, TimeUnit.MILLISECONDS);
+    private static final ResponseCache responseCache = new ResponseCache(8 * 1024 * 1024);
     private static Gson gson;
+    private static volatile ExecutionMode executionMode = ExecutionMode.PLATFORM;
+    private static volatile ExecutorService blockingExecutor;//虚拟线程模式下的线程池
+    private static volatile MetricsReporter metricsReporter = MetricsReporter.NOOP;
 
     static {
         RxJavaPlugins.setErrorHandler(t -> {
@@ -60,6 +79,102 @@ public class EasyHttp {
         EasyHttp.gson = gson;
     }
 
+    /**
+     * 共享的OkHttpClient及Retrofit注册表，所有请求器、上传、下载共用同一个连接池
+     */
+    public static HttpClientRegistry getClientRegistry() {
+        return clientRegistry;
+    }
+
+    /**
+     * 默认的下载任务调度器，未指定调度器的下载任务都由它限制并发
+     */
+    public static DownloadScheduler getDownloadScheduler() {
+        return downloadScheduler;
+    }
+
+    /**
+     * 上传、下载共用的进度汇聚器，可通过{@link ProgressAggregator#setInterval(long, TimeUnit)}修改进度回调频率，默认500毫秒
+     */
+    public static ProgressAggregator getProgressAggregator() {
+        return progressAggregator;
+    }
+
+    /**
+     * 共享的GET响应缓存，内存上限8M，需设置到{@link Configuration#responseCache}才生效，
+     * 可通过{@link ResponseCache#setDiskCache(java.io.File, long)}开启磁盘缓存
+     */
+    public static ResponseCache getResponseCache() {
+        return responseCache;
+    }
+
+    /**
+     * 设置请求指标上报器，可使用{@link cn.wandersnail.common.http.metrics.HistogramMetricsReporter}或对接其他指标库。
+     * 默认不上报，此时不采集任何指标
+     *
+     * @param reporter 为null时不上报
+     */
+    public static void setMetricsReporter(MetricsReporter reporter) {
+        metricsReporter = reporter == null ? MetricsReporter.NOOP : reporter;
+    }
+
+    public static MetricsReporter getMetricsReporter() {
+        return metricsReporter;
+    }
+
+    /**
+     * 设置阻塞任务的执行方式，应在发起请求前设置
+     */
+    public static void setExecutionMode(ExecutionMode mode) {
+        setExecutionMode(mode, 64);
+    }
+
+    /**
+     * 设置阻塞任务的执行方式，应在发起请求前设置。{@link ExecutionMode#VIRTUAL}时RxJava订阅、OkHttp异步调用、
+     * 超时定时及进度回调都在虚拟线程中执行，JDK 21以下退回有界线程池，同步请求的扇出不会耗尽平台线程
+     *
+     * @param maxThreads 不支持虚拟线程时有界线程池的大小
+     */
+    public static synchronized void setExecutionMode(ExecutionMode mode, int maxThreads) {
+        ExecutorService old = blockingExecutor;
+        boolean virtual = mode == ExecutionMode.VIRTUAL;
+        if (virtual) {
+            blockingExecutor = ThreadUtils.newVirtualThreadExecutor("EasyHttp-worker", maxThreads);
+            SchedulerUtils.setIoScheduler(Schedulers.from(blockingExecutor));
+        } else {
+            blockingExecutor = null;
+            SchedulerUtils.setIoScheduler(null);
+        }
+        executionMode = mode;
+        callTimeoutService.setThreadFactory(ThreadUtils.newThreadFactory("EasyHttp-timeout", virtual));
+        progressAggregator.setThreadFactory(ThreadUtils.newThreadFactory("EasyHttp-progress", virtual));
+        if (old != null) {
+            //已提交的任务继续执行完
+            old.shutdown();
+        }
+    }
+
+    public static ExecutionMode getExecutionMode() {
+        return executionMode;
+    }
+
+    /**
+     * 执行阻塞任务的线程池，可用于批量执行同步请求。与库内的阻塞任务共用，按执行方式为Schedulers.io()、虚拟线程或有界线程池
+     */
+    public static Executor getBlockingExecutor() {
+        ExecutorService executor = blockingExecutor;
+        return executor != null ? executor : command -> Schedulers.io().scheduleDirect(command);
+    }
+
+    static ExecutorService getBlockingExecutorService() {
+        return blockingExecutor;
+    }
+
+    //OkHttp调度器只在真正有虚拟线程时切换，有界线程池的情况由调度器自身限制并发
+    static ExecutorService getVirtualThreadExecutor() {
+        return executionMode == ExecutionMode.VIRTUAL && ThreadUtils.isVirtualThreadSupported() ? blockingExecutor : null;
+    }
+
     /**
      * 单文件下载
      */
@@ -102,6 +217,27 @@ public class EasyHttp {
         return new SyncUploadWorkerBuilder<>();
     }
 
+    /**
+     * 批量上传，每个文件单独请求，并发进行
+     */
+    public static <T> BatchUploadWorkerBuilder<T> batchUploadWorkerBuilder() {
+        return new BatchUploadWorkerBuilder<>();
+    }
+
+    /**
+     * 批量上传，每个文件单独请求，并发进行
+     */
+    public static <T> BatchUploadWorkerBuilder<T> batchUploadWorkerBuilder(Class<T> cls) {
+        return new BatchUploadWorkerBuilder<>();
+    }
+
+    /**
+     * 大文件分片上传，支持断点续传
+     */
+    public static ChunkedUploadWorkerBuilder chunkedUploadWorkerBuilder() {
+        return new ChunkedUploadWorkerBuilder();
+    }
+
     /**
      * GET请求器
      */
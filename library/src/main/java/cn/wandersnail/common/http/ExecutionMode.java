@@ -0,0 +1,18 @@
+package cn.wandersnail.common.http;
+
+/**
+ * 阻塞任务的执行方式
+ * <p>
+ * date: 2026/10/18 22:10
+ * author: zengfansheng
+ */
+public enum ExecutionMode {
+    /**
+     * 平台线程，RxJava使用Schedulers.io()，OkHttp使用默认线程池
+     */
+    PLATFORM,
+    /**
+     * JDK 21及以上每个任务一个虚拟线程，低版本退回有界线程池
+     */
+    VIRTUAL
+}
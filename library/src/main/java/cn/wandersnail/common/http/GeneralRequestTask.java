@@ -1,10 +1,10 @@
 package cn.wandersnail.common.http;
 
 
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeoutException;
 
 import cn.wandersnail.common.http.callback.RequestCallback;
-import cn.wandersnail.common.http.util.SchedulerUtils;
 import io.reactivex.Observable;
 import io.reactivex.disposables.Disposable;
 import okhttp3.ResponseBody;
@@ -19,46 +19,92 @@ import retrofit2.Response;
  */
 class GeneralRequestTask<T> {
     Disposable disposable;
+    private ScheduledFuture<?> timeoutFuture;
+    private boolean finished;//已结束或已超时
+    private boolean timedOut;
 
     GeneralRequestTask(Observable<Response<ResponseBody>> observable, Converter<ResponseBody, T> converter,
                               Configuration configuration, RequestCallback<T> callback) {
+        this(observable, converter, configuration, callback, null);
+    }
+
+    /**
+     * @param cacheLookup 缓存查询，未开启缓存时为null
+     */
+    GeneralRequestTask(Observable<Response<ResponseBody>> observable, Converter<ResponseBody, T> converter,
+                       Configuration configuration, RequestCallback<T> callback, CacheLookup cacheLookup) {
         //只有设置过超时才计
         if (configuration.callTimeout > 0) {
-            EasyHttp.executorService.execute(() -> {
-                try {
-                    Thread.sleep(configuration.callTimeout);
-                } catch (InterruptedException e) {
-                    e.printStackTrace();
-                }
+            timeoutFuture = EasyHttp.callTimeoutService.schedule(configuration.callTimeout * 1000L, () -> {
                 synchronized (GeneralRequestTask.this) {
+                    if (finished) {
+                        return;
+                    }
+                    finished = true;
+                    timedOut = true;
                     if (disposable != null && !disposable.isDisposed()) {
                         disposable.dispose();
                     }
                     disposable = null;
-                    if (callback != null) {
-                        callback.onError(new TimeoutException("Http request timeout!"));
-                    }
+                }
+                if (callback != null) {
+                    callback.onError(new TimeoutException("Http request timeout!"));
                 }
             });
         }
-        disposable = observable.compose(SchedulerUtils.applyGeneralObservableSchedulers())
+        SchedulerStrategy strategy = configuration.schedulerStrategy == null ? SchedulerStrategy.io() :
+                configuration.schedulerStrategy;
+        Disposable d = observable.compose(strategy.observableTransformer())
                 .subscribe(response -> {
-                    disposable = null;
+                    if (!finish()) {
+                        return;
+                    }
                     if (callback != null) {
                         T successBody = null;
                         if (response.isSuccessful()) {
                             ResponseBody body = response.body();
-                            successBody = body == null ? null : (converter == null ? (T) body : converter.convert(body));
+                            if (cacheLookup != null) {
+                                successBody = cacheLookup.convert(response, converter);
+                            } else {
+                                successBody = body == null ? null : (converter == null ? (T) body : ConvertTimer.convert(converter, body, response));
+                            }
                             callback.onSuccess(response, successBody);
                         }
                         callback.onResponse(response, successBody, response.errorBody());
                     }
                 }, throwable -> {
-                    disposable = null;
+                    if (!finish()) {
+                        return;
+                    }
                     if (callback != null) {
                         callback.onError(throwable);
                     }
-                }, () -> disposable = null);
+                }, this::finish);
+        synchronized (this) {
+            if (timedOut) {
+                //订阅返回前已超时。正常结束时不能取消，回调可能仍在观察线程执行，取消会中断其读取
+                d.dispose();
+            } else if (!finished) {
+                disposable = d;
+            }
+        }
+    }
+
+    /**
+     * 请求结束，移除超时定时
+     *
+     * @return 已超时返回false
+     */
+    private synchronized boolean finish() {
+        if (finished) {
+            return false;
+        }
+        finished = true;
+        disposable = null;
+        if (timeoutFuture != null) {
+            timeoutFuture.cancel(false);
+        }
+        return true;
     }
 
     Disposable getDisposable() {
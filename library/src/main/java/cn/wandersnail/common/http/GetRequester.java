@@ -1,9 +1,18 @@
 package cn.wandersnail.common.http;
 
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeoutException;
+
 import cn.wandersnail.common.http.callback.RequestCallback;
+import io.reactivex.Observable;
 import io.reactivex.disposables.Disposable;
+import okhttp3.Request;
 import okhttp3.ResponseBody;
+import retrofit2.Call;
 import retrofit2.Converter;
+import retrofit2.Response;
 
 /**
  * date: 2021/4/8 16:12
@@ -37,20 +46,118 @@ public class GetRequester<T> extends Requester<T> {
     @Override
     public ConvertedResponse<T> execute() {
         handleConfiguration(url, configuration);
-        if (configuration.headers != null && !configuration.headers.isEmpty()) {
-            return execute(configuration.service.getSync(url, configuration.headers));
+        if (isCoalesced()) {
+            return EasyHttp.requestCoalescer.execute(ResponseCache.key(url, configuration.headers), converter,
+                    this::enqueueRequest);
+        }
+        CacheLookup cacheLookup = createCacheLookup();
+        return execute(createCall(cacheLookup), cacheLookup);
+    }
+
+    @Override
+    Call<ResponseBody> createCall() {
+        return createCall(null);
+    }
+
+    private Call<ResponseBody> createCall(CacheLookup cacheLookup) {
+        Map<String, String> headers = cacheLookup == null ? configuration.headers :
+                cacheLookup.getRequestHeaders(configuration.headers);
+        if (headers != null && !headers.isEmpty()) {
+            return configuration.service.getSync(url, headers);
         } else {
-            return execute(configuration.service.getSync(url));
+            return configuration.service.getSync(url);
+        }
+    }
+
+    @Override
+    public CompletableFuture<ConvertedResponse<T>> executeAsync(Executor executor) {
+        handleConfiguration(url, configuration);
+        if (isCoalesced()) {
+            return executeCoalescedAsync(executor);
         }
+        CacheLookup cacheLookup = createCacheLookup();
+        return executeAsync(createCall(cacheLookup), cacheLookup, executor);
+    }
+
+    //合并请求走共用的进行中请求，结果再转到future
+    private CompletableFuture<ConvertedResponse<T>> executeCoalescedAsync(Executor executor) {
+        RequestCoalescer.Handle handle = new RequestCoalescer.Handle();
+        ConvertedResponse<T> convertedResp = new ConvertedResponse<>(handle);
+        CompletableFuture<ConvertedResponse<T>> future = new CompletableFuture<>();
+        handle.setParticipant(EasyHttp.requestCoalescer.enqueue(ResponseCache.key(url, configuration.headers), converter,
+                this::enqueueRequest, new RequestCallback<T>() {
+                    @Override
+                    public void onError(Throwable t) {
+                        complete(() -> {
+                            if (t instanceof TimeoutException) {
+                                convertedResp.isCallTimeout = true;
+                                future.complete(convertedResp);
+                            } else {
+                                future.completeExceptionally(t);
+                            }
+                        });
+                    }
+
+                    @Override
+                    public void onResponse(Response<ResponseBody> response, T successBody, ResponseBody errorBody) {
+                        convertedResp.response = response;
+                        convertedResp.convertedResponse = successBody;
+                        complete(() -> future.complete(convertedResp));
+                    }
+
+                    private void complete(Runnable runnable) {
+                        if (executor == null) {
+                            runnable.run();
+                        } else {
+                            executor.execute(runnable);
+                        }
+                    }
+                }));
+        future.whenComplete((r, t) -> {
+            if (future.isCancelled()) {
+                handle.dispose();
+            }
+        });
+        return future;
     }
 
     @Override
     public Disposable enqueue(RequestCallback<T> callback) {
         handleConfiguration(url, configuration);
-        if (configuration.headers != null && !configuration.headers.isEmpty()) {
-            return enqueue(configuration.service.get(url, configuration.headers), callback);
+        if (isCoalesced()) {
+            return EasyHttp.requestCoalescer.enqueue(ResponseCache.key(url, configuration.headers), converter,
+                    this::enqueueRequest, callback);
+        }
+        return enqueueRequest(callback);
+    }
+
+    private boolean isCoalesced() {
+        return configuration.coalesce && converter != null;
+    }
+
+    private Disposable enqueueRequest(RequestCallback<T> callback) {
+        CacheLookup cacheLookup = createCacheLookup();
+        if (cacheLookup == null) {
+            if (configuration.headers != null && !configuration.headers.isEmpty()) {
+                return enqueue(configuration.service.get(url, configuration.headers), callback);
+            } else {
+                return enqueue(configuration.service.get(url), callback);
+            }
+        }
+        Observable<Response<ResponseBody>> observable;
+        if (cacheLookup.isFresh()) {
+            //缓存未过期，不发请求
+            observable = Observable.fromCallable(() -> cacheLookup.getCachedResponse(new Request.Builder().url(url).build()));
         } else {
-            return enqueue(configuration.service.get(url), callback);
+            Map<String, String> headers = cacheLookup.getRequestHeaders(configuration.headers);
+            observable = (headers != null && !headers.isEmpty() ? configuration.service.get(url, headers) :
+                    configuration.service.get(url)).map(cacheLookup::onResponse);
         }
+        return enqueue(observable, callback, cacheLookup);
+    }
+
+    private CacheLookup createCacheLookup() {
+        return configuration.responseCache == null ? null :
+                new CacheLookup(configuration.responseCache, url, configuration.headers);
     }
 }
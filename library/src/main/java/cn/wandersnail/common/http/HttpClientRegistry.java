@@ -0,0 +1,363 @@
+package cn.wandersnail.common.http;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import cn.wandersnail.common.http.metrics.MetricsEventListener;
+import cn.wandersnail.common.http.retry.CircuitBreakerRegistry;
+import cn.wandersnail.common.http.retry.RetryInterceptor;
+import cn.wandersnail.common.http.retry.RetryPolicy;
+import cn.wandersnail.common.http.util.HttpUtils;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import retrofit2.Retrofit;
+import retrofit2.adapter.rxjava2.RxJava2CallAdapterFactory;
+
+/**
+ * OkHttpClient及Retrofit的共享注册表。按baseUrl、超时、是否绕过认证缓存，
+ * 所有由此创建的OkHttpClient共用同一个连接池和调度器，避免每次请求都重新握手
+ * <p>
+ * date: 2026/10/18 10:12
+ * author: zengfansheng
+ */
+public class HttpClientRegistry {
+    private final ConnectionPool connectionPool;
+    private final Dispatcher dispatcher;
+    private final Map<Boolean, OkHttpClient> baseClients = new ConcurrentHashMap<>();
+    private final Map<Key, ClientEntry> clients = new ConcurrentHashMap<>();
+    private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+    private volatile long idleTimeoutMillis = TimeUnit.MINUTES.toMillis(5);
+    private volatile long lastSweepTime = System.currentTimeMillis();
+
+    public HttpClientRegistry() {
+        this(new ConnectionPool(), new Dispatcher());
+    }
+
+    /**
+     * @param connectionPool 共享的连接池
+     * @param dispatcher     共享的调度器
+     */
+    public HttpClientRegistry(ConnectionPool connectionPool, Dispatcher dispatcher) {
+        this.connectionPool = connectionPool;
+        this.dispatcher = dispatcher;
+    }
+
+    /**
+     * 设置闲置条目的过期时间，超过此时间未被使用的Retrofit条目及OkHttpClient将被移除
+     */
+    public void setIdleTimeout(long duration, TimeUnit unit) {
+        idleTimeoutMillis = unit.toMillis(duration);
+    }
+
+    public ConnectionPool getConnectionPool() {
+        return connectionPool;
+    }
+
+    public Dispatcher getDispatcher() {
+        return dispatcher;
+    }
+
+    /**
+     * 获取共享连接池的OkHttpClient
+     *
+     * @param timeout    连接和读取超时，单位：秒，小于等于0时使用OkHttp默认值
+     * @param bypassAuth 是否绕过认证
+     */
+    public OkHttpClient getClient(int timeout, boolean bypassAuth) {
+        return getClient(timeout, bypassAuth, null, null);
+    }
+
+    /**
+     * 获取共享连接池的OkHttpClient。重试策略及熔断器按实例区分，应复用同一实例，
+     * 每次新建的实例会各自创建一个客户端，直到闲置超时后才被移除
+     *
+     * @param timeout         连接和读取超时，单位：秒，小于等于0时使用OkHttp默认值
+     * @param bypassAuth      是否绕过认证
+     * @param retryPolicy     重试策略，为null时不重试
+     * @param circuitBreakers 熔断器，为null时不熔断
+     */
+    public OkHttpClient getClient(int timeout, boolean bypassAuth, RetryPolicy retryPolicy, CircuitBreakerRegistry circuitBreakers) {
+        sweepIfNeeded();
+        return getClient(new Key(null, Math.max(timeout, 0), bypassAuth, retryPolicy, circuitBreakers));
+    }
+
+    private OkHttpClient getClient(Key key) {
+        ClientEntry entry = clients.get(key);
+        if (entry == null) {
+            entry = clients.computeIfAbsent(key, k -> {
+                OkHttpClient.Builder builder = getBaseClient(k.bypassAuth).newBuilder();
+                if (k.timeout > 0) {
+                    builder.readTimeout(k.timeout, TimeUnit.SECONDS)
+                            .connectTimeout(k.timeout, TimeUnit.SECONDS);
+                }
+                if (k.retryPolicy != null || k.circuitBreakers != null) {
+                    builder.addInterceptor(new RetryInterceptor(k.retryPolicy, k.circuitBreakers));
+                }
+                return new ClientEntry(builder.build());
+            });
+        }
+        entry.lastAccessTime = System.currentTimeMillis();
+        return entry.client;
+    }
+
+    private OkHttpClient getBaseClient(boolean bypassAuth) {
+        //SSL配置只初始化一次，TLS会话缓存得以复用
+        return baseClients.computeIfAbsent(bypassAuth, b -> HttpUtils.initHttpsClient(b, new OkHttpClient.Builder())
+                .connectionPool(connectionPool)
+                .dispatcher(dispatcher)
+                .eventListenerFactory(MetricsEventListener.FACTORY)
+                .build());
+    }
+
+    /**
+     * 获取缓存的Retrofit
+     *
+     * @param baseUrl    根地址
+     * @param timeout    连接和读取超时，单位：秒，小于等于0时使用OkHttp默认值
+     * @param bypassAuth 是否绕过认证
+     */
+    public Retrofit getRetrofit(String baseUrl, int timeout, boolean bypassAuth) {
+        return getEntry(baseUrl, timeout, bypassAuth).retrofit;
+    }
+
+    /**
+     * 获取缓存的接口实例
+     *
+     * @param baseUrl    根地址
+     * @param timeout    连接和读取超时，单位：秒，小于等于0时使用OkHttp默认值
+     * @param bypassAuth 是否绕过认证
+     * @param service    接口类
+     */
+    @SuppressWarnings("unchecked")
+    public <S> S getService(String baseUrl, int timeout, boolean bypassAuth, Class<S> service) {
+        return getService(baseUrl, timeout, bypassAuth, null, null, service);
+    }
+
+    /**
+     * 获取缓存的接口实例
+     *
+     * @param baseUrl         根地址
+     * @param timeout         连接和读取超时，单位：秒，小于等于0时使用OkHttp默认值
+     * @param bypassAuth      是否绕过认证
+     * @param retryPolicy     重试策略，为null时不重试
+     * @param circuitBreakers 熔断器，为null时不熔断
+     * @param service         接口类
+     */
+    @SuppressWarnings("unchecked")
+    public <S> S getService(String baseUrl, int timeout, boolean bypassAuth, RetryPolicy retryPolicy,
+                            CircuitBreakerRegistry circuitBreakers, Class<S> service) {
+        Entry entry = getEntry(new Key(baseUrl, Math.max(timeout, 0), bypassAuth, retryPolicy, circuitBreakers));
+        return (S) entry.services.computeIfAbsent(service, entry.retrofit::create);
+    }
+
+    private Entry getEntry(String baseUrl, int timeout, boolean bypassAuth) {
+        return getEntry(new Key(baseUrl, Math.max(timeout, 0), bypassAuth, null, null));
+    }
+
+    private Entry getEntry(Key key) {
+        sweepIfNeeded();
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            hitCount.incrementAndGet();
+        } else {
+            entry = entries.computeIfAbsent(key, k -> {
+                missCount.incrementAndGet();
+                Key clientKey = new Key(null, k.timeout, k.bypassAuth, k.retryPolicy, k.circuitBreakers);
+                return new Entry(clientKey, new Retrofit.Builder()
+                        .baseUrl(k.baseUrl)
+                        .addCallAdapterFactory(RxJava2CallAdapterFactory.create())
+                        .client(getClient(clientKey))
+                        .build());
+            });
+        }
+        entry.lastAccessTime = System.currentTimeMillis();
+        return entry;
+    }
+
+    private void sweepIfNeeded() {
+        long now = System.currentTimeMillis();
+        //最多每分钟检查一次，避免每次请求都遍历
+        if (now - lastSweepTime >= Math.min(idleTimeoutMillis, 60000)) {
+            lastSweepTime = now;
+            evictIdle();
+        }
+    }
+
+    /**
+     * 移除超过闲置时间未使用的条目，以及闲置且不再被条目使用的OkHttpClient
+     *
+     * @return 移除的个数
+     */
+    public int evictIdle() {
+        long deadline = System.currentTimeMillis() - idleTimeoutMillis;
+        int count = 0;
+        Set<Key> usedClients = new HashSet<>();
+        Iterator<Entry> it = entries.values().iterator();
+        while (it.hasNext()) {
+            Entry entry = it.next();
+            if (entry.lastAccessTime < deadline) {
+                it.remove();
+                count++;
+            } else {
+                usedClients.add(entry.clientKey);
+            }
+        }
+        Iterator<Map.Entry<Key, ClientEntry>> clientIt = clients.entrySet().iterator();
+        while (clientIt.hasNext()) {
+            Map.Entry<Key, ClientEntry> e = clientIt.next();
+            if (e.getValue().lastAccessTime < deadline && !usedClients.contains(e.getKey())) {
+                clientIt.remove();
+                count++;
+            }
+        }
+        evictionCount.addAndGet(count);
+        return count;
+    }
+
+    /**
+     * 清空所有缓存条目，并关闭连接池中的闲置连接
+     */
+    public void clear() {
+        evictionCount.addAndGet(entries.size() + clients.size());
+        entries.clear();
+        clients.clear();
+        baseClients.clear();
+        connectionPool.evictAll();
+    }
+
+    /**
+     * 获取统计信息
+     */
+    public Stats getStats() {
+        return new Stats(hitCount.get(), missCount.get(), evictionCount.get(), entries.size(), clients.size(),
+                connectionPool.connectionCount(), connectionPool.idleConnectionCount());
+    }
+
+    /**
+     * 统计信息快照
+     */
+    public static class Stats {
+        /**
+         * 命中次数
+         */
+        public final long hitCount;
+        /**
+         * 未命中次数
+         */
+        public final long missCount;
+        /**
+         * 被移除的条目及OkHttpClient数
+         */
+        public final long evictionCount;
+        /**
+         * 当前缓存的条目数
+         */
+        public final int size;
+        /**
+         * 当前缓存的OkHttpClient数
+         */
+        public final int clientCount;
+        /**
+         * 连接池中的连接数
+         */
+        public final int connectionCount;
+        /**
+         * 连接池中的闲置连接数
+         */
+        public final int idleConnectionCount;
+
+        Stats(long hitCount, long missCount, long evictionCount, int size, int clientCount, int connectionCount,
+              int idleConnectionCount) {
+            this.hitCount = hitCount;
+            this.missCount = missCount;
+            this.evictionCount = evictionCount;
+            this.size = size;
+            this.clientCount = clientCount;
+            this.connectionCount = connectionCount;
+            this.idleConnectionCount = idleConnectionCount;
+        }
+
+        /**
+         * 命中率
+         */
+        public double hitRate() {
+            long total = hitCount + missCount;
+            return total == 0 ? 1 : (double) hitCount / total;
+        }
+
+        @Override
+        public String toString() {
+            return "Stats{" +
+                    "hitCount=" + hitCount +
+                    ", missCount=" + missCount +
+                    ", evictionCount=" + evictionCount +
+                    ", size=" + size +
+                    ", clientCount=" + clientCount +
+                    ", connectionCount=" + connectionCount +
+                    ", idleConnectionCount=" + idleConnectionCount +
+                    '}';
+        }
+    }
+
+    private static class Entry {
+        final Key clientKey;
+        final Retrofit retrofit;
+        final Map<Class<?>, Object> services = new ConcurrentHashMap<>();
+        volatile long lastAccessTime;
+
+        Entry(Key clientKey, Retrofit retrofit) {
+            this.clientKey = clientKey;
+            this.retrofit = retrofit;
+        }
+    }
+
+    private static class ClientEntry {
+        final OkHttpClient client;
+        volatile long lastAccessTime;
+
+        ClientEntry(OkHttpClient client) {
+            this.client = client;
+        }
+    }
+
+    private static class Key {
+        final String baseUrl;
+        final int timeout;
+        final boolean bypassAuth;
+        final RetryPolicy retryPolicy;
+        final CircuitBreakerRegistry circuitBreakers;
+
+        Key(String baseUrl, int timeout, boolean bypassAuth, RetryPolicy retryPolicy, CircuitBreakerRegistry circuitBreakers) {
+            this.baseUrl = baseUrl;
+            this.timeout = timeout;
+            this.bypassAuth = bypassAuth;
+            this.retryPolicy = retryPolicy;
+            this.circuitBreakers = circuitBreakers;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return timeout == key.timeout && bypassAuth == key.bypassAuth && Objects.equals(baseUrl, key.baseUrl) &&
+                    retryPolicy == key.retryPolicy && circuitBreakers == key.circuitBreakers;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(baseUrl, timeout, bypassAuth, System.identityHashCode(retryPolicy),
+                    System.identityHashCode(circuitBreakers));
+        }
+    }
+}
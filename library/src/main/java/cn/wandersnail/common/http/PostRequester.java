@@ -8,6 +8,7 @@ import io.reactivex.disposables.Disposable;
 import okhttp3.MediaType;
 import okhttp3.RequestBody;
 import okhttp3.ResponseBody;
+import retrofit2.Call;
 import retrofit2.Converter;
 
 /**
@@ -79,6 +80,11 @@ public class PostRequester<T> extends Requester<T> {
     @Override
     public ConvertedResponse<T> execute() {
         handleConfiguration(url, configuration);
+        return execute(createCall());
+    }
+
+    @Override
+    Call<ResponseBody> createCall() {
         if (isJsonBody) {
             if (configuration.headers == null) {
                 configuration.headers = new HashMap<>();
@@ -91,26 +97,26 @@ public class PostRequester<T> extends Requester<T> {
         if (configuration.headers != null && !configuration.headers.isEmpty()) {
             if (params != null) {
                 if (body != null) {
-                    return execute(configuration.service.postSync(url, configuration.headers, params, body));
+                    return configuration.service.postSync(url, configuration.headers, params, body);
                 } else {
-                    return execute(configuration.service.postFormSync(url, configuration.headers, params));
+                    return configuration.service.postFormSync(url, configuration.headers, params);
                 }
             } else if (body != null) {
-                return execute(configuration.service.postSync(url, configuration.headers, body));
+                return configuration.service.postSync(url, configuration.headers, body);
             } else {
-                return execute(configuration.service.postSync(url, configuration.headers));
+                return configuration.service.postSync(url, configuration.headers);
             }
         } else {
             if (params != null) {
                 if (body != null) {
-                    return execute(configuration.service.postParamsAndBodySync(url, params, body));
+                    return configuration.service.postParamsAndBodySync(url, params, body);
                 } else {
-                    return execute(configuration.service.postFormSync(url, params));
+                    return configuration.service.postFormSync(url, params);
                 }
             } else if (body != null) {
-                return execute(configuration.service.postSync(url, body));
+                return configuration.service.postSync(url, body);
             } else {
-                return execute(configuration.service.postSync(url));
+                return configuration.service.postSync(url);
             }
         }
     }
@@ -0,0 +1,198 @@
+package cn.wandersnail.common.http;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import cn.wandersnail.common.http.util.ThreadUtils;
+
+/**
+ * 进度汇聚器。I/O线程只记录最新的进度，由一个定时器按固定频率把有变化的进度发出去，
+ * 避免每次读写都分配任务、切换线程
+ * <p>
+ * date: 2026/10/18 16:02
+ * author: zengfansheng
+ */
+public class ProgressAggregator {
+    private final Set<Tracker> trackers = ConcurrentHashMap.newKeySet();
+    private ScheduledExecutorService timer;
+    private ScheduledFuture<?> future;
+    private long intervalMillis;
+    private ThreadFactory threadFactory = ThreadUtils.newThreadFactory("EasyHttp-progress", false);
+
+    /**
+     * @param interval 进度发出的间隔
+     */
+    public ProgressAggregator(long interval, TimeUnit unit) {
+        intervalMillis = Math.max(1, unit.toMillis(interval));
+    }
+
+    /**
+     * 设置进度发出的间隔
+     */
+    public synchronized void setInterval(long interval, TimeUnit unit) {
+        intervalMillis = Math.max(1, unit.toMillis(interval));
+        if (future != null) {
+            future.cancel(false);
+            future = timer.scheduleAtFixedRate(this::tick, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * 设置定时器的线程工厂，定时器已在运行时换到新线程
+     */
+    public synchronized void setThreadFactory(ThreadFactory threadFactory) {
+        this.threadFactory = threadFactory;
+        if (timer != null) {
+            timer.shutdown();
+            timer = null;
+            if (future != null) {
+                future.cancel(false);
+                timer = Executors.newSingleThreadScheduledExecutor(threadFactory);
+                future = timer.scheduleAtFixedRate(this::tick, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    public synchronized long getInterval(TimeUnit unit) {
+        return unit.convert(intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 创建进度跟踪器，第一次更新进度时才开始计时
+     *
+     * @param callback 在定时器线程回调
+     */
+    public Tracker newTracker(Callback callback) {
+        return new Tracker(this, callback);
+    }
+
+    private synchronized void register(Tracker tracker) {
+        trackers.add(tracker);
+        if (future == null) {
+            if (timer == null) {
+                timer = Executors.newSingleThreadScheduledExecutor(threadFactory);
+            }
+            future = timer.scheduleAtFixedRate(this::tick, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private synchronized void unregister(Tracker tracker) {
+        trackers.remove(tracker);
+        //没有跟踪器时停止计时
+        if (trackers.isEmpty() && future != null) {
+            future.cancel(false);
+            future = null;
+        }
+    }
+
+    private void tick() {
+        for (Tracker tracker : trackers) {
+            try {
+                tracker.emitIfChanged();
+            } catch (Exception e) {
+                //回调异常不能影响其他跟踪器及后续计时
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * 当前跟踪中的个数
+     */
+    public int getTrackerCount() {
+        return trackers.size();
+    }
+
+    public interface Callback {
+        /**
+         * @param progress 已完成的大小
+         * @param max      总大小
+         */
+        void onProgress(long progress, long max);
+    }
+
+    /**
+     * 进度跟踪器，{@link #update(long, long)}可在任意线程频繁调用
+     */
+    public static class Tracker {
+        private final ProgressAggregator aggregator;
+        private final Callback callback;
+        //版本号为奇数时正在写入，读取前后版本号相同才是匹配的一对进度与总大小，更新时不分配对象
+        private final AtomicLong version = new AtomicLong();
+        private final AtomicLong emittedVersion = new AtomicLong();
+        private volatile long progress;
+        private volatile long max;
+        private final AtomicBoolean registered = new AtomicBoolean();
+        private volatile boolean closed;
+
+        Tracker(ProgressAggregator aggregator, Callback callback) {
+            this.aggregator = aggregator;
+            this.callback = callback;
+        }
+
+        /**
+         * 更新进度，只记录，不回调
+         */
+        public void update(long progress, long max) {
+            if (closed) {
+                return;
+            }
+            long v;
+            do {
+                v = version.get();
+            } while ((v & 1) != 0 || !version.compareAndSet(v, v + 1));
+            this.progress = progress;
+            this.max = max;
+            version.set(v + 2);
+            if (!registered.get() && registered.compareAndSet(false, true)) {
+                aggregator.register(this);
+            }
+        }
+
+        /**
+         * 如有未发出的进度，立即在当前线程发出
+         */
+        public void flush() {
+            emitIfChanged();
+        }
+
+        void emitIfChanged() {
+            while (true) {
+                long v = version.get();
+                long emitted = emittedVersion.get();
+                if (v == emitted) {
+                    return;
+                }
+                if ((v & 1) == 0) {
+                    long p = progress;
+                    long m = max;
+                    if (version.get() == v) {
+                        //并发调用时只有一个发出
+                        if (emittedVersion.compareAndSet(emitted, v)) {
+                            callback.onProgress(p, m);
+                        }
+                        return;
+                    }
+                }
+                Thread.yield();
+            }
+        }
+
+        /**
+         * 停止跟踪，未发出的进度会被丢弃
+         */
+        public void close() {
+            closed = true;
+            if (registered.get()) {
+                aggregator.unregister(this);
+            }
+        }
+    }
+}
@@ -0,0 +1,284 @@
+package cn.wandersnail.common.http;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeoutException;
+
+import cn.wandersnail.common.http.callback.RequestCallback;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.functions.Function;
+import okhttp3.MediaType;
+import okhttp3.ResponseBody;
+import retrofit2.Converter;
+import retrofit2.Response;
+
+/**
+ * 合并相同的并发请求。地址、请求头、转换器都相同的请求同时进行时只发一次，
+ * 结果及转换结果分发给所有调用方。某个调用方取消只是不再接收结果，所有调用方都取消后才取消请求
+ * <p>
+ * date: 2026/10/18 21:30
+ * author: zengfansheng
+ */
+class RequestCoalescer {
+    private final Map<Key, Flight<?>> flights = new HashMap<>();
+
+    /**
+     * 异步请求，已有相同请求在进行时加入它
+     *
+     * @param starter 发起实际请求，参数为接收结果的回调
+     */
+    @SuppressWarnings("unchecked")
+    <T> Disposable enqueue(String requestKey, Converter<ResponseBody, T> converter,
+                           Function<RequestCallback<T>, Disposable> starter, RequestCallback<T> callback) {
+        Key key = new Key(requestKey, converter);
+        Flight<T> flight;
+        boolean leader = false;
+        synchronized (this) {
+            flight = (Flight<T>) flights.get(key);
+            if (flight == null) {
+                flight = new Flight<>(key);
+                flights.put(key, flight);
+                leader = true;
+            }
+            flight.callbacks.add(callback);
+        }
+        if (leader) {
+            try {
+                flight.setDisposable(starter.apply(flight));
+            } catch (Exception e) {
+                flight.onError(e);
+            }
+        }
+        return new Participant<>(flight, callback);
+    }
+
+    /**
+     * 同步请求，已有相同请求在进行时等待它的结果。线程被中断或返回的{@link ConvertedResponse}被取消时
+     * 只退出自己的等待，其他调用方不受影响
+     */
+    <T> ConvertedResponse<T> execute(String requestKey, Converter<ResponseBody, T> converter,
+                                     Function<RequestCallback<T>, Disposable> starter) {
+        Waiter<T> waiter = new Waiter<>();
+        waiter.setParticipant(enqueue(requestKey, converter, starter, waiter));
+        try {
+            waiter.latch.await();
+        } catch (InterruptedException e) {
+            waiter.dispose();
+            Thread.currentThread().interrupt();
+        }
+        return waiter.convertedResp;
+    }
+
+    /**
+     * 进行中的请求数
+     */
+    synchronized int getInFlightCount() {
+        return flights.size();
+    }
+
+    private synchronized void remove(Flight<?> flight) {
+        if (flights.get(flight.key) == flight) {
+            flights.remove(flight.key);
+        }
+    }
+
+    private class Flight<T> implements RequestCallback<T> {
+        final Key key;
+        final List<RequestCallback<T>> callbacks = new ArrayList<>();
+        private Disposable disposable;
+        private boolean done;
+
+        Flight(Key key) {
+            this.key = key;
+        }
+
+        void setDisposable(Disposable disposable) {
+            boolean dispose;
+            synchronized (RequestCoalescer.this) {
+                this.disposable = disposable;
+                //发起前调用方已全部取消
+                dispose = !done && callbacks.isEmpty();
+            }
+            if (dispose && disposable != null) {
+                disposable.dispose();
+            }
+        }
+
+        void removeCallback(RequestCallback<T> callback) {
+            Disposable d = null;
+            synchronized (RequestCoalescer.this) {
+                if (callbacks.remove(callback) && callbacks.isEmpty() && !done) {
+                    done = true;
+                    d = disposable;
+                    remove(this);
+                }
+            }
+            if (d != null) {
+                d.dispose();
+            }
+        }
+
+        //结束后新的请求重新发起，不再加入
+        private List<RequestCallback<T>> finish() {
+            synchronized (RequestCoalescer.this) {
+                if (done) {
+                    return null;
+                }
+                done = true;
+                remove(this);
+                return new ArrayList<>(callbacks);
+            }
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            List<RequestCallback<T>> list = finish();
+            if (list != null) {
+                for (RequestCallback<T> callback : list) {
+                    callback.onError(t);
+                }
+            }
+        }
+
+        @SuppressWarnings("deprecation")
+        @Override
+        public void onResponse(Response<ResponseBody> response, T successBody, ResponseBody errorBody) {
+            List<RequestCallback<T>> list = finish();
+            if (list == null) {
+                return;
+            }
+            //错误响应体只能读一次，读出后每个调用方各给一份
+            MediaType errorType = null;
+            byte[] errorBytes = null;
+            if (errorBody != null) {
+                errorType = errorBody.contentType();
+                try {
+                    errorBytes = errorBody.bytes();
+                } catch (IOException ignore) {
+                }
+            }
+            for (RequestCallback<T> callback : list) {
+                ResponseBody body = errorBytes == null ? null : ResponseBody.create(errorType, errorBytes);
+                if (response.isSuccessful()) {
+                    callback.onSuccess(response, successBody);
+                }
+                callback.onResponse(response, successBody, body);
+            }
+        }
+    }
+
+    private static class Participant<T> implements Disposable {
+        private final Flight<T> flight;
+        private final RequestCallback<T> callback;
+        private volatile boolean disposed;
+
+        Participant(Flight<T> flight, RequestCallback<T> callback) {
+            this.flight = flight;
+            this.callback = callback;
+        }
+
+        @Override
+        public void dispose() {
+            if (!disposed) {
+                disposed = true;
+                flight.removeCallback(callback);
+            }
+        }
+
+        @Override
+        public boolean isDisposed() {
+            return disposed;
+        }
+    }
+
+    /**
+     * 合并请求中一个调用方的句柄，取消时只让此调用方退出，可在加入前创建
+     */
+    static class Handle implements Disposable {
+        private volatile Disposable participant;
+        private volatile boolean disposed;
+
+        void setParticipant(Disposable participant) {
+            this.participant = participant;
+            if (disposed) {
+                participant.dispose();
+            }
+        }
+
+        @Override
+        public void dispose() {
+            if (!disposed) {
+                disposed = true;
+                Disposable d = participant;
+                if (d != null) {
+                    d.dispose();
+                }
+                onDispose();
+            }
+        }
+
+        void onDispose() {
+        }
+
+        @Override
+        public boolean isDisposed() {
+            return disposed;
+        }
+    }
+
+    private static class Waiter<T> extends Handle implements RequestCallback<T> {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final ConvertedResponse<T> convertedResp = new ConvertedResponse<>(this);
+
+        @Override
+        public void onError(Throwable t) {
+            if (t instanceof TimeoutException) {
+                convertedResp.isCallTimeout = true;
+            } else if (!(t instanceof IOException)) {
+                //网络异常与非合并的同步请求一致，不记录
+                convertedResp.convertError = t;
+            }
+            latch.countDown();
+        }
+
+        @Override
+        public void onResponse(Response<ResponseBody> response, T successBody, ResponseBody errorBody) {
+            convertedResp.response = response;
+            convertedResp.convertedResponse = successBody;
+            latch.countDown();
+        }
+
+        @Override
+        void onDispose() {
+            latch.countDown();
+        }
+    }
+
+    private static class Key {
+        final String requestKey;
+        final Converter<?, ?> converter;
+
+        Key(String requestKey, Converter<?, ?> converter) {
+            this.requestKey = requestKey;
+            this.converter = converter;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            //转换器按实例区分，转换结果才能共用
+            return converter == key.converter && requestKey.equals(key.requestKey);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * requestKey.hashCode() + System.identityHashCode(converter);
+        }
+    }
+}
@@ -1,18 +1,16 @@
 package cn.wandersnail.common.http;
 
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 import cn.wandersnail.common.http.callback.RequestCallback;
 import cn.wandersnail.common.http.util.HttpUtils;
 import io.reactivex.Observable;
 import io.reactivex.disposables.Disposable;
-import okhttp3.OkHttpClient;
 import okhttp3.ResponseBody;
 import retrofit2.Call;
 import retrofit2.Converter;
 import retrofit2.Response;
-import retrofit2.Retrofit;
-import retrofit2.adapter.rxjava2.RxJava2CallAdapterFactory;
 
 /**
  * date: 2021/4/8 15:42
@@ -27,30 +25,66 @@ abstract class Requester<T> {
     
     public abstract Disposable enqueue(RequestCallback<T> callback);
 
+    /**
+     * 创建请求，不执行
+     */
+    abstract Call<ResponseBody> createCall();
+
+    /**
+     * 异步请求，直接使用OkHttp的异步调用，不阻塞线程，也不经过RxJava切换线程。
+     * 转换及future的完成在OkHttp的调度线程中执行
+     *
+     * @see #executeAsync(Executor)
+     */
+    public CompletableFuture<ConvertedResponse<T>> executeAsync() {
+        return executeAsync(null);
+    }
+
+    /**
+     * 异步请求，直接使用OkHttp的异步调用，不阻塞线程，也不经过RxJava切换线程。
+     * 超时时正常完成并标记{@link ConvertedResponse#isCallTimeout}，网络异常时异常完成，取消future会取消请求。
+     * <p>
+     * 请求经过共享的{@link okhttp3.Dispatcher}排队，默认每个主机最多5个、总共最多64个同时进行，
+     * 大量并发时超出的请求会排队等待，可通过{@link EasyHttp#getClientRegistry()}的
+     * {@link HttpClientRegistry#getDispatcher()}调整上限
+     *
+     * @param executor 执行转换及完成future的线程池，为null时在OkHttp的调度线程中执行
+     */
+    public CompletableFuture<ConvertedResponse<T>> executeAsync(Executor executor) {
+        handleConfiguration(url, configuration);
+        return executeAsync(createCall(), null, executor);
+    }
+
     protected void handleConfiguration(String url, Configuration configuration) {
         String baseUrl = HttpUtils.getBaseUrl(url);
         Configuration config = configuration == null ? new Configuration() : configuration;
         if (config.retrofit == null) {
             int timeout = config.callTimeout > 0 ? config.callTimeout : 5;
-            OkHttpClient client = HttpUtils.initHttpsClient(config.bypassAuth, new OkHttpClient.Builder())
-                    .readTimeout(timeout, TimeUnit.SECONDS)
-                    .connectTimeout(timeout, TimeUnit.SECONDS)
-                    .build();
-            config.retrofit = new Retrofit.Builder()
-                    .baseUrl(baseUrl)
-                    .addCallAdapterFactory(RxJava2CallAdapterFactory.create())
-                    .client(client)
-                    .build();
+            config.service = EasyHttp.getClientRegistry().getService(baseUrl, timeout, config.bypassAuth,
+                    config.retryPolicy, config.circuitBreakers, HttpService.class);
+        } else {
+            config.service = config.retrofit.create(HttpService.class);
         }
-        config.service = config.retrofit.create(HttpService.class);
         this.configuration = config;
     }
     
     protected ConvertedResponse<T> execute(Call<ResponseBody> call) {
-        return new SyncGeneralRequestTask<>(call, converter, configuration).convertedResp;
+        return execute(call, null);
+    }
+
+    ConvertedResponse<T> execute(Call<ResponseBody> call, CacheLookup cacheLookup) {
+        return new SyncGeneralRequestTask<>(call, converter, configuration, cacheLookup).convertedResp;
     }
 
     protected Disposable enqueue(Observable<Response<ResponseBody>> observable, RequestCallback<T> callback) {
-        return new GeneralRequestTask<>(observable, converter, configuration, callback).disposable;
+        return enqueue(observable, callback, null);
+    }
+
+    CompletableFuture<ConvertedResponse<T>> executeAsync(Call<ResponseBody> call, CacheLookup cacheLookup, Executor executor) {
+        return new AsyncRequestTask<>(call, converter, configuration, cacheLookup, executor).future;
+    }
+
+    Disposable enqueue(Observable<Response<ResponseBody>> observable, RequestCallback<T> callback, CacheLookup cacheLookup) {
+        return new GeneralRequestTask<>(observable, converter, configuration, callback, cacheLookup).disposable;
     }
 }
@@ -0,0 +1,286 @@
+package cn.wandersnail.common.http;
+
+import java.io.File;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okio.ByteString;
+
+/**
+ * GET请求的响应缓存。内存中按响应体大小做LRU淘汰，可选磁盘层。
+ * 未过期时直接返回缓存，不发请求；过期后带If-None-Match、If-Modified-Since做条件请求，304时沿用缓存。
+ * 同一个转换器转换过的结果也会缓存，命中时无需再次转换，因此转换器应复用，
+ * 如使用{@link cn.wandersnail.common.http.converter.JsonConverterRegistry}获取。
+ * 缓存的转换结果会返回给多个调用方，不应修改
+ * <p>
+ * date: 2026/10/18 20:55
+ * author: zengfansheng
+ */
+public class ResponseCache {
+    private final long maxSize;
+    private final LinkedHashMap<String, CacheEntry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long size;
+    private volatile long maxEntrySize;
+    private volatile long defaultMaxAgeMillis;
+    private volatile DiskResponseStore diskStore;
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong revalidationCount = new AtomicLong();
+    private final AtomicLong conversionHitCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    /**
+     * @param maxSize 内存中缓存的响应体总大小上限，单位：字节
+     */
+    public ResponseCache(long maxSize) {
+        this.maxSize = maxSize;
+        maxEntrySize = Math.max(1, maxSize / 8);
+    }
+
+    /**
+     * 开启磁盘缓存
+     *
+     * @param dir     缓存目录
+     * @param maxSize 磁盘缓存总大小上限，单位：字节
+     */
+    public ResponseCache setDiskCache(File dir, long maxSize) {
+        diskStore = dir == null ? null : new DiskResponseStore(dir, maxSize);
+        return this;
+    }
+
+    /**
+     * 单个响应体的大小上限，超过的不缓存，默认为内存上限的1/8
+     */
+    public ResponseCache setMaxEntrySize(long maxEntrySize) {
+        this.maxEntrySize = maxEntrySize;
+        return this;
+    }
+
+    /**
+     * 响应未声明Cache-Control或Expires时的有效期，默认0，即每次都做条件请求
+     */
+    public ResponseCache setDefaultMaxAge(long duration, TimeUnit unit) {
+        defaultMaxAgeMillis = unit.toMillis(duration);
+        return this;
+    }
+
+    long getMaxEntrySize() {
+        return maxEntrySize;
+    }
+
+    long getDefaultMaxAgeMillis() {
+        return defaultMaxAgeMillis;
+    }
+
+    /**
+     * 生成缓存键，请求头不同视为不同的资源。凭据类请求头只取值的SHA-256，键中不含明文凭据
+     */
+    static String key(String url, Map<String, String> headers) {
+        if (headers == null || headers.isEmpty()) {
+            return url;
+        }
+        StringBuilder sb = new StringBuilder(url);
+        for (Map.Entry<String, String> entry : new TreeMap<>(headers).entrySet()) {
+            String value = entry.getValue();
+            if (value != null && isCredentialHeader(entry.getKey())) {
+                value = "sha256:" + ByteString.encodeUtf8(value).sha256().hex();
+            }
+            sb.append('\n').append(entry.getKey()).append(": ").append(value);
+        }
+        return sb.toString();
+    }
+
+    private static boolean isCredentialHeader(String name) {
+        return "Authorization".equalsIgnoreCase(name) || "Proxy-Authorization".equalsIgnoreCase(name) ||
+                "Cookie".equalsIgnoreCase(name);
+    }
+
+    CacheEntry get(String key) {
+        synchronized (this) {
+            CacheEntry entry = entries.get(key);
+            if (entry != null) {
+                return entry;
+            }
+        }
+        DiskResponseStore store = diskStore;
+        if (store != null) {
+            CacheEntry entry = store.get(key);
+            if (entry != null) {
+                putInMemory(entry);
+            }
+            return entry;
+        }
+        return null;
+    }
+
+    void put(CacheEntry entry) {
+        putInMemory(entry);
+        DiskResponseStore store = diskStore;
+        if (store != null) {
+            store.put(entry);
+        }
+    }
+
+    /**
+     * 304后刷新了响应头
+     */
+    void onRevalidated(CacheEntry entry) {
+        revalidationCount.incrementAndGet();
+        DiskResponseStore store = diskStore;
+        if (store != null) {
+            store.update(entry);
+        }
+    }
+
+    void onHit() {
+        hitCount.incrementAndGet();
+    }
+
+    void onMiss() {
+        missCount.incrementAndGet();
+    }
+
+    void onConversionHit() {
+        conversionHitCount.incrementAndGet();
+    }
+
+    private synchronized void putInMemory(CacheEntry entry) {
+        if (entry.body.length > maxSize) {
+            return;
+        }
+        CacheEntry old = entries.put(entry.key, entry);
+        if (old != null) {
+            size -= old.body.length;
+        }
+        size += entry.body.length;
+        Iterator<CacheEntry> it = entries.values().iterator();
+        while (size > maxSize && it.hasNext()) {
+            CacheEntry eldest = it.next();
+            it.remove();
+            size -= eldest.body.length;
+            evictionCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * 移除缓存，包括磁盘中的
+     */
+    public void remove(String url, Map<String, String> headers) {
+        String key = key(url, headers);
+        synchronized (this) {
+            CacheEntry entry = entries.remove(key);
+            if (entry != null) {
+                size -= entry.body.length;
+            }
+        }
+        DiskResponseStore store = diskStore;
+        if (store != null) {
+            store.remove(key);
+        }
+    }
+
+    /**
+     * 清空缓存，包括磁盘中的
+     */
+    public void clear() {
+        synchronized (this) {
+            entries.clear();
+            size = 0;
+        }
+        DiskResponseStore store = diskStore;
+        if (store != null) {
+            store.clear();
+        }
+    }
+
+    /**
+     * 获取统计信息
+     */
+    public Stats getStats() {
+        int count;
+        long memorySize;
+        synchronized (this) {
+            count = entries.size();
+            memorySize = size;
+        }
+        DiskResponseStore store = diskStore;
+        return new Stats(hitCount.get(), missCount.get(), revalidationCount.get(), conversionHitCount.get(),
+                evictionCount.get(), count, memorySize, store == null ? 0 : store.size());
+    }
+
+    /**
+     * 统计信息快照
+     */
+    public static class Stats {
+        /**
+         * 未过期直接命中的次数
+         */
+        public final long hitCount;
+        /**
+         * 从服务器取得完整响应的次数
+         */
+        public final long missCount;
+        /**
+         * 条件请求返回304沿用缓存的次数
+         */
+        public final long revalidationCount;
+        /**
+         * 复用转换结果的次数
+         */
+        public final long conversionHitCount;
+        /**
+         * 从内存中淘汰的条目数
+         */
+        public final long evictionCount;
+        /**
+         * 内存中的条目数
+         */
+        public final int size;
+        /**
+         * 内存中响应体总大小
+         */
+        public final long memorySize;
+        /**
+         * 磁盘中响应体总大小
+         */
+        public final long diskSize;
+
+        Stats(long hitCount, long missCount, long revalidationCount, long conversionHitCount, long evictionCount,
+              int size, long memorySize, long diskSize) {
+            this.hitCount = hitCount;
+            this.missCount = missCount;
+            this.revalidationCount = revalidationCount;
+            this.conversionHitCount = conversionHitCount;
+            this.evictionCount = evictionCount;
+            this.size = size;
+            this.memorySize = memorySize;
+            this.diskSize = diskSize;
+        }
+
+        /**
+         * 命中率，304也算命中
+         */
+        public double hitRate() {
+            long total = hitCount + revalidationCount + missCount;
+            return total == 0 ? 0 : (double) (hitCount + revalidationCount) / total;
+        }
+
+        @Override
+        public String toString() {
+            return "Stats{" +
+                    "hitCount=" + hitCount +
+                    ", missCount=" + missCount +
+                    ", revalidationCount=" + revalidationCount +
+                    ", conversionHitCount=" + conversionHitCount +
+                    ", evictionCount=" + evictionCount +
+                    ", size=" + size +
+                    ", memorySize=" + memorySize +
+                    ", diskSize=" + diskSize +
+                    '}';
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package cn.wandersnail.common.http;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import cn.wandersnail.common.http.util.SchedulerUtils;
+import cn.wandersnail.common.http.util.ThreadUtils;
+import io.reactivex.ObservableTransformer;
+import io.reactivex.Scheduler;
+import io.reactivex.schedulers.Schedulers;
+
+/**
+ * 调度策略，决定请求在哪个线程执行、结果及事件在哪个线程回调。
+ * 可设置到{@link Configuration#schedulerStrategy}及上传、下载任务
+ * <p>
+ * date: 2026/10/18 22:40
+ * author: zengfansheng
+ */
+public class SchedulerStrategy {
+    private static final SchedulerStrategy IO = new SchedulerStrategy(null, null, false, null);
+    private final Scheduler subscribeScheduler;//为null时使用SchedulerUtils.io()
+    private final Scheduler observeScheduler;
+    private final boolean observeOnEmitter;//在产生结果的线程回调
+    private final ThreadPoolExecutor executor;
+
+    private SchedulerStrategy(Scheduler subscribeScheduler, Scheduler observeScheduler, boolean observeOnEmitter,
+                              ThreadPoolExecutor executor) {
+        this.subscribeScheduler = subscribeScheduler;
+        this.observeScheduler = observeScheduler;
+        this.observeOnEmitter = observeOnEmitter;
+        this.executor = executor;
+    }
+
+    /**
+     * 默认策略，执行及回调都在{@link SchedulerUtils#io()}，随{@link EasyHttp#setExecutionMode(ExecutionMode)}变化
+     */
+    public static SchedulerStrategy io() {
+        return IO;
+    }
+
+    /**
+     * 有界I/O线程池，执行及回调共用，超出的任务排队，不会无限增加线程
+     *
+     * @param maxThreads 最大线程数
+     */
+    public static SchedulerStrategy bounded(int maxThreads) {
+        return bounded("EasyHttp-bounded", maxThreads);
+    }
+
+    /**
+     * 有界I/O线程池，执行及回调共用，超出的任务排队，不会无限增加线程
+     *
+     * @param name       线程名前缀
+     * @param maxThreads 最大线程数
+     */
+    public static SchedulerStrategy bounded(String name, int maxThreads) {
+        ThreadPoolExecutor executor = ThreadUtils.newBoundedExecutor(name, maxThreads);
+        Scheduler scheduler = Schedulers.from(executor);
+        return new SchedulerStrategy(scheduler, scheduler, false, executor);
+    }
+
+    /**
+     * 在{@link SchedulerUtils#io()}执行，结果及事件直接在产生它的线程回调，不再切换线程
+     */
+    public static SchedulerStrategy callingThread() {
+        return new SchedulerStrategy(null, null, true, null);
+    }
+
+    /**
+     * 执行及回调都使用指定的调度器
+     */
+    public static SchedulerStrategy from(Scheduler scheduler) {
+        return new SchedulerStrategy(scheduler, scheduler, false, null);
+    }
+
+    /**
+     * @param subscribeOn 执行请求的调度器
+     * @param observeOn   回调的调度器，为null时在产生结果的线程回调
+     */
+    public static SchedulerStrategy from(Scheduler subscribeOn, Scheduler observeOn) {
+        return new SchedulerStrategy(subscribeOn, observeOn, observeOn == null, null);
+    }
+
+    /**
+     * 执行请求及阻塞任务的调度器
+     */
+    public Scheduler getSubscribeScheduler() {
+        return subscribeScheduler == null ? SchedulerUtils.io() : subscribeScheduler;
+    }
+
+    /**
+     * 回调的调度器，在产生结果的线程回调时为null
+     */
+    public Scheduler getObserveScheduler() {
+        if (observeOnEmitter) {
+            return null;
+        }
+        return observeScheduler == null ? SchedulerUtils.io() : observeScheduler;
+    }
+
+    public <T> ObservableTransformer<T, T> observableTransformer() {
+        return upstream -> {
+            Scheduler scheduler = getSubscribeScheduler();
+            Scheduler observe = getObserveScheduler();
+            upstream = upstream.subscribeOn(scheduler).unsubscribeOn(scheduler);
+            return observe == null ? upstream : upstream.observeOn(observe);
+        };
+    }
+
+    /**
+     * 在执行调度器中执行阻塞任务
+     */
+    public void execute(Runnable runnable) {
+        getSubscribeScheduler().scheduleDirect(runnable);
+    }
+
+    /**
+     * 回调事件，在产生结果的线程回调时直接执行
+     */
+    public void deliver(Runnable runnable) {
+        Scheduler scheduler = getObserveScheduler();
+        if (scheduler == null) {
+            runnable.run();
+        } else {
+            scheduler.scheduleDirect(runnable);
+        }
+    }
+
+    /**
+     * 关闭有界线程池，其他策略无效果
+     */
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * 获取线程池统计信息。有界线程池，或虚拟线程模式退回有界线程池时的默认策略可获取，其他返回null
+     */
+    public Stats getStats() {
+        ThreadPoolExecutor pool = executor;
+        if (pool == null && subscribeScheduler == null) {
+            ExecutorService blocking = EasyHttp.getBlockingExecutorService();
+            if (blocking instanceof ThreadPoolExecutor) {
+                pool = (ThreadPoolExecutor) blocking;
+            }
+        }
+        if (pool == null) {
+            return null;
+        }
+        return new Stats(pool.getQueue().size(), pool.getPoolSize(), pool.getActiveCount(), pool.getLargestPoolSize(),
+                pool.getMaximumPoolSize(), pool.getCompletedTaskCount());
+    }
+
+    /**
+     * 线程池统计信息快照
+     */
+    public static class Stats {
+        /**
+         * 排队等待的任务数
+         */
+        public final int queueDepth;
+        /**
+         * 当前线程数
+         */
+        public final int threadCount;
+        /**
+         * 正在执行任务的线程数
+         */
+        public final int activeCount;
+        /**
+         * 曾经同时存在的最大线程数
+         */
+        public final int largestThreadCount;
+        /**
+         * 允许的最大线程数
+         */
+        public final int maxThreadCount;
+        /**
+         * 已完成的任务数
+         */
+        public final long completedTaskCount;
+
+        Stats(int queueDepth, int threadCount, int activeCount, int largestThreadCount, int maxThreadCount,
+              long completedTaskCount) {
+            this.queueDepth = queueDepth;
+            this.threadCount = threadCount;
+            this.activeCount = activeCount;
+            this.largestThreadCount = largestThreadCount;
+            this.maxThreadCount = maxThreadCount;
+            this.completedTaskCount = completedTaskCount;
+        }
+
+        @Override
+        public String toString() {
+            return "Stats{" +
+                    "queueDepth=" + queueDepth +
+                    ", threadCount=" + threadCount +
+                    ", activeCount=" + activeCount +
+                    ", largestThreadCount=" + largestThreadCount +
+                    ", maxThreadCount=" + maxThreadCount +
+                    ", completedTaskCount=" + completedTaskCount +
+                    '}';
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package cn.wandersnail.common.http;
 
+import java.util.concurrent.ScheduledFuture;
+
 import okhttp3.ResponseBody;
 import retrofit2.Call;
 import retrofit2.Converter;
@@ -10,44 +12,64 @@ import retrofit2.Response;
  * author: zengfansheng
  */
 class SyncGeneralRequestTask<T> {
-    private boolean complete;
     final ConvertedResponse<T> convertedResp;
 
     SyncGeneralRequestTask(Call<ResponseBody> call, Converter<ResponseBody, T> converter, Configuration configuration) {
+        this(call, converter, configuration, null);
+    }
+
+    /**
+     * @param cacheLookup 缓存查询，未开启缓存时为null
+     */
+    SyncGeneralRequestTask(Call<ResponseBody> call, Converter<ResponseBody, T> converter, Configuration configuration,
+                           CacheLookup cacheLookup) {
         convertedResp = new ConvertedResponse<>(call);
+        if (cacheLookup != null && cacheLookup.isFresh()) {
+            //缓存未过期，不发请求
+            Response<ResponseBody> response = cacheLookup.getCachedResponse(call.request());
+            convertedResp.response = response;
+            convert(response, converter, cacheLookup);
+            return;
+        }
+        ScheduledFuture<?> timeoutFuture = null;
         if (configuration.callTimeout > 0) {
-            EasyHttp.executorService.execute(() -> {
-                int secondCount = 0;
-                while (secondCount++ < configuration.callTimeout) {
-                    try {
-                        Thread.sleep(1000);
-                    } catch (InterruptedException ignore) {
-                    }
-                    if (complete) {
-                        return;
-                    }
-                }
-                //如果到了这里，说明超时了，取消请求
+            timeoutFuture = EasyHttp.callTimeoutService.schedule(configuration.callTimeout * 1000L, () -> {
+                //到期了还未结束，取消请求
                 convertedResp.isCallTimeout = true;
                 call.cancel();
             });
         }
         try {
             Response<ResponseBody> response = call.execute();
-            complete = true;
-            convertedResp.response = response;
-            if (response.isSuccessful()) {
-                try {
-                    ResponseBody body = response.body();
-                    if (body != null) {
-                        convertedResp.convertedResponse = converter == null ? (T) body : converter.convert(body);                   
-                    }
-                } catch (Throwable t) {
-                    convertedResp.convertError = t;
-                }
+            if (timeoutFuture != null) {
+                timeoutFuture.cancel(false);
             }
+            if (cacheLookup != null) {
+                response = cacheLookup.onResponse(response);
+            }
+            convertedResp.response = response;
+            convert(response, converter, cacheLookup);
         } catch (Exception e) {
             //取消任务会抛异常
+        } finally {
+            if (timeoutFuture != null) {
+                timeoutFuture.cancel(false);
+            }
+        }
+    }
+
+    private void convert(Response<ResponseBody> response, Converter<ResponseBody, T> converter, CacheLookup cacheLookup) {
+        if (response.isSuccessful()) {
+            try {
+                ResponseBody body = response.body();
+                if (cacheLookup != null) {
+                    convertedResp.convertedResponse = cacheLookup.convert(response, converter);
+                } else if (body != null) {
+                    convertedResp.convertedResponse = converter == null ? (T) body : ConvertTimer.convert(converter, body, response);
+                }
+            } catch (Throwable t) {
+                convertedResp.convertError = t;
+            }
         }
     }
 }
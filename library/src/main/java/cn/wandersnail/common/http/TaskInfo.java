@@ -2,6 +2,8 @@ package cn.wandersnail.common.http;
 
 import java.util.UUID;
 
+import cn.wandersnail.common.http.retry.CircuitBreakerRegistry;
+import cn.wandersnail.common.http.retry.RetryPolicy;
 import cn.wandersnail.common.http.util.HttpUtils;
 
 /**
@@ -23,6 +25,9 @@ public class TaskInfo {
      * 任务状态
      */
     public State state = State.IDLE;
+    private RetryPolicy retryPolicy;
+    private CircuitBreakerRegistry circuitBreakers;
+    private SchedulerStrategy schedulerStrategy;
 
     public TaskInfo(String url) {
         this(UUID.randomUUID().toString(), url);
@@ -41,6 +46,42 @@ public class TaskInfo {
         return HttpUtils.getBaseUrl(url);
     }
 
+    public RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    /**
+     * 重试策略，需在任务开始前设置
+     */
+    public void setRetryPolicy(RetryPolicy retryPolicy) {
+        this.retryPolicy = retryPolicy;
+    }
+
+    public CircuitBreakerRegistry getCircuitBreakers() {
+        return circuitBreakers;
+    }
+
+    /**
+     * 按主机熔断，需在任务开始前设置
+     */
+    public void setCircuitBreakers(CircuitBreakerRegistry circuitBreakers) {
+        this.circuitBreakers = circuitBreakers;
+    }
+
+    /**
+     * 调度策略，未设置时为{@link SchedulerStrategy#io()}
+     */
+    public SchedulerStrategy getSchedulerStrategy() {
+        return schedulerStrategy == null ? SchedulerStrategy.io() : schedulerStrategy;
+    }
+
+    /**
+     * 调度策略，需在任务开始前设置
+     */
+    public void setSchedulerStrategy(SchedulerStrategy schedulerStrategy) {
+        this.schedulerStrategy = schedulerStrategy;
+    }
+
     public void reset() {
     }
 
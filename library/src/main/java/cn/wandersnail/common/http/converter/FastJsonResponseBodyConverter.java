@@ -1,13 +1,9 @@
 package cn.wandersnail.common.http.converter;
 
-import com.alibaba.fastjson.JSON;
-
 import java.io.IOException;
 import java.lang.reflect.Type;
 
 import okhttp3.ResponseBody;
-import okio.BufferedSource;
-import okio.Okio;
 import retrofit2.Converter;
 
 /**
@@ -17,17 +13,23 @@ import retrofit2.Converter;
  * author: zengfansheng
  */
 public class FastJsonResponseBodyConverter implements Converter<ResponseBody, Object> {
-    private final Type type;
+    private final JsonBodyReader<Object> reader;
+    private final long streamingThreshold;
 
     public FastJsonResponseBodyConverter(Type type) {
-        this.type = type;
+        this(type, JsonBodyReader.DEFAULT_STREAMING_THRESHOLD);
+    }
+
+    /**
+     * @param streamingThreshold 响应体长度未知或大于此值时从字节流解析，单位：字节
+     */
+    public FastJsonResponseBodyConverter(Type type, long streamingThreshold) {
+        reader = JsonConverterRegistry.getReader(JsonParserType.FASTJSON, type);
+        this.streamingThreshold = streamingThreshold;
     }
 
     @Override
     public Object convert(ResponseBody value) throws IOException {
-        BufferedSource bufferedSource = Okio.buffer(value.source());
-        String tempStr = bufferedSource.readUtf8();
-        bufferedSource.close();
-        return JSON.parseObject(tempStr, type);
+        return reader.read(value, streamingThreshold);
     }
 }
@@ -3,10 +3,7 @@ package cn.wandersnail.common.http.converter;
 import java.io.IOException;
 import java.lang.reflect.Type;
 
-import cn.wandersnail.common.http.EasyHttp;
 import okhttp3.ResponseBody;
-import okio.BufferedSource;
-import okio.Okio;
 import retrofit2.Converter;
 
 /**
@@ -16,17 +13,23 @@ import retrofit2.Converter;
  * author: zengfansheng
  */
 public class GsonResponseBodyConverter implements Converter<ResponseBody, Object> {
-    private final Type type;
+    private final JsonBodyReader<Object> reader;
+    private final long streamingThreshold;
 
     public GsonResponseBodyConverter(Type type) {
-        this.type = type;
+        this(type, JsonBodyReader.DEFAULT_STREAMING_THRESHOLD);
+    }
+
+    /**
+     * @param streamingThreshold 响应体长度未知或大于此值时从字节流解析，单位：字节
+     */
+    public GsonResponseBodyConverter(Type type, long streamingThreshold) {
+        reader = JsonConverterRegistry.getReader(JsonParserType.GSON, type);
+        this.streamingThreshold = streamingThreshold;
     }
 
     @Override
     public Object convert(ResponseBody value) throws IOException {
-        BufferedSource bufferedSource = Okio.buffer(value.source());
-        String tempStr = bufferedSource.readUtf8();
-        bufferedSource.close();
-        return EasyHttp.getGson().fromJson(tempStr, type);
+        return reader.read(value, streamingThreshold);
     }
 }
@@ -0,0 +1,181 @@
+package cn.wandersnail.common.http.converter;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.lang.reflect.Type;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+import cn.wandersnail.common.http.EasyHttp;
+import okhttp3.MediaType;
+import okhttp3.ResponseBody;
+
+/**
+ * 从响应体解析json，每个实例对应一个类型，创建时解析好反序列化器，可复用。
+ * 小于阈值且长度已知的响应体一次读入解析，长度未知或超过阈值时直接从字节流解析（fastjson只对UTF-8编码流式解析）。空响应体返回null
+ * <p>
+ * date: 2026/10/18 17:05
+ * author: zengfansheng
+ */
+abstract class JsonBodyReader<T> {
+    /**
+     * 默认的流式解析阈值，单位：字节
+     */
+    static final long DEFAULT_STREAMING_THRESHOLD = 256 * 1024;
+    final Type type;
+
+    JsonBodyReader(Type type) {
+        this.type = type;
+    }
+
+    /**
+     * 解析并关闭响应体
+     *
+     * @param threshold 流式解析阈值，单位：字节
+     */
+    abstract T read(ResponseBody body, long threshold) throws IOException;
+
+    static <T> JsonBodyReader<T> create(JsonParserType parserType, Type type) {
+        switch (parserType) {
+            case FASTJSON2:
+                return new Fastjson2Reader<>(type);
+            case FASTJSON:
+                return new FastjsonReader<>(type);
+            default:
+                return new GsonReader<>(type);
+        }
+    }
+
+    static boolean isStreaming(ResponseBody body, long threshold) {
+        long length = body.contentLength();
+        return length < 0 || length > threshold;
+    }
+
+    //与JSON.parseObject("")一致，空响应体返回null。source有缓冲，预读的字节之后仍可读到
+    static boolean isEmpty(ResponseBody body) throws IOException {
+        return body.contentLength() == 0 || body.source().exhausted();
+    }
+
+    static Charset charset(ResponseBody body) {
+        MediaType contentType = body.contentType();
+        return contentType == null ? StandardCharsets.UTF_8 : contentType.charset(StandardCharsets.UTF_8);
+    }
+
+    private static class Fastjson2Reader<T> extends JsonBodyReader<T> {
+        private final com.alibaba.fastjson2.reader.ObjectReader<T> objectReader;
+
+        @SuppressWarnings("unchecked")
+        Fastjson2Reader(Type type) {
+            super(type);
+            objectReader = com.alibaba.fastjson2.JSONFactory.getDefaultObjectReaderProvider().getObjectReader(type);
+        }
+
+        @Override
+        T read(ResponseBody body, long threshold) throws IOException {
+            try (ResponseBody b = body) {
+                if (isEmpty(b)) {
+                    return null;
+                }
+                Charset charset = charset(b);
+                com.alibaba.fastjson2.JSONReader reader;
+                if (charset != StandardCharsets.UTF_8) {
+                    //字节流只支持UTF-8等少数编码，其他编码先解码为字符串
+                    reader = com.alibaba.fastjson2.JSONReader.of(b.string());
+                } else if (isStreaming(b, threshold)) {
+                    reader = com.alibaba.fastjson2.JSONReader.of(b.byteStream(), charset);
+                } else {
+                    reader = com.alibaba.fastjson2.JSONReader.of(b.bytes());
+                }
+                try {
+                    T object = objectReader.readObject(reader, type, null, 0);
+                    reader.handleResolveTasks(object);
+                    return object;
+                } finally {
+                    reader.close();
+                }
+            }
+        }
+    }
+
+    private static class FastjsonReader<T> extends JsonBodyReader<T> {
+        FastjsonReader(Type type) {
+            super(type);
+        }
+
+        @Override
+        T read(ResponseBody body, long threshold) throws IOException {
+            try (ResponseBody b = body) {
+                if (isEmpty(b)) {
+                    return null;
+                }
+                Charset charset = charset(b);
+                if (charset != StandardCharsets.UTF_8) {
+                    //字节流只支持UTF-8等少数编码，其他编码先解码为字符串
+                    return com.alibaba.fastjson.JSON.parseObject(b.string(), type);
+                } else if (isStreaming(b, threshold)) {
+                    return com.alibaba.fastjson.JSON.parseObject(b.byteStream(), charset, type);
+                } else {
+                    byte[] bytes = b.bytes();
+                    return com.alibaba.fastjson.JSON.parseObject(bytes, 0, bytes.length, charset, type);
+                }
+            }
+        }
+    }
+
+    private static class GsonReader<T> extends JsonBodyReader<T> {
+        private final TypeToken<T> typeToken;
+        private volatile Binding<T> binding;
+
+        @SuppressWarnings("unchecked")
+        GsonReader(Type type) {
+            super(type);
+            typeToken = (TypeToken<T>) TypeToken.get(type);
+        }
+
+        //Gson可被替换，实例变化时重新获取TypeAdapter
+        private Binding<T> binding() {
+            Gson gson = EasyHttp.getGson();
+            Binding<T> b = binding;
+            if (b == null || b.gson != gson) {
+                b = new Binding<>(gson, gson.getAdapter(typeToken));
+                binding = b;
+            }
+            return b;
+        }
+
+        @Override
+        T read(ResponseBody body, long threshold) throws IOException {
+            Binding<T> b = binding();
+            try (ResponseBody rb = body) {
+                //charStream会处理BOM及响应头中的编码
+                Reader in = isStreaming(rb, threshold) ? rb.charStream() : new StringReader(rb.string());
+                JsonReader reader = b.gson.newJsonReader(in);
+                //与Gson.fromJson一致：宽松模式，空文档返回null
+                reader.setLenient(true);
+                try {
+                    reader.peek();
+                } catch (EOFException e) {
+                    return null;
+                }
+                return b.adapter.read(reader);
+            }
+        }
+    }
+
+    private static class Binding<T> {
+        final Gson gson;
+        final TypeAdapter<T> adapter;
+
+        Binding(Gson gson, TypeAdapter<T> adapter) {
+            this.gson = gson;
+            this.adapter = adapter;
+        }
+    }
+}
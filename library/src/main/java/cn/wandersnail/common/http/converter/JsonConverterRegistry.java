@@ -0,0 +1,132 @@
+package cn.wandersnail.common.http.converter;
+
+import java.lang.reflect.Type;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import okhttp3.ResponseBody;
+import retrofit2.Converter;
+
+/**
+ * json转换器注册表。只检测一次可用的json库，并按类型缓存解析好的反序列化器，
+ * 如Gson的TypeAdapter、fastjson2的ObjectReader，每次转换只剩解析本身的开销
+ * <p>
+ * date: 2026/10/18 17:40
+ * author: zengfansheng
+ */
+public final class JsonConverterRegistry {
+    private static final boolean fastjson2Supported = isClassPresent("com.alibaba.fastjson2.JSON");
+    private static final boolean fastjsonSupported = isClassPresent("com.alibaba.fastjson.JSON");
+    private static final boolean gsonSupported = isClassPresent("com.google.gson.Gson");
+    private static final Map<Key, JsonBodyReader<?>> readers = new ConcurrentHashMap<>();
+    private static final Map<Key, Converter<ResponseBody, ?>> converters = new ConcurrentHashMap<>();
+
+    private JsonConverterRegistry() {
+    }
+
+    private static boolean isClassPresent(String className) {
+        try {
+            Class.forName(className, false, JsonConverterRegistry.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException ignore) {
+        }
+        return false;
+    }
+
+    /**
+     * 是否可使用指定的json库
+     */
+    public static boolean isSupported(JsonParserType parserType) {
+        switch (parserType) {
+            case FASTJSON2:
+                return fastjson2Supported;
+            case FASTJSON:
+                return fastjsonSupported;
+            case GSON:
+                return gsonSupported;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * 获取缓存的转换器，同一类型和json库始终返回同一个实例
+     *
+     * @param type       目标类型
+     * @param parserType 使用的json库
+     * @throws IllegalStateException 指定的json库不可用
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> Converter<ResponseBody, T> getConverter(Type type, JsonParserType parserType) {
+        Key key = new Key(parserType, type);
+        Converter<ResponseBody, ?> converter = converters.get(key);
+        if (converter == null) {
+            JsonBodyReader<?> reader = getReader(parserType, type);
+            converter = converters.computeIfAbsent(key, k ->
+                    body -> reader.read(body, JsonBodyReader.DEFAULT_STREAMING_THRESHOLD));
+        }
+        return (Converter<ResponseBody, T>) converter;
+    }
+
+    /**
+     * 获取缓存的转换器
+     *
+     * @param cls        目标类型
+     * @param parserType 使用的json库
+     * @throws IllegalStateException 指定的json库不可用
+     */
+    public static <T> Converter<ResponseBody, T> getConverter(Class<T> cls, JsonParserType parserType) {
+        return getConverter((Type) cls, parserType);
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> JsonBodyReader<T> getReader(JsonParserType parserType, Type type) {
+        if (!isSupported(parserType)) {
+            throw new IllegalStateException(parserType + " is not available");
+        }
+        Key key = new Key(parserType, type);
+        JsonBodyReader<?> reader = readers.get(key);
+        if (reader == null) {
+            reader = readers.computeIfAbsent(key, k -> JsonBodyReader.create(k.parserType, k.type));
+        }
+        return (JsonBodyReader<T>) reader;
+    }
+
+    /**
+     * 清空缓存，如更换了json库的全局配置后调用
+     */
+    public static void clear() {
+        readers.clear();
+        converters.clear();
+    }
+
+    /**
+     * 缓存的反序列化器个数
+     */
+    public static int size() {
+        return readers.size();
+    }
+
+    private static class Key {
+        final JsonParserType parserType;
+        final Type type;
+
+        Key(JsonParserType parserType, Type type) {
+            this.parserType = parserType;
+            this.type = type;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return parserType == key.parserType && type.equals(key.type);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * parserType.hashCode() + type.hashCode();
+        }
+    }
+}
@@ -1,6 +1,5 @@
 package cn.wandersnail.common.http.converter;
 
-import cn.wandersnail.common.http.EasyHttp;
 import cn.wandersnail.common.http.callback.JsonParser;
 import cn.wandersnail.common.http.exception.ConvertException;
 import okhttp3.ResponseBody;
@@ -16,6 +15,8 @@ public class JsonResponseConverter<T> implements Converter<ResponseBody, T> {
     private final Class<T> cls;
     private final JsonParser<T> parser;
     private JsonParserType parserType = JsonParserType.FASTJSON2;
+    private long streamingThreshold = JsonBodyReader.DEFAULT_STREAMING_THRESHOLD;
+    private volatile JsonBodyReader<T> reader;
 
     public JsonResponseConverter(Class<T> cls) {
         this.cls = cls;
@@ -33,49 +34,34 @@ public class JsonResponseConverter<T> implements Converter<ResponseBody, T> {
         cls = null;
     }
 
+    /**
+     * 设置流式解析阈值，响应体长度未知或大于此值时直接从字节流解析，不再先读成字符串。自定义{@link JsonParser}时无效
+     *
+     * @param streamingThreshold 单位：字节
+     */
+    public JsonResponseConverter<T> setStreamingThreshold(long streamingThreshold) {
+        this.streamingThreshold = streamingThreshold;
+        return this;
+    }
+
     @Override
     public T convert(ResponseBody value) throws ConvertException {
         try {
             if (parser != null) {
                 return parser.parse(value.string());
-            } else if (parserType == JsonParserType.FASTJSON2 && isFastjson2Supported()) {
-                return com.alibaba.fastjson2.JSON.parseObject(value.string(), cls);
-            } else if (parserType == JsonParserType.FASTJSON && isFastjsonSupported()) {
-                return com.alibaba.fastjson.JSON.parseObject(value.string(), cls);
-            } else if (parserType == JsonParserType.GSON && isGsonSupported()) {
-                return EasyHttp.getGson().fromJson(value.string(), cls);
-            } else {
-                throw new ConvertException("没有可用的Body转换器");
             }
+            JsonBodyReader<T> r = reader;
+            if (r == null) {
+                if (!JsonConverterRegistry.isSupported(parserType)) {
+                    throw new ConvertException("没有可用的Body转换器");
+                }
+                //反序列化器只解析一次
+                r = JsonConverterRegistry.getReader(parserType, cls);
+                reader = r;
+            }
+            return r.read(value, streamingThreshold);
         } catch (Throwable e) {
             throw new ConvertException(e.getMessage(), e);
         }
     }
-    
-    private boolean isFastjsonSupported() {
-        try {
-            Class.forName("com.alibaba.fastjson.JSON");
-            return true;
-        } catch (ClassNotFoundException ignore) {
-        }
-        return false;
-    }
-    
-    private boolean isFastjson2Supported() {
-        try {
-            Class.forName("com.alibaba.fastjson2.JSON");
-            return true;
-        } catch (ClassNotFoundException ignore) {
-        }
-        return false;
-    }
-    
-    private boolean isGsonSupported() {
-        try {
-            Class.forName("com.google.gson.Gson");
-            return true;
-        } catch (ClassNotFoundException ignore) {
-        }
-        return false;
-    }
 }
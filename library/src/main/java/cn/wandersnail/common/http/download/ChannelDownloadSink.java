@@ -0,0 +1,99 @@
+package cn.wandersnail.common.http.download;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import cn.wandersnail.common.http.util.HttpUtils;
+
+/**
+ * 通过FileChannel按位置写入，数据先攒在池化的直接缓冲区中，满了再写，不在每次写入时同步
+ * <p>
+ * date: 2026/10/18 13:31
+ * author: zengfansheng
+ */
+class ChannelDownloadSink implements DownloadSink {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_POOLED_BUFFERS = 16;
+    private static final Queue<ByteBuffer> bufferPool = new ConcurrentLinkedQueue<>();
+    private static final AtomicInteger pooledCount = new AtomicInteger();
+    private final RandomAccessFile accessFile;
+    private final FileChannel channel;
+    private final boolean fsync;
+    private ByteBuffer buffer;
+    private long position;
+
+    ChannelDownloadSink(File file, long position, boolean fsync) throws IOException {
+        accessFile = new RandomAccessFile(file, "rw");
+        channel = accessFile.getChannel();
+        this.position = position;
+        this.fsync = fsync;
+        buffer = obtainBuffer();
+    }
+
+    private static ByteBuffer obtainBuffer() {
+        ByteBuffer buf = bufferPool.poll();
+        if (buf == null) {
+            return ByteBuffer.allocateDirect(BUFFER_SIZE);
+        }
+        pooledCount.decrementAndGet();
+        buf.clear();
+        return buf;
+    }
+
+    private static void recycleBuffer(ByteBuffer buf) {
+        if (pooledCount.incrementAndGet() <= MAX_POOLED_BUFFERS) {
+            bufferPool.offer(buf);
+        } else {
+            pooledCount.decrementAndGet();
+        }
+    }
+
+    @Override
+    public void write(byte[] src, int offset, int len) throws IOException {
+        while (len > 0) {
+            int count = Math.min(len, buffer.remaining());
+            buffer.put(src, offset, count);
+            offset += count;
+            len -= count;
+            if (!buffer.hasRemaining()) {
+                writeBuffer();
+            }
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        writeBuffer();
+        if (fsync) {
+            channel.force(false);
+        }
+    }
+
+    private void writeBuffer() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+        buffer.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (buffer == null) {
+            return;
+        }
+        try {
+            flush();
+        } finally {
+            recycleBuffer(buffer);
+            buffer = null;
+            HttpUtils.closeQuietly(channel, accessFile);
+        }
+    }
+}
@@ -2,6 +2,9 @@ package cn.wandersnail.common.http.download;
 
 
 import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
 import java.util.Objects;
 import java.util.UUID;
 
@@ -18,7 +21,17 @@ public class DownloadInfo extends TaskInfo {
     public final String savePath;
     long contentLength;//总长度
     long completionLength;//已完成长度
-    private final String tempFilename;
+    private String tempFilename;
+    private int segmentCount = 1;
+    private DownloadSink.Factory sinkFactory = DownloadSinkType.CHANNEL;
+    volatile List<DownloadSegment> segments = Collections.emptyList();//分段下载时的各区间
+    long finishDuration;//下载完成后移动临时文件的耗时
+    volatile long persistedLength;//单连接下载时已确认写入文件的长度
+    volatile String eTag;
+    volatile String lastModified;
+    private boolean resumable;
+    private int priority;
+    private DownloadJournal journal;
 
     /**
      * @param url      请求地址
@@ -54,17 +67,155 @@ public class DownloadInfo extends TaskInfo {
     }
 
     /**
-     * 获取下载的临时文件，下载完成后再重命名
+     * 分段下载的连接数，大于1时开启分段下载，服务器不支持Range时自动退回单连接下载
+     */
+    public int getSegmentCount() {
+        return segmentCount;
+    }
+
+    /**
+     * 分段下载的连接数，大于1时开启分段下载，服务器不支持Range时自动退回单连接下载
+     */
+    public void setSegmentCount(int segmentCount) {
+        this.segmentCount = Math.max(1, segmentCount);
+    }
+
+    /**
+     * 数据写入方式，默认{@link DownloadSinkType#CHANNEL}
+     */
+    public DownloadSink.Factory getSinkFactory() {
+        return sinkFactory;
+    }
+
+    /**
+     * 数据写入方式，可使用{@link DownloadSinkType}或自定义实现
+     */
+    public void setSinkFactory(DownloadSink.Factory sinkFactory) {
+        this.sinkFactory = sinkFactory == null ? DownloadSinkType.CHANNEL : sinkFactory;
+    }
+
+    /**
+     * 调度优先级，值越大越先开始
+     */
+    public int getPriority() {
+        return priority;
+    }
+
+    /**
+     * 调度优先级，值越大越先开始，需在任务开始前设置
+     */
+    public void setPriority(int priority) {
+        this.priority = priority;
+    }
+
+    /**
+     * 是否开启持久化断点续传
+     */
+    public boolean isResumable() {
+        return resumable;
+    }
+
+    /**
+     * 是否开启持久化断点续传。开启后下载进度记录在保存路径同目录下的日志文件中，
+     * 进程重启后使用相同url和保存路径新建下载任务可继续下载，续传时通过If-Range校验文件未变化
+     */
+    public void setResumable(boolean resumable) {
+        this.resumable = resumable;
+    }
+
+    private synchronized DownloadJournal getJournal() {
+        if (journal == null) {
+            journal = new DownloadJournal(new File(savePath));
+        }
+        return journal;
+    }
+
+    /**
+     * 开始下载前调用，可以从日志恢复时恢复进度，否则重置
+     */
+    void prepare() {
+        if (resumable) {
+            String filename = getJournal().restore(this);
+            if (filename != null) {
+                tempFilename = filename;
+                return;
+            }
+        }
+        reset();
+    }
+
+    /**
+     * 记录断点续传日志。分段下载时各区间线程会并发调用，由日志对象串行写入
+     */
+    void saveJournal() {
+        if (resumable) {
+            try {
+                getJournal().save(this, tempFilename);
+            } catch (IOException ignore) {
+            }
+        }
+    }
+
+    /**
+     * 删除断点续传日志
+     */
+    void deleteJournal() {
+        if (resumable) {
+            getJournal().delete();
+        }
+    }
+
+    /**
+     * 续传时If-Range请求头的值，弱ETag不能用于If-Range
+     */
+    String getIfRange() {
+        String tag = eTag;
+        if (tag != null && !tag.startsWith("W/")) {
+            return tag;
+        }
+        return lastModified;
+    }
+
+    /**
+     * 各分段已完成长度之和
+     */
+    long getSegmentsCompletionLength() {
+        long len = 0;
+        for (DownloadSegment segment : segments) {
+            len += segment.completionLength;
+        }
+        return len;
+    }
+
+    /**
+     * 下载完成后将临时文件移动到保存路径的耗时，单位：毫秒
+     */
+    public long getFinishDuration() {
+        return finishDuration;
+    }
+
+    /**
+     * 获取下载的临时文件，与保存路径在同一目录下，下载完成后直接重命名
      */
     public File getTemporaryFile() {
-        return new File(System.getProperty("java.io.tmpdir"), tempFilename);
+        return new File(new File(savePath).getAbsoluteFile().getParentFile(), getTemporaryFilename(savePath, tempFilename));
+    }
+
+    static String getTemporaryFilename(String savePath, String tempFilename) {
+        return "." + new File(savePath).getName() + "." + tempFilename + ".tmp";
     }
     
     @Override
     public void reset() {
         completionLength = 0;
         contentLength = 0;
+        finishDuration = 0;
+        persistedLength = 0;
+        eTag = null;
+        lastModified = null;
+        segments = Collections.emptyList();
         getTemporaryFile().delete();
+        deleteJournal();
     }
 
     @Override
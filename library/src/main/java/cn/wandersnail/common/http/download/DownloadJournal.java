@@ -0,0 +1,147 @@
+package cn.wandersnail.common.http.download;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * 断点续传日志。保存在目标文件同目录下，记录临时文件、已落盘的字节区间及校验头，
+ * 进程重启后新建的下载任务可据此继续下载
+ * <p>
+ * date: 2026/10/18 14:30
+ * author: zengfansheng
+ */
+class DownloadJournal {
+    private static final String KEY_URL = "url";
+    private static final String KEY_SAVE_PATH = "savePath";
+    private static final String KEY_TEMP_FILENAME = "tempFilename";
+    private static final String KEY_CONTENT_LENGTH = "contentLength";
+    private static final String KEY_COMPLETION_LENGTH = "completionLength";
+    private static final String KEY_SEGMENTS = "segments";
+    private static final String KEY_ETAG = "etag";
+    private static final String KEY_LAST_MODIFIED = "lastModified";
+    private final File file;
+
+    DownloadJournal(File saveFile) {
+        file = new File(saveFile.getAbsoluteFile().getParentFile(), "." + saveFile.getName() + ".journal");
+    }
+
+    /**
+     * 写入日志。先写临时文件再原子替换，写到一半崩溃也不会损坏已有日志
+     */
+    synchronized void save(DownloadInfo info, String tempFilename) throws IOException {
+        Properties props = new Properties();
+        props.setProperty(KEY_URL, info.url);
+        props.setProperty(KEY_SAVE_PATH, info.savePath);
+        props.setProperty(KEY_TEMP_FILENAME, tempFilename);
+        props.setProperty(KEY_CONTENT_LENGTH, String.valueOf(info.contentLength));
+        if (info.eTag != null) {
+            props.setProperty(KEY_ETAG, info.eTag);
+        }
+        if (info.lastModified != null) {
+            props.setProperty(KEY_LAST_MODIFIED, info.lastModified);
+        }
+        List<DownloadSegment> segments = info.segments;
+        if (segments.isEmpty()) {
+            props.setProperty(KEY_COMPLETION_LENGTH, String.valueOf(info.persistedLength));
+        } else {
+            //格式：start-end:persisted,...
+            StringBuilder sb = new StringBuilder();
+            for (DownloadSegment segment : segments) {
+                if (sb.length() > 0) {
+                    sb.append(',');
+                }
+                sb.append(segment.start).append('-').append(segment.end).append(':').append(segment.persistedLength);
+            }
+            props.setProperty(KEY_SEGMENTS, sb.toString());
+        }
+        File parent = file.getParentFile();
+        if (parent != null && !parent.exists()) {
+            parent.mkdirs();
+        }
+        File tmp = new File(parent, file.getName() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(tmp)) {
+            props.store(out, null);
+            out.getFD().sync();
+        }
+        try {
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * 从日志恢复下载进度
+     *
+     * @return 日志有效且临时文件存在时返回临时文件名，否则返回null
+     */
+    synchronized String restore(DownloadInfo info) {
+        if (!file.exists()) {
+            return null;
+        }
+        Properties props = new Properties();
+        try (InputStream in = new FileInputStream(file)) {
+            props.load(in);
+        } catch (IOException e) {
+            return null;
+        }
+        String tempFilename = props.getProperty(KEY_TEMP_FILENAME);
+        if (!info.url.equals(props.getProperty(KEY_URL)) || !info.savePath.equals(props.getProperty(KEY_SAVE_PATH)) ||
+                tempFilename == null) {
+            return null;
+        }
+        String eTag = props.getProperty(KEY_ETAG);
+        String lastModified = props.getProperty(KEY_LAST_MODIFIED);
+        //没有校验头无法保证续传的数据属于同一文件
+        if (eTag == null && lastModified == null) {
+            return null;
+        }
+        try {
+            long contentLength = Long.parseLong(props.getProperty(KEY_CONTENT_LENGTH, "0"));
+            long completionLength = 0;
+            List<DownloadSegment> segments = new ArrayList<>();
+            String segmentsValue = props.getProperty(KEY_SEGMENTS);
+            if (segmentsValue != null && !segmentsValue.isEmpty()) {
+                for (String item : segmentsValue.split(",")) {
+                    int dash = item.indexOf('-');
+                    int colon = item.indexOf(':');
+                    DownloadSegment segment = new DownloadSegment(Long.parseLong(item.substring(0, dash)),
+                            Long.parseLong(item.substring(dash + 1, colon)));
+                    segment.completionLength = Math.min(segment.length(), Long.parseLong(item.substring(colon + 1)));
+                    segment.persistedLength = segment.completionLength;
+                    segments.add(segment);
+                    completionLength += segment.completionLength;
+                }
+            } else {
+                completionLength = Long.parseLong(props.getProperty(KEY_COMPLETION_LENGTH, "0"));
+            }
+            File tempFile = new File(file.getParentFile(), DownloadInfo.getTemporaryFilename(info.savePath, tempFilename));
+            //分段下载时临时文件已预分配为总长度
+            if (!tempFile.exists() || tempFile.length() < (segments.isEmpty() ? completionLength : contentLength)) {
+                return null;
+            }
+            info.contentLength = contentLength;
+            info.completionLength = completionLength;
+            info.persistedLength = segments.isEmpty() ? completionLength : 0;
+            info.segments = segments;
+            info.eTag = eTag;
+            info.lastModified = lastModified;
+            return tempFilename;
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    synchronized void delete() {
+        file.delete();
+    }
+}
@@ -1,19 +1,19 @@
 package cn.wandersnail.common.http.download;
 
 
-import java.io.BufferedInputStream;
-import java.io.BufferedOutputStream;
-import java.io.Closeable;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 
+import cn.wandersnail.common.http.EasyHttp;
+import cn.wandersnail.common.http.ProgressAggregator;
 import cn.wandersnail.common.http.TaskInfo;
 import cn.wandersnail.common.http.callback.ProgressListener;
 import io.reactivex.Observer;
 import io.reactivex.disposables.Disposable;
-import io.reactivex.schedulers.Schedulers;
 import okhttp3.ResponseBody;
 import retrofit2.Response;
 
@@ -22,43 +22,70 @@ import retrofit2.Response;
  * author: zengfansheng
  */
 class DownloadObserver<T extends DownloadInfo> implements Observer<Response<ResponseBody>>, ProgressListener {
-    private static final int UPDATE_LIMIT_DURATION = 500;//限制进度更新频率，毫秒
     private final T info;
     private final DownloadListener<T> listener;
     private Disposable disposable;
-    private long lastUpdateTime;//上次进度更新时间
+    private final ProgressAggregator.Tracker progressTracker;
+    private Runnable terminateAction;
+    private volatile boolean stopped;//已被暂停或取消
 
     DownloadObserver(T info, DownloadListener<T> listener) {
         this.info = info;
         this.listener = listener;
+        progressTracker = EasyHttp.getProgressAggregator().newTracker(this::deliverProgress);
     }
 
+    /**
+     * 任务结束、暂停或取消后执行，用于释放调度名额
+     */
+    void doOnTerminate(Runnable action) {
+        terminateAction = action;
+    }
+
+    private void terminate() {
+        progressTracker.close();
+        if (terminateAction != null) {
+            terminateAction.run();
+        }
+    }
+
+    /**
+     * 在I/O线程调用，只记录进度，由进度汇聚器按固定频率回调
+     */
     @Override
     public void onProgress(long progress, long max) {
-        Schedulers.io().scheduleDirect(() -> {
-            long completionLength = progress;
-            if (info.contentLength > max) {
-                completionLength += info.contentLength - max;
-            } else {
-                info.contentLength = max;
-            }
-            info.completionLength = completionLength;
-            if (System.currentTimeMillis() - lastUpdateTime >= UPDATE_LIMIT_DURATION && (info.state == TaskInfo.State.IDLE ||
-                    info.state == TaskInfo.State.START || info.state == TaskInfo.State.ONGOING)) {
-                if (info.state != TaskInfo.State.ONGOING) {
-                    info.state = TaskInfo.State.ONGOING;
-                    if (listener != null) {
-                        listener.onStateChange(info, null);
-                    }
-                }
-                updateProgress();
-                lastUpdateTime = System.currentTimeMillis();
+        progressTracker.update(progress, max);
+    }
+
+    //在进度汇聚器的定时器线程执行
+    private void deliverProgress(long progress, long max) {
+        if (info.state != TaskInfo.State.IDLE && info.state != TaskInfo.State.START &&
+                info.state != TaskInfo.State.ONGOING) {
+            return;
+        }
+        long completionLength = progress;
+        if (info.contentLength > max) {
+            completionLength += info.contentLength - max;
+        } else {
+            info.contentLength = max;
+        }
+        info.completionLength = completionLength;
+        if (info.state != TaskInfo.State.ONGOING) {
+            info.state = TaskInfo.State.ONGOING;
+            if (listener != null) {
+                listener.onStateChange(info, null);
             }
-        });
+        }
+        updateProgress();
     }
 
     @Override
     public void onSubscribe(Disposable d) {
+        if (stopped) {
+            //开始前已被暂停或取消
+            d.dispose();
+            return;
+        }
         disposable = d;
         info.state = TaskInfo.State.START;
         if (listener != null) {
@@ -75,6 +102,7 @@ class DownloadObserver<T extends DownloadInfo> implements Observer<Response<Resp
     public void onError(Throwable e) {
         disposable = null;
         info.state = TaskInfo.State.ERROR;
+        terminate();
         if (listener != null) {
             listener.onStateChange(info, e);
         }
@@ -83,24 +111,27 @@ class DownloadObserver<T extends DownloadInfo> implements Observer<Response<Resp
     @Override
     public void onComplete() {
         disposable = null;
-        Schedulers.io().scheduleDirect(() -> {
-            //将临时文件重命名为目标路径
+        info.getSchedulerStrategy().execute(() -> {
+            //将临时文件移动到目标路径
+            long startTime = System.currentTimeMillis();
             File destFile = new File(info.savePath);
             File parentFile = destFile.getParentFile();
             if (parentFile != null && !parentFile.exists()) {
                 parentFile.mkdirs();
             }
-            if (destFile.exists()) {
-                destFile.delete();//如果目标有文件，删除
-            }
             File tempFile = info.getTemporaryFile();
-            copyFile(tempFile, destFile);            
-            boolean success = destFile.exists() && tempFile.length() == destFile.length();
-            if (!success) {
+            long length = tempFile.length();
+            //总长度已知时校验，避免不完整或有残留数据的文件被当作下载成功
+            boolean complete = info.contentLength <= 0 || length == info.contentLength;
+            boolean success = complete && moveFile(tempFile, destFile) && destFile.length() == length;
+            if (complete && !success) {
                 destFile.delete();
             }
             tempFile.delete();
-            Schedulers.io().scheduleDirect(() -> {
+            info.deleteJournal();
+            info.finishDuration = System.currentTimeMillis() - startTime;
+            terminate();
+            info.getSchedulerStrategy().deliver(() -> {
                 if (success) {
                     //更新进度
                     info.completionLength = info.contentLength;
@@ -112,42 +143,35 @@ class DownloadObserver<T extends DownloadInfo> implements Observer<Response<Resp
                 } else {
                     info.state = TaskInfo.State.ERROR;
                     if (listener != null) {
-                        listener.onStateChange(info, new Throwable("Renaming to target file failed"));
+                        listener.onStateChange(info, new Throwable(complete ? "Renaming to target file failed" :
+                                "File length mismatch, expected: " + info.contentLength + ", actual: " + length));
                     }
                 }
             });
         });
     }
 
-    private void copyFile(File src, File target) {
-        BufferedInputStream fis = null;
-        BufferedOutputStream fos = null;
+    //优先原子重命名，不在同一文件系统时使用transferTo复制
+    private boolean moveFile(File src, File target) {
         try {
-            fis = new BufferedInputStream(new FileInputStream(src));
-            fos = new BufferedOutputStream(new FileOutputStream(target));
-            byte[] buffer = new byte[40960];
-            int len;
-            while ((len = fis.read(buffer)) != -1) {
-                fos.write(buffer, 0, len);
-            }
-            fos.flush();
-        } catch (Exception e) {
-            target.delete();
-        } finally {
-            closeQuietly(fis, fos);
+            Files.move(src.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            return true;
+        } catch (IOException ignore) {
         }
-    }
-    
-    private void closeQuietly(Closeable... closeables) {
-        try {
-            if (closeables != null) {
-                for (Closeable closeable : closeables) {
-                    if (closeable != null) {
-                        closeable.close();
-                    }
-                }
+        if (target.exists()) {
+            target.delete();//如果目标有文件，删除
+        }
+        try (FileChannel in = FileChannel.open(src.toPath(), StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(target.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                     StandardOpenOption.TRUNCATE_EXISTING)) {
+            long size = in.size();
+            long position = 0;
+            while (position < size) {
+                position += in.transferTo(position, size - position, out);
             }
-        } catch (IOException ignore) {
+            return true;
+        } catch (IOException e) {
+            return false;
         }
     }
     
@@ -158,15 +182,21 @@ class DownloadObserver<T extends DownloadInfo> implements Observer<Response<Resp
     }
     
     public void dispose(boolean cancel) {
-        Schedulers.io().scheduleDirect(() -> {
+        //立即释放调度名额，排队中的任务也不会再开始
+        stopped = true;
+        terminate();
+        info.getSchedulerStrategy().execute(() -> {
             if (disposable != null && !disposable.isDisposed()) {
                 disposable.dispose();
             }
-            if (info.state == TaskInfo.State.ONGOING || info.state == TaskInfo.State.START) {
+            //IDLE表示还在调度队列中排队
+            if (info.state == TaskInfo.State.ONGOING || info.state == TaskInfo.State.START || 
+                    info.state == TaskInfo.State.IDLE) {
                 if (cancel) {
                     info.state = TaskInfo.State.CANCEL;
-                    //如果取消，删除临时文件
+                    //如果取消，删除临时文件及续传日志
                     info.getTemporaryFile().delete();
+                    info.deleteJournal();
                 } else {
                     info.state = TaskInfo.State.PAUSE;
                 }
@@ -0,0 +1,200 @@
+package cn.wandersnail.common.http.download;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 下载任务调度器。限制同时进行的下载任务总数及每个主机的连接数，排队的任务按优先级开始，
+ * 优先级相同时优先开始正在进行任务最少的下载器的任务，多个下载器之间公平共享。
+ * 分段下载按分段数计算连接数，单个任务的分段数超过主机上限时，该主机空闲时也能开始
+ * <p>
+ * date: 2026/10/18 15:10
+ * author: zengfansheng
+ */
+public class DownloadScheduler {
+    private final List<Task> queuedTasks = new ArrayList<>();
+    private final List<Task> runningTasks = new ArrayList<>();
+    private final Map<String, Integer> hostConnectionCount = new HashMap<>();
+    private final Map<Object, Integer> ownerRunningCount = new HashMap<>();
+    private int maxTasks;
+    private int maxTasksPerHost;
+    private long sequence;
+
+    public DownloadScheduler() {
+        this(16, 6);
+    }
+
+    /**
+     * @param maxTasks        同时进行的最大任务数
+     * @param maxTasksPerHost 每个主机同时使用的最大连接数，分段下载按分段数计
+     */
+    public DownloadScheduler(int maxTasks, int maxTasksPerHost) {
+        if (maxTasks < 1 || maxTasksPerHost < 1) {
+            throw new IllegalArgumentException("max < 1");
+        }
+        this.maxTasks = maxTasks;
+        this.maxTasksPerHost = maxTasksPerHost;
+    }
+
+    /**
+     * 同时进行的最大任务数
+     */
+    public void setMaxTasks(int maxTasks) {
+        if (maxTasks < 1) {
+            throw new IllegalArgumentException("max < 1: " + maxTasks);
+        }
+        synchronized (this) {
+            this.maxTasks = maxTasks;
+        }
+        promoteAndStart();
+    }
+
+    public synchronized int getMaxTasks() {
+        return maxTasks;
+    }
+
+    /**
+     * 每个主机同时使用的最大连接数，分段下载按分段数计
+     */
+    public void setMaxTasksPerHost(int maxTasksPerHost) {
+        if (maxTasksPerHost < 1) {
+            throw new IllegalArgumentException("max < 1: " + maxTasksPerHost);
+        }
+        synchronized (this) {
+            this.maxTasksPerHost = maxTasksPerHost;
+        }
+        promoteAndStart();
+    }
+
+    public synchronized int getMaxTasksPerHost() {
+        return maxTasksPerHost;
+    }
+
+    /**
+     * 排队中的任务数
+     */
+    public synchronized int queuedCount() {
+        return queuedTasks.size();
+    }
+
+    /**
+     * 进行中的任务数
+     */
+    public synchronized int runningCount() {
+        return runningTasks.size();
+    }
+
+    void enqueue(Task task) {
+        synchronized (this) {
+            task.sequence = sequence++;
+            queuedTasks.add(task);
+        }
+        promoteAndStart();
+    }
+
+    /**
+     * 任务结束、暂停或取消时调用，排队中的任务直接移除，进行中的任务释放名额
+     */
+    void finished(Task task) {
+        synchronized (this) {
+            if (!queuedTasks.remove(task)) {
+                if (!runningTasks.remove(task)) {
+                    return;
+                }
+                add(hostConnectionCount, task.host, -task.connections);
+                add(ownerRunningCount, task.owner, -1);
+            }
+        }
+        promoteAndStart();
+    }
+
+    private static <K> void add(Map<K, Integer> map, K key, int delta) {
+        int count = count(map, key) + delta;
+        if (count <= 0) {
+            map.remove(key);
+        } else {
+            map.put(key, count);
+        }
+    }
+
+    private static <K> int count(Map<K, Integer> map, K key) {
+        Integer count = map.get(key);
+        return count == null ? 0 : count;
+    }
+
+    private void promoteAndStart() {
+        List<Task> executableTasks = new ArrayList<>();
+        synchronized (this) {
+            while (runningTasks.size() < maxTasks) {
+                Task next = nextTask();
+                if (next == null) {
+                    break;
+                }
+                queuedTasks.remove(next);
+                runningTasks.add(next);
+                add(hostConnectionCount, next.host, next.connections);
+                add(ownerRunningCount, next.owner, 1);
+                executableTasks.add(next);
+            }
+        }
+        //在锁外开始任务
+        for (Task task : executableTasks) {
+            task.start();
+        }
+    }
+
+    //优先级高的优先，其次是进行中任务少的下载器，最后按入队顺序
+    private Task nextTask() {
+        Task best = null;
+        for (Task task : queuedTasks) {
+            int connections = count(hostConnectionCount, task.host);
+            if (connections > 0 && connections + task.connections > maxTasksPerHost) {
+                continue;
+            }
+            if (best == null || compare(task, best) < 0) {
+                best = task;
+            }
+        }
+        return best;
+    }
+
+    private int compare(Task a, Task b) {
+        if (a.priority != b.priority) {
+            return a.priority > b.priority ? -1 : 1;
+        }
+        int ownerA = count(ownerRunningCount, a.owner);
+        int ownerB = count(ownerRunningCount, b.owner);
+        if (ownerA != ownerB) {
+            return ownerA < ownerB ? -1 : 1;
+        }
+        return Long.compare(a.sequence, b.sequence);
+    }
+
+    /**
+     * 调度的任务
+     */
+    abstract static class Task {
+        final Object owner;
+        final String host;
+        final int priority;
+        final int connections;
+        long sequence;
+
+        /**
+         * @param owner       所属下载器，用于多个下载器之间公平调度
+         * @param host        主机，用于限制每个主机的连接数
+         * @param priority    优先级，值越大越先开始
+         * @param connections 任务会同时使用的连接数，分段下载为分段数
+         */
+        Task(Object owner, String host, int priority, int connections) {
+            this.owner = owner;
+            this.host = host;
+            this.priority = priority;
+            this.connections = Math.max(1, connections);
+        }
+
+        abstract void start();
+    }
+}
@@ -0,0 +1,50 @@
+package cn.wandersnail.common.http.download;
+
+/**
+ * 分段下载时的一个字节区间
+ * <p>
+ * date: 2026/10/18 11:05
+ * author: zengfansheng
+ */
+class DownloadSegment {
+    /**
+     * 起始位置，包含
+     */
+    final long start;
+    /**
+     * 结束位置，包含
+     */
+    final long end;
+    /**
+     * 已完成长度，只由负责此区间的线程写入
+     */
+    volatile long completionLength;
+    /**
+     * 已确认写入文件的长度，用于断点续传日志
+     */
+    volatile long persistedLength;
+
+    DownloadSegment(long start, long end) {
+        this.start = start;
+        this.end = end;
+    }
+
+    long length() {
+        return end - start + 1;
+    }
+
+    long remaining() {
+        return length() - completionLength;
+    }
+
+    boolean isComplete() {
+        return completionLength >= length();
+    }
+
+    /**
+     * 剩余部分的Range请求头
+     */
+    String rangeHeader() {
+        return "bytes=" + (start + completionLength) + "-" + end;
+    }
+}
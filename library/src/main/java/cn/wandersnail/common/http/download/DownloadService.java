@@ -18,4 +18,11 @@ public interface DownloadService {
     @Streaming
     @GET
     Observable<Response<ResponseBody>> download(@Header("RANGE") String offset, @Url String url);
+
+    /**
+     * @param ifRange 续传时的校验值（ETag或Last-Modified），文件已变化时服务器返回完整内容
+     */
+    @Streaming
+    @GET
+    Observable<Response<ResponseBody>> download(@Header("RANGE") String offset, @Header("If-Range") String ifRange, @Url String url);
 }
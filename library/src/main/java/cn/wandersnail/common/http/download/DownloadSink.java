@@ -0,0 +1,38 @@
+package cn.wandersnail.common.http.download;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * 下载数据写入目标。每个下载流（单连接下载或一个分段）打开一个，从指定位置开始顺序写入
+ * <p>
+ * date: 2026/10/18 13:20
+ * author: zengfansheng
+ */
+public interface DownloadSink extends Closeable {
+    /**
+     * 顺序写入数据
+     */
+    void write(byte[] buffer, int offset, int len) throws IOException;
+
+    /**
+     * 将已写入的数据交给文件系统，之后才会记入断点续传日志
+     */
+    default void flush() throws IOException {
+    }
+
+    /**
+     * 写入目标工厂
+     */
+    interface Factory {
+        /**
+         * 打开写入目标
+         *
+         * @param file     写入的文件
+         * @param position 起始写入位置
+         * @param limit    最大写入位置（不包含），未知时为-1
+         */
+        DownloadSink open(File file, long position, long limit) throws IOException;
+    }
+}
@@ -0,0 +1,37 @@
+package cn.wandersnail.common.http.download;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * 内置的写入方式
+ * <p>
+ * date: 2026/10/18 13:26
+ * author: zengfansheng
+ */
+public enum DownloadSinkType implements DownloadSink.Factory {
+    /**
+     * 分窗口内存映射，每次只映射一段，不受2GB限制
+     */
+    MAPPED,
+    /**
+     * 通过FileChannel按位置写入，使用池化的直接缓冲区
+     */
+    CHANNEL,
+    /**
+     * 同{@link #CHANNEL}，写入结束时执行一次fsync
+     */
+    CHANNEL_FSYNC;
+
+    @Override
+    public DownloadSink open(File file, long position, long limit) throws IOException {
+        switch (this) {
+            case MAPPED:
+                return new MappedDownloadSink(file, position, limit);
+            case CHANNEL_FSYNC:
+                return new ChannelDownloadSink(file, position, true);
+            default:
+                return new ChannelDownloadSink(file, position, false);
+        }
+    }
+}
@@ -2,21 +2,24 @@ package cn.wandersnail.common.http.download;
 
 
 import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.RandomAccessFile;
-import java.nio.MappedByteBuffer;
-import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
+import cn.wandersnail.common.http.EasyHttp;
 import cn.wandersnail.common.http.TaskInfo;
 import cn.wandersnail.common.http.exception.RetryWhenException;
 import cn.wandersnail.common.http.util.HttpUtils;
-import cn.wandersnail.common.http.util.SchedulerUtils;
+import io.reactivex.Observable;
 import io.reactivex.disposables.Disposable;
 import okhttp3.OkHttpClient;
 import okhttp3.ResponseBody;
+import retrofit2.Response;
 import retrofit2.Retrofit;
 import retrofit2.adapter.rxjava2.RxJava2CallAdapterFactory;
 
@@ -25,25 +28,44 @@ import retrofit2.adapter.rxjava2.RxJava2CallAdapterFactory;
  * author: zengfansheng
  */
 public class DownloadWorker<T extends DownloadInfo> implements Disposable {
+    private static final long MIN_SEGMENT_SIZE = 1024 * 1024;//分段的最小长度
+    private static final long CHECKPOINT_SIZE = 4 * 1024 * 1024;//开启断点续传时，每写入这么多记录一次日志
     private final Map<T, DownloadObserver<T>> taskMap = new ConcurrentHashMap<>();
     private final DownloadListener<T> listener;
+    private final DownloadScheduler scheduler;
     private int successNum;
     private int failureNum;
     private boolean isCanceled;
     private final int taskCount;
 
     public DownloadWorker(T info, DownloadListener<T> listener) {
+        this(info, listener, EasyHttp.getDownloadScheduler());
+    }
+
+    /**
+     * @param scheduler 调度器，限制并发的下载任务数
+     */
+    public DownloadWorker(T info, DownloadListener<T> listener, DownloadScheduler scheduler) {
         this.listener = listener;
+        this.scheduler = scheduler;
         taskCount = 1;
-        info.reset();
+        info.prepare();
         execute(info);
     }
 
     public DownloadWorker(List<T> infoList, MultiDownloadListener<T> listener) {
+        this(infoList, listener, EasyHttp.getDownloadScheduler());
+    }
+
+    /**
+     * @param scheduler 调度器，限制并发的下载任务数，超出的任务排队等待
+     */
+    public DownloadWorker(List<T> infoList, MultiDownloadListener<T> listener, DownloadScheduler scheduler) {
         this.listener = listener;
+        this.scheduler = scheduler;
         taskCount = infoList.size();
         for (T info : infoList) {
-            info.reset();   
+            info.prepare();
             execute(info);
         }
     }
@@ -54,51 +76,255 @@ public class DownloadWorker<T extends DownloadInfo> implements Disposable {
         synchronized (this) {
             taskMap.put(info, observer);
         }
-        OkHttpClient httpClient = HttpUtils.initHttpsClient(true, new OkHttpClient.Builder())
+        info.state = TaskInfo.State.IDLE;
+        //交给调度器排队，有空闲名额时才真正开始
+        //分段下载会同时占用多个连接，恢复时沿用之前的分段数
+        int connections = info.getSegmentCount() > 1 && !info.segments.isEmpty() ? info.segments.size() : info.getSegmentCount();
+        DownloadScheduler.Task task = new DownloadScheduler.Task(this, info.getBaseUrl(), info.getPriority(), connections) {
+            @Override
+            void start() {
+                Observable<Response<ResponseBody>> observable = info.getSegmentCount() > 1 ?
+                        segmentedDownload(info, observer) : singleDownload(info, observer);
+                observable.compose(info.getSchedulerStrategy().observableTransformer())
+                        .subscribe(observer);
+            }
+        };
+        observer.doOnTerminate(() -> scheduler.finished(task));
+        scheduler.enqueue(task);
+    }
+
+    //单连接下载
+    private Observable<Response<ResponseBody>> singleDownload(T info, DownloadObserver<T> observer) {
+        //基于共享的客户端派生，复用连接池、调度器及TLS会话
+        OkHttpClient httpClient = EasyHttp.getClientRegistry().getClient(0, true, info.getRetryPolicy(), info.getCircuitBreakers()).newBuilder()
                 .addInterceptor(new ProgressInterceptor(observer))
                 .build();
-        new Retrofit.Builder()
+        long offset = info.persistedLength;
+        return new Retrofit.Builder()
                 .client(httpClient)
                 .addCallAdapterFactory(RxJava2CallAdapterFactory.create())
                 .baseUrl(info.getBaseUrl())
                 .build()
                 .create(DownloadService.class)
-                .download("bytes=" + info.completionLength + "-", info.url)//断点续传
-                .retryWhen(new RetryWhenException())
+                .download("bytes=" + offset + "-", offset > 0 ? info.getIfRange() : null, info.url)//断点续传
+                .compose(upstream -> retry(upstream, info))
                 .map(responseBodyResponse -> {
-                    writeToDisk(responseBodyResponse.body(), info.getTemporaryFile(), info);
+                    writeToDisk(responseBodyResponse, info.getTemporaryFile(), info, offset);
                     return responseBodyResponse;
-                })
-                .compose(SchedulerUtils.applyGeneralObservableSchedulers())
-                .subscribe(observer);
+                });
+    }
+
+    //多连接分段下载，先探测服务器是否支持Range，不支持则退回单连接下载
+    private Observable<Response<ResponseBody>> segmentedDownload(T info, DownloadObserver<T> observer) {
+        DownloadService service = EasyHttp.getClientRegistry().getService(info.getBaseUrl(), 0, true,
+                info.getRetryPolicy(), info.getCircuitBreakers(), DownloadService.class);
+        Observable<List<DownloadSegment>> segmentsObservable;
+        if (!info.segments.isEmpty()) {
+            //暂停后恢复，沿用之前的分段
+            segmentsObservable = Observable.just(info.segments);
+        } else {
+            segmentsObservable = service.download("bytes=0-0", info.url)
+                    .compose(upstream -> retry(upstream, info))
+                    .map(response -> {
+                        updateValidators(response, info);
+                        return probeSegments(response, info);
+                    });
+        }
+        return segmentsObservable.flatMap(segments -> {
+            if (segments.isEmpty()) {
+                return singleDownload(info, observer);
+            }
+            info.segments = segments;
+            File file = info.getTemporaryFile();
+            if (!file.getParentFile().exists()) {
+                file.getParentFile().mkdirs();
+            }
+            try (RandomAccessFile accessFile = new RandomAccessFile(file, "rw")) {
+                if (accessFile.length() != info.contentLength) {
+                    accessFile.setLength(info.contentLength);
+                }
+            }
+            info.saveJournal();
+            String ifRange = info.getIfRange();
+            return Observable.fromIterable(segments)
+                    .filter(segment -> !segment.isComplete())
+                    //同步调用适配器在订阅线程执行请求，每个区间需单独订阅到调度线程才能并行
+                    .flatMap(segment -> service.download(segment.rangeHeader(), ifRange, info.url)
+                            .compose(upstream -> retry(upstream, info))
+                            .map(response -> {
+                                writeSegmentToDisk(response, file, segment, info, observer);
+                                return response;
+                            })
+                            .subscribeOn(info.getSchedulerStrategy().getSubscribeScheduler()), segments.size())
+                    .concatWith(Observable.defer(() -> {
+                        for (DownloadSegment segment : segments) {
+                            if (!segment.isComplete()) {
+                                return Observable.error(new IOException("Segment " + segment.rangeHeader() + " incomplete"));
+                            }
+                        }
+                        return Observable.empty();
+                    }));
+        });
+    }
+
+    //设置了重试策略时由拦截器重试，否则沿用默认的重试
+    private <R> Observable<R> retry(Observable<R> upstream, T info) {
+        return info.getRetryPolicy() != null ? upstream : upstream.retryWhen(new RetryWhenException());
+    }
+
+    //根据探测请求的响应划分区间，不支持Range时返回空列表
+    private List<DownloadSegment> probeSegments(Response<ResponseBody> response, T info) {
+        ResponseBody body = response.body();
+        if (body != null) {
+            body.close();
+        }
+        if (response.code() != 206 || "none".equalsIgnoreCase(response.headers().get("Accept-Ranges"))) {
+            return Collections.emptyList();
+        }
+        //格式：bytes 0-0/12345
+        String contentRange = response.headers().get("Content-Range");
+        long total = -1;
+        if (contentRange != null) {
+            int index = contentRange.lastIndexOf('/');
+            if (index != -1) {
+                try {
+                    total = Long.parseLong(contentRange.substring(index + 1).trim());
+                } catch (NumberFormatException ignore) {
+                }
+            }
+        }
+        if (total <= 0) {
+            return Collections.emptyList();
+        }
+        info.contentLength = total;
+        int count = (int) Math.max(1, Math.min(info.getSegmentCount(), total / MIN_SEGMENT_SIZE));
+        long segmentSize = total / count;
+        List<DownloadSegment> segments = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            long start = i * segmentSize;
+            long end = i == count - 1 ? total - 1 : start + segmentSize - 1;
+            segments.add(new DownloadSegment(start, end));
+        }
+        return segments;
+    }
+
+    //记录用于续传校验的响应头
+    private void updateValidators(Response<?> response, T info) {
+        if (response.isSuccessful()) {
+            info.eTag = response.headers().get("ETag");
+            info.lastModified = response.headers().get("Last-Modified");
+        }
+    }
+
+    //将区间数据写入临时文件对应位置
+    private void writeSegmentToDisk(Response<ResponseBody> response, File file, DownloadSegment segment, T info,
+                                    DownloadObserver<T> observer) throws IOException {
+        ResponseBody body = response.body();
+        if (response.code() != 206 || body == null) {
+            if (body != null) {
+                body.close();
+            }
+            if (response.code() == 200) {
+                //If-Range校验失败，服务器上的文件已变化，之前的分段作废，下次重新探测
+                info.segments = Collections.emptyList();
+                info.contentLength = 0;
+                info.deleteJournal();
+                throw new IOException("Remote file changed, download must restart");
+            }
+            throw new IOException("Range request failed, code: " + response.code());
+        }
+        InputStream input = body.byteStream();
+        DownloadSink sink = null;
+        try {
+            sink = info.getSinkFactory().open(file, segment.start + segment.completionLength, segment.end + 1);
+            byte[] buffer = new byte[10240];
+            long uncheckedLength = 0;
+            int len;
+            while (!segment.isComplete() && (len = input.read(buffer)) != -1) {
+                len = (int) Math.min(len, segment.remaining());
+                sink.write(buffer, 0, len);
+                segment.completionLength += len;
+                observer.onProgress(info.getSegmentsCompletionLength(), info.contentLength);
+                uncheckedLength += len;
+                if (info.isResumable() && uncheckedLength >= CHECKPOINT_SIZE) {
+                    sink.flush();
+                    segment.persistedLength = segment.completionLength;
+                    info.saveJournal();
+                    uncheckedLength = 0;
+                }
+            }
+        } finally {
+            try {
+                closeSink(sink);
+                segment.persistedLength = segment.completionLength;
+                info.saveJournal();
+            } finally {
+                HttpUtils.closeQuietly(input);
+            }
+        }
     }
 
     //写入文件在本地
-    private void writeToDisk(ResponseBody body, File file, T info) {
-        if (body == null) {
-            return;
+    private void writeToDisk(Response<ResponseBody> response, File file, T info, long offset) throws IOException {
+        ResponseBody body = response.body();
+        if (!response.isSuccessful() || body == null) {
+            throw new IOException("Download failed, code: " + response.code());
+        }
+        if (response.code() != 206) {
+            //服务器不支持Range或If-Range校验失败，返回的是完整内容，从头写入
+            offset = 0;
+            info.contentLength = 0;
+        }
+        if (offset == 0) {
+            updateValidators(response, info);
         }
         if (!file.getParentFile().exists()) {
             file.getParentFile().mkdirs();
         }
+        if (offset == 0 && file.exists()) {
+            //从头写入时截断，否则新内容比已有数据短时会残留旧数据
+            try (RandomAccessFile accessFile = new RandomAccessFile(file, "rw")) {
+                accessFile.setLength(0);
+            }
+        }
         InputStream input = body.byteStream();
-        long allLen = info.contentLength == 0 ? body.contentLength() : info.contentLength;
-        RandomAccessFile accessFile = null;
-        FileChannel channel = null;
+        long limit = body.contentLength() > 0 ? offset + body.contentLength() : -1;
+        if (limit > 0) {
+            info.contentLength = limit;
+        }
+        DownloadSink sink = null;
+        long written = 0;
         try {
-            accessFile = new RandomAccessFile(file, "rwd");
-            channel = accessFile.getChannel();
-            MappedByteBuffer byteBuffer = channel.map(FileChannel.MapMode.READ_WRITE, info.completionLength, 
-                    allLen - info.completionLength);
+            sink = info.getSinkFactory().open(file, offset, limit);
             byte[] buffer = new byte[10240];
+            long uncheckedLength = 0;
             int len;
             while ((len = input.read(buffer)) != -1) {
-                byteBuffer.put(buffer, 0, len);
+                sink.write(buffer, 0, len);
+                written += len;
+                uncheckedLength += len;
+                if (info.isResumable() && uncheckedLength >= CHECKPOINT_SIZE) {
+                    sink.flush();
+                    info.persistedLength = offset + written;
+                    info.saveJournal();
+                    uncheckedLength = 0;
+                }
             }
-        } catch (Exception e) {
-            e.printStackTrace();
         } finally {
-            HttpUtils.closeQuietly(channel, accessFile, input);
+            try {
+                closeSink(sink);
+                info.persistedLength = offset + written;
+                info.saveJournal();
+            } finally {
+                HttpUtils.closeQuietly(input);
+            }
+        }
+    }
+
+    //关闭时会将缓冲区剩余数据写入，出错需要抛出
+    private void closeSink(DownloadSink sink) throws IOException {
+        if (sink != null) {
+            sink.close();
         }
     }
         
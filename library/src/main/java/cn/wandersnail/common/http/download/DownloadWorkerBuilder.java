@@ -3,6 +3,11 @@ package cn.wandersnail.common.http.download;
 
 import java.util.UUID;
 
+import cn.wandersnail.common.http.EasyHttp;
+import cn.wandersnail.common.http.SchedulerStrategy;
+import cn.wandersnail.common.http.retry.CircuitBreakerRegistry;
+import cn.wandersnail.common.http.retry.RetryPolicy;
+
 /**
  * date: 2021/4/8 14:20
  * author: zengfansheng
@@ -10,6 +15,14 @@ import java.util.UUID;
 public class DownloadWorkerBuilder {
     private DownloadInfo info;
     private DownloadListener<DownloadInfo> listener;
+    private int segmentCount = 1;
+    private DownloadSink.Factory sinkFactory;
+    private boolean resumable;
+    private int priority;
+    private DownloadScheduler scheduler;
+    private RetryPolicy retryPolicy;
+    private CircuitBreakerRegistry circuitBreakers;
+    private SchedulerStrategy schedulerStrategy;
 
     /**
      * 设置下载文件信息
@@ -41,7 +54,78 @@ public class DownloadWorkerBuilder {
         return this;
     }
     
+    /**
+     * 设置分段下载的连接数，大于1时开启多连接分段下载
+     */
+    public DownloadWorkerBuilder setSegmentCount(int segmentCount) {
+        this.segmentCount = segmentCount;
+        return this;
+    }
+    
+    /**
+     * 设置数据写入方式，可使用{@link DownloadSinkType}或自定义实现
+     */
+    public DownloadWorkerBuilder setSinkFactory(DownloadSink.Factory sinkFactory) {
+        this.sinkFactory = sinkFactory;
+        return this;
+    }
+
+    /**
+     * 设置是否开启持久化断点续传，开启后进程重启也可从上次进度继续下载
+     */
+    public DownloadWorkerBuilder setResumable(boolean resumable) {
+        this.resumable = resumable;
+        return this;
+    }
+
+    /**
+     * 设置调度优先级，值越大越先开始
+     */
+    public DownloadWorkerBuilder setPriority(int priority) {
+        this.priority = priority;
+        return this;
+    }
+
+    /**
+     * 设置重试策略，不设置时按默认方式重试
+     */
+    public DownloadWorkerBuilder setRetryPolicy(RetryPolicy retryPolicy) {
+        this.retryPolicy = retryPolicy;
+        return this;
+    }
+
+    /**
+     * 设置按主机熔断
+     */
+    public DownloadWorkerBuilder setCircuitBreakers(CircuitBreakerRegistry circuitBreakers) {
+        this.circuitBreakers = circuitBreakers;
+        return this;
+    }
+
+    /**
+     * 设置调度策略，不设置时使用{@link SchedulerStrategy#io()}
+     */
+    public DownloadWorkerBuilder setSchedulerStrategy(SchedulerStrategy schedulerStrategy) {
+        this.schedulerStrategy = schedulerStrategy;
+        return this;
+    }
+
+    /**
+     * 设置调度器，不设置时使用{@link EasyHttp#getDownloadScheduler()}
+     */
+    public DownloadWorkerBuilder setScheduler(DownloadScheduler scheduler) {
+        this.scheduler = scheduler;
+        return this;
+    }
+
     public DownloadWorker<DownloadInfo> build() {
-        return new DownloadWorker<>(info, listener);
+        info.setSegmentCount(segmentCount);
+        info.setSinkFactory(sinkFactory);
+        info.setResumable(resumable);
+        info.setRetryPolicy(retryPolicy);
+        info.setCircuitBreakers(circuitBreakers);
+        info.setSchedulerStrategy(schedulerStrategy);
+        info.setPriority(priority);
+        return new DownloadWorker<>(info, listener, scheduler == null ? EasyHttp.getDownloadScheduler() : scheduler);
     }
 }
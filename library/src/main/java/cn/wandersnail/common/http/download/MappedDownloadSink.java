@@ -0,0 +1,70 @@
+package cn.wandersnail.common.http.download;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+import cn.wandersnail.common.http.util.HttpUtils;
+
+/**
+ * 分窗口内存映射写入，每次只映射一个窗口，写满后再映射下一个
+ * <p>
+ * date: 2026/10/18 13:40
+ * author: zengfansheng
+ */
+class MappedDownloadSink implements DownloadSink {
+    private static final long WINDOW_SIZE = 8 * 1024 * 1024;
+    private final RandomAccessFile accessFile;
+    private final FileChannel channel;
+    private final long limit;
+    private MappedByteBuffer window;
+    private long position;
+
+    MappedDownloadSink(File file, long position, long limit) throws IOException {
+        accessFile = new RandomAccessFile(file, "rw");
+        channel = accessFile.getChannel();
+        this.position = position;
+        this.limit = limit;
+    }
+
+    @Override
+    public void write(byte[] src, int offset, int len) throws IOException {
+        while (len > 0) {
+            if (window == null || !window.hasRemaining()) {
+                mapNextWindow();
+            }
+            int count = Math.min(len, window.remaining());
+            window.put(src, offset, count);
+            offset += count;
+            len -= count;
+            position += count;
+        }
+    }
+
+    private void mapNextWindow() throws IOException {
+        long size = WINDOW_SIZE;
+        if (limit > 0) {
+            size = Math.min(size, limit - position);
+            if (size <= 0) {
+                throw new IOException("Write beyond limit: " + limit);
+            }
+        }
+        window = channel.map(FileChannel.MapMode.READ_WRITE, position, size);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            //长度未知时映射可能超出实际数据，截掉多余部分
+            if (limit <= 0 && window != null && channel.size() > position) {
+                window = null;
+                channel.truncate(position);
+            }
+        } finally {
+            window = null;
+            HttpUtils.closeQuietly(channel, accessFile);
+        }
+    }
+}
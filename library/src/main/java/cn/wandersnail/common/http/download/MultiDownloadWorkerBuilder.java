@@ -5,6 +5,11 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 
+import cn.wandersnail.common.http.EasyHttp;
+import cn.wandersnail.common.http.SchedulerStrategy;
+import cn.wandersnail.common.http.retry.CircuitBreakerRegistry;
+import cn.wandersnail.common.http.retry.RetryPolicy;
+
 /**
  * date: 2021/4/8 14:20
  * author: zengfansheng
@@ -12,6 +17,13 @@ import java.util.UUID;
 public class MultiDownloadWorkerBuilder {
     private final List<DownloadInfo> infoList = new ArrayList<>();
     private MultiDownloadListener<DownloadInfo> listener;
+    private int segmentCount = 1;
+    private DownloadSink.Factory sinkFactory;
+    private boolean resumable;
+    private DownloadScheduler scheduler;
+    private RetryPolicy retryPolicy;
+    private CircuitBreakerRegistry circuitBreakers;
+    private SchedulerStrategy schedulerStrategy;
 
     /**
      * 添加下载文件信息
@@ -31,7 +43,20 @@ public class MultiDownloadWorkerBuilder {
      * @param savePath 文件保存路径
      */
     public MultiDownloadWorkerBuilder addFileInfo(String tag, String url, String savePath) {
+        return addFileInfo(tag, url, savePath, 0);
+    }
+
+    /**
+     * 添加下载文件信息
+     *
+     * @param tag      下载任务标识
+     * @param url      下载地址
+     * @param savePath 文件保存路径
+     * @param priority 调度优先级，值越大越先开始
+     */
+    public MultiDownloadWorkerBuilder addFileInfo(String tag, String url, String savePath, int priority) {
         DownloadInfo info = new DownloadInfo(tag, url, savePath);
+        info.setPriority(priority);
         if (!infoList.contains(info)) {
             infoList.add(info);
         }
@@ -46,7 +71,71 @@ public class MultiDownloadWorkerBuilder {
         return this;
     }
 
+    /**
+     * 设置每个文件分段下载的连接数，大于1时开启多连接分段下载
+     */
+    public MultiDownloadWorkerBuilder setSegmentCount(int segmentCount) {
+        this.segmentCount = segmentCount;
+        return this;
+    }
+
+    /**
+     * 设置数据写入方式，可使用{@link DownloadSinkType}或自定义实现
+     */
+    public MultiDownloadWorkerBuilder setSinkFactory(DownloadSink.Factory sinkFactory) {
+        this.sinkFactory = sinkFactory;
+        return this;
+    }
+
+    /**
+     * 设置是否开启持久化断点续传，开启后进程重启也可从上次进度继续下载
+     */
+    public MultiDownloadWorkerBuilder setResumable(boolean resumable) {
+        this.resumable = resumable;
+        return this;
+    }
+
+    /**
+     * 设置重试策略，不设置时按默认方式重试
+     */
+    public MultiDownloadWorkerBuilder setRetryPolicy(RetryPolicy retryPolicy) {
+        this.retryPolicy = retryPolicy;
+        return this;
+    }
+
+    /**
+     * 设置按主机熔断
+     */
+    public MultiDownloadWorkerBuilder setCircuitBreakers(CircuitBreakerRegistry circuitBreakers) {
+        this.circuitBreakers = circuitBreakers;
+        return this;
+    }
+
+    /**
+     * 设置调度策略，不设置时使用{@link SchedulerStrategy#io()}
+     */
+    public MultiDownloadWorkerBuilder setSchedulerStrategy(SchedulerStrategy schedulerStrategy) {
+        this.schedulerStrategy = schedulerStrategy;
+        return this;
+    }
+
+    /**
+     * 设置调度器，不设置时使用{@link EasyHttp#getDownloadScheduler()}
+     */
+    public MultiDownloadWorkerBuilder setScheduler(DownloadScheduler scheduler) {
+        this.scheduler = scheduler;
+        return this;
+    }
+
     public DownloadWorker<DownloadInfo> build() {
-        return new DownloadWorker<>(infoList, listener);
+        for (DownloadInfo info : infoList) {
+            info.setSegmentCount(segmentCount);
+            info.setSinkFactory(sinkFactory);
+            info.setResumable(resumable);
+            info.setRetryPolicy(retryPolicy);
+            info.setCircuitBreakers(circuitBreakers);
+            info.setSchedulerStrategy(schedulerStrategy);
+        }
+        return new DownloadWorker<>(infoList, listener, scheduler == null ? EasyHttp.getDownloadScheduler() : scheduler);
     }
 }
@@ -0,0 +1,19 @@
+package cn.wandersnail.common.http.exception;
+
+import java.io.IOException;
+
+/**
+ * 主机熔断中，请求未发出
+ * <p>
+ * date: 2026/10/18 20:12
+ * author: zengfansheng
+ */
+public class CircuitOpenException extends IOException {
+    private static final long serialVersionUID = 2937446917046436752L;
+    public final String host;
+
+    public CircuitOpenException(String host) {
+        super("Circuit breaker is open for host: " + host);
+        this.host = host;
+    }
+}
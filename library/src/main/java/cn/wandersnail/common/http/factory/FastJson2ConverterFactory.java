@@ -15,15 +15,27 @@ import retrofit2.Retrofit;
  * author: zengfansheng
  */
 public class FastJson2ConverterFactory extends Converter.Factory {
-    private FastJson2ConverterFactory() {}
+    private final Long streamingThreshold;
+
+    private FastJson2ConverterFactory(Long streamingThreshold) {
+        this.streamingThreshold = streamingThreshold;
+    }
     
     public static FastJson2ConverterFactory create() {
-        return new FastJson2ConverterFactory();
+        return new FastJson2ConverterFactory(null);
+    }
+
+    /**
+     * @param streamingThreshold 响应体长度未知或大于此值时从字节流解析，单位：字节
+     */
+    public static FastJson2ConverterFactory create(long streamingThreshold) {
+        return new FastJson2ConverterFactory(streamingThreshold);
     }
 
     @Override
     public Converter<ResponseBody, ?> responseBodyConverter(Type type, Annotation[] annotations, Retrofit retrofit) {
-        return new FastJson2ResponseBodyConverter(type);
+        return streamingThreshold == null ? new FastJson2ResponseBodyConverter(type) :
+                new FastJson2ResponseBodyConverter(type, streamingThreshold);
     }
 
     @Override
@@ -15,15 +15,27 @@ import retrofit2.Retrofit;
  * author: zengfansheng
  */
 public class FastJsonConverterFactory extends Converter.Factory {
-    private FastJsonConverterFactory() {}
+    private final Long streamingThreshold;
+
+    private FastJsonConverterFactory(Long streamingThreshold) {
+        this.streamingThreshold = streamingThreshold;
+    }
     
     public static FastJsonConverterFactory create() {
-        return new FastJsonConverterFactory();
+        return new FastJsonConverterFactory(null);
+    }
+
+    /**
+     * @param streamingThreshold 响应体长度未知或大于此值时从字节流解析，单位：字节
+     */
+    public static FastJsonConverterFactory create(long streamingThreshold) {
+        return new FastJsonConverterFactory(streamingThreshold);
     }
 
     @Override
     public Converter<ResponseBody, ?> responseBodyConverter(Type type, Annotation[] annotations, Retrofit retrofit) {
-        return new FastJsonResponseBodyConverter(type);
+        return streamingThreshold == null ? new FastJsonResponseBodyConverter(type) :
+                new FastJsonResponseBodyConverter(type, streamingThreshold);
     }
 
     @Override
@@ -15,15 +15,27 @@ import retrofit2.Retrofit;
  * author: zengfansheng
  */
 public class GsonConverterFactory extends Converter.Factory {
-    private GsonConverterFactory() {}
+    private final Long streamingThreshold;
+
+    private GsonConverterFactory(Long streamingThreshold) {
+        this.streamingThreshold = streamingThreshold;
+    }
     
     public static GsonConverterFactory create() {
-        return new GsonConverterFactory();
+        return new GsonConverterFactory(null);
+    }
+
+    /**
+     * @param streamingThreshold 响应体长度未知或大于此值时从字节流解析，单位：字节
+     */
+    public static GsonConverterFactory create(long streamingThreshold) {
+        return new GsonConverterFactory(streamingThreshold);
     }
 
     @Override
     public Converter<ResponseBody, ?> responseBodyConverter(Type type, Annotation[] annotations, Retrofit retrofit) {
-        return new GsonResponseBodyConverter(type);
+        return streamingThreshold == null ? new GsonResponseBodyConverter(type) :
+                new GsonResponseBodyConverter(type, streamingThreshold);
     }
 
     @Override
@@ -0,0 +1,169 @@
+package cn.wandersnail.common.http.metrics;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 内置的指标上报器，在内存中按主机、阶段统计耗时直方图、收发字节数、连接复用及重试次数
+ * <p>
+ * date: 2026/10/18 23:20
+ * author: zengfansheng
+ */
+public class HistogramMetricsReporter implements MetricsReporter {
+    private final Map<String, HostMetrics> hosts = new ConcurrentHashMap<>();
+
+    private HostMetrics get(String host) {
+        HostMetrics metrics = hosts.get(host);
+        return metrics != null ? metrics : hosts.computeIfAbsent(host, h -> new HostMetrics());
+    }
+
+    @Override
+    public void recordLatency(String host, Phase phase, long nanos) {
+        get(host).latencies.get(phase).record(nanos);
+    }
+
+    @Override
+    public void recordBytes(String host, long sent, long received) {
+        HostMetrics metrics = get(host);
+        metrics.bytesSent.add(sent);
+        metrics.bytesReceived.add(received);
+    }
+
+    @Override
+    public void recordConnection(String host, boolean reused) {
+        HostMetrics metrics = get(host);
+        (reused ? metrics.reusedConnections : metrics.newConnections).increment();
+    }
+
+    @Override
+    public void recordRetry(String host) {
+        get(host).retries.increment();
+    }
+
+    @Override
+    public void recordFailure(String host) {
+        get(host).failures.increment();
+    }
+
+    /**
+     * 获取指定主机的统计信息，没有记录时返回null
+     */
+    public Stats getStats(String host) {
+        HostMetrics metrics = hosts.get(host);
+        return metrics == null ? null : metrics.snapshot();
+    }
+
+    /**
+     * 获取所有主机的统计信息
+     */
+    public Map<String, Stats> getStats() {
+        Map<String, Stats> map = new HashMap<>();
+        for (Map.Entry<String, HostMetrics> entry : hosts.entrySet()) {
+            map.put(entry.getKey(), entry.getValue().snapshot());
+        }
+        return map;
+    }
+
+    /**
+     * 清空统计
+     */
+    public void reset() {
+        hosts.clear();
+    }
+
+    private static class HostMetrics {
+        final Map<Phase, LatencyHistogram> latencies = new EnumMap<>(Phase.class);
+        final LongAdder bytesSent = new LongAdder();
+        final LongAdder bytesReceived = new LongAdder();
+        final LongAdder reusedConnections = new LongAdder();
+        final LongAdder newConnections = new LongAdder();
+        final LongAdder retries = new LongAdder();
+        final LongAdder failures = new LongAdder();
+
+        HostMetrics() {
+            //创建后不再修改，读取无需同步
+            for (Phase phase : Phase.values()) {
+                latencies.put(phase, new LatencyHistogram());
+            }
+        }
+
+        Stats snapshot() {
+            Map<Phase, LatencyHistogram.Snapshot> map = new EnumMap<>(Phase.class);
+            for (Map.Entry<Phase, LatencyHistogram> entry : latencies.entrySet()) {
+                map.put(entry.getKey(), entry.getValue().snapshot());
+            }
+            return new Stats(Collections.unmodifiableMap(map), bytesSent.sum(), bytesReceived.sum(),
+                    reusedConnections.sum(), newConnections.sum(), retries.sum(), failures.sum());
+        }
+    }
+
+    /**
+     * 单个主机的统计信息快照
+     */
+    public static class Stats {
+        /**
+         * 各阶段耗时
+         */
+        public final Map<Phase, LatencyHistogram.Snapshot> latencies;
+        /**
+         * 发送的字节数
+         */
+        public final long bytesSent;
+        /**
+         * 接收的字节数
+         */
+        public final long bytesReceived;
+        /**
+         * 复用连接的次数
+         */
+        public final long reusedConnectionCount;
+        /**
+         * 新建连接的次数
+         */
+        public final long newConnectionCount;
+        /**
+         * 重试次数
+         */
+        public final long retryCount;
+        /**
+         * 失败的调用次数
+         */
+        public final long failureCount;
+
+        Stats(Map<Phase, LatencyHistogram.Snapshot> latencies, long bytesSent, long bytesReceived,
+              long reusedConnectionCount, long newConnectionCount, long retryCount, long failureCount) {
+            this.latencies = latencies;
+            this.bytesSent = bytesSent;
+            this.bytesReceived = bytesReceived;
+            this.reusedConnectionCount = reusedConnectionCount;
+            this.newConnectionCount = newConnectionCount;
+            this.retryCount = retryCount;
+            this.failureCount = failureCount;
+        }
+
+        /**
+         * 连接复用率
+         */
+        public double connectionReuseRate() {
+            long total = reusedConnectionCount + newConnectionCount;
+            return total == 0 ? 0 : (double) reusedConnectionCount / total;
+        }
+
+        @Override
+        public String toString() {
+            return "Stats{" +
+                    "latencies=" + latencies +
+                    ", bytesSent=" + bytesSent +
+                    ", bytesReceived=" + bytesReceived +
+                    ", reusedConnectionCount=" + reusedConnectionCount +
+                    ", newConnectionCount=" + newConnectionCount +
+                    ", retryCount=" + retryCount +
+                    ", failureCount=" + failureCount +
+                    '}';
+        }
+    }
+}
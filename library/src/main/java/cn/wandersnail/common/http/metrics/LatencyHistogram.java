@@ -0,0 +1,126 @@
+package cn.wandersnail.common.http.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 无锁的耗时直方图，桶按微秒以2的幂划分，分位数取所在桶的上界，误差在2倍以内
+ * <p>
+ * date: 2026/10/18 23:15
+ * author: zengfansheng
+ */
+public class LatencyHistogram {
+    private static final int BUCKET_COUNT = 40;
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    /**
+     * 记录一次耗时
+     *
+     * @param nanos 耗时，单位：纳秒
+     */
+    public void record(long nanos) {
+        if (nanos < 0) {
+            return;
+        }
+        long micros = nanos / 1000;
+        //第i个桶存放[2^(i-1), 2^i)微秒
+        int index = Math.min(BUCKET_COUNT - 1, 64 - Long.numberOfLeadingZeros(micros));
+        buckets.incrementAndGet(index);
+        count.increment();
+        totalNanos.add(nanos);
+        maxNanos.accumulate(nanos);
+    }
+
+    /**
+     * 获取快照
+     */
+    public Snapshot snapshot() {
+        long[] counts = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] = buckets.get(i);
+        }
+        return new Snapshot(counts, count.sum(), totalNanos.sum(), maxNanos.get());
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            buckets.set(i, 0);
+        }
+        count.reset();
+        totalNanos.reset();
+        maxNanos.reset();
+    }
+
+    /**
+     * 直方图快照
+     */
+    public static class Snapshot {
+        private final long[] buckets;
+        /**
+         * 记录次数
+         */
+        public final long count;
+        /**
+         * 总耗时，单位：纳秒
+         */
+        public final long totalNanos;
+        /**
+         * 最大耗时，单位：纳秒
+         */
+        public final long maxNanos;
+
+        Snapshot(long[] buckets, long count, long totalNanos, long maxNanos) {
+            this.buckets = buckets;
+            this.count = count;
+            this.totalNanos = totalNanos;
+            this.maxNanos = maxNanos;
+        }
+
+        /**
+         * 平均耗时，单位：纳秒
+         */
+        public long mean() {
+            return count == 0 ? 0 : totalNanos / count;
+        }
+
+        /**
+         * 分位数耗时，单位：纳秒
+         *
+         * @param percentile 0~1，如0.99
+         */
+        public long percentile(double percentile) {
+            long total = 0;
+            for (long c : buckets) {
+                total += c;
+            }
+            if (total == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(Math.max(0, Math.min(1, percentile)) * total);
+            long seen = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                seen += buckets[i];
+                if (seen >= Math.max(1, rank)) {
+                    long upper = i == 0 ? 1000 : (1L << i) * 1000;
+                    return Math.min(upper, maxNanos);
+                }
+            }
+            return maxNanos;
+        }
+
+        @Override
+        public String toString() {
+            return "Snapshot{" +
+                    "count=" + count +
+                    ", mean=" + mean() / 1000 + "us" +
+                    ", p50=" + percentile(0.5) / 1000 + "us" +
+                    ", p99=" + percentile(0.99) / 1000 + "us" +
+                    ", max=" + maxNanos / 1000 + "us" +
+                    '}';
+        }
+    }
+}
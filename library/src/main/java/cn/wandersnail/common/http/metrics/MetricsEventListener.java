@@ -0,0 +1,177 @@
+package cn.wandersnail.common.http.metrics;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.List;
+
+import cn.wandersnail.common.http.EasyHttp;
+import okhttp3.Call;
+import okhttp3.Connection;
+import okhttp3.EventListener;
+import okhttp3.Handshake;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * 通过OkHttp事件采集各阶段耗时、收发字节数及连接复用情况，上报给{@link EasyHttp#getMetricsReporter()}。
+ * 每个调用一个实例，同一调用的事件顺序回调，无需同步
+ * <p>
+ * date: 2026/10/18 23:10
+ * author: zengfansheng
+ */
+public class MetricsEventListener extends EventListener {
+    /**
+     * 未设置上报器时返回{@link EventListener#NONE}，不产生额外开销
+     */
+    public static final EventListener.Factory FACTORY = call -> {
+        MetricsReporter reporter = EasyHttp.getMetricsReporter();
+        return reporter.isEnabled() ? new MetricsEventListener(reporter, call.request().url().host()) : NONE;
+    };
+    private final MetricsReporter reporter;
+    private final String host;
+    private long callStart;
+    private long dnsStart;
+    private long connectStart;
+    private long secureConnectStart;
+    private long requestStart;
+    private long requestEnd;
+    private long responseBodyStart;
+    private long bytesSent;
+    private long bytesReceived;
+    private boolean connecting;
+    //System.nanoTime()可能为负数或0，不能用时间戳的值判断是否已开始
+    private boolean attemptStarted;
+    private boolean requestSent;
+
+    public MetricsEventListener(MetricsReporter reporter, String host) {
+        this.reporter = reporter;
+        this.host = host;
+    }
+
+    //各阶段的结束事件总在开始事件之后回调
+    private void record(Phase phase, long start) {
+        reporter.recordLatency(host, phase, System.nanoTime() - start);
+    }
+
+    @Override
+    public void callStart(Call call) {
+        callStart = System.nanoTime();
+        attemptStarted = true;
+    }
+
+    //重试时每次尝试都会结束一次，下一次尝试从获取连接开始计时
+    private void beginAttempt() {
+        if (!attemptStarted) {
+            callStart = System.nanoTime();
+            attemptStarted = true;
+        }
+    }
+
+    @Override
+    public void dnsStart(Call call, String domainName) {
+        beginAttempt();
+        dnsStart = System.nanoTime();
+    }
+
+    @Override
+    public void dnsEnd(Call call, String domainName, List<InetAddress> inetAddressList) {
+        record(Phase.DNS, dnsStart);
+    }
+
+    @Override
+    public void connectStart(Call call, InetSocketAddress inetSocketAddress, Proxy proxy) {
+        beginAttempt();
+        connectStart = System.nanoTime();
+        connecting = true;
+    }
+
+    @Override
+    public void secureConnectStart(Call call) {
+        secureConnectStart = System.nanoTime();
+    }
+
+    @Override
+    public void secureConnectEnd(Call call, Handshake handshake) {
+        record(Phase.TLS, secureConnectStart);
+    }
+
+    @Override
+    public void connectEnd(Call call, InetSocketAddress inetSocketAddress, Proxy proxy, Protocol protocol) {
+        record(Phase.CONNECT, connectStart);
+    }
+
+    @Override
+    public void connectionAcquired(Call call, Connection connection) {
+        beginAttempt();
+        //获取前没有新建连接即为复用
+        reporter.recordConnection(host, !connecting);
+        connecting = false;
+    }
+
+    @Override
+    public void requestHeadersStart(Call call) {
+        requestStart = System.nanoTime();
+        requestSent = true;
+    }
+
+    @Override
+    public void requestHeadersEnd(Call call, Request request) {
+        bytesSent += request.headers().byteCount();
+        requestEnd = System.nanoTime();
+    }
+
+    @Override
+    public void requestBodyEnd(Call call, long byteCount) {
+        bytesSent += byteCount;
+        requestEnd = System.nanoTime();
+    }
+
+    @Override
+    public void responseHeadersStart(Call call) {
+        if (requestSent) {
+            reporter.recordLatency(host, Phase.REQUEST, requestEnd - requestStart);
+            record(Phase.TTFB, requestEnd);
+        }
+    }
+
+    @Override
+    public void responseHeadersEnd(Call call, Response response) {
+        bytesReceived += response.headers().byteCount();
+    }
+
+    @Override
+    public void responseBodyStart(Call call) {
+        responseBodyStart = System.nanoTime();
+    }
+
+    @Override
+    public void responseBodyEnd(Call call, long byteCount) {
+        bytesReceived += byteCount;
+        record(Phase.RESPONSE_BODY, responseBodyStart);
+    }
+
+    @Override
+    public void callEnd(Call call) {
+        finish();
+    }
+
+    @Override
+    public void callFailed(Call call, IOException ioe) {
+        reporter.recordFailure(host);
+        finish();
+    }
+
+    private void finish() {
+        if (attemptStarted) {
+            record(Phase.CALL, callStart);
+        }
+        reporter.recordBytes(host, bytesSent, bytesReceived);
+        attemptStarted = false;
+        requestSent = false;
+        bytesSent = 0;
+        bytesReceived = 0;
+    }
+}
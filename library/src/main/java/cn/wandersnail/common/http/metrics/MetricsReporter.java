@@ -0,0 +1,67 @@
+package cn.wandersnail.common.http.metrics;
+
+/**
+ * 请求指标上报接口，可对接Micrometer等指标库。方法在请求线程中调用，实现需线程安全且不应阻塞
+ * <p>
+ * date: 2026/10/18 23:05
+ * author: zengfansheng
+ */
+public interface MetricsReporter {
+    /**
+     * 不上报，默认值。使用它时不会创建事件监听，也不计时
+     */
+    MetricsReporter NOOP = new MetricsReporter() {
+        @Override
+        public boolean isEnabled() {
+            return false;
+        }
+    };
+
+    /**
+     * 是否需要采集，返回false时不采集
+     */
+    default boolean isEnabled() {
+        return true;
+    }
+
+    /**
+     * 记录某个阶段的耗时
+     *
+     * @param host  主机
+     * @param phase 阶段
+     * @param nanos 耗时，单位：纳秒
+     */
+    default void recordLatency(String host, Phase phase, long nanos) {
+    }
+
+    /**
+     * 记录一次尝试收发的字节数，包含请求头和响应头
+     *
+     * @param host     主机
+     * @param sent     发送的字节数
+     * @param received 接收的字节数
+     */
+    default void recordBytes(String host, long sent, long received) {
+    }
+
+    /**
+     * 记录获取连接
+     *
+     * @param host   主机
+     * @param reused 是否复用连接池中的连接
+     */
+    default void recordConnection(String host, boolean reused) {
+    }
+
+    /**
+     * 记录一次重试
+     */
+    default void recordRetry(String host) {
+    }
+
+    /**
+     * 记录一次失败的调用
+     */
+    default void recordFailure(String host) {
+    }
+}
@@ -0,0 +1,42 @@
+package cn.wandersnail.common.http.metrics;
+
+/**
+ * 请求的各个阶段
+ * <p>
+ * date: 2026/10/18 23:05
+ * author: zengfansheng
+ */
+public enum Phase {
+    /**
+     * 一次尝试，从开始到响应体读完或失败，重试时每次尝试分别记录
+     */
+    CALL,
+    /**
+     * DNS解析
+     */
+    DNS,
+    /**
+     * 建立连接，包含TLS握手
+     */
+    CONNECT,
+    /**
+     * TLS握手
+     */
+    TLS,
+    /**
+     * 发送请求头及请求体
+     */
+    REQUEST,
+    /**
+     * 首字节时间，从请求发送完到开始收到响应头
+     */
+    TTFB,
+    /**
+     * 读取响应体，与转换同时进行时包含转换耗时
+     */
+    RESPONSE_BODY,
+    /**
+     * 将响应体转换为对象
+     */
+    CONVERT
+}
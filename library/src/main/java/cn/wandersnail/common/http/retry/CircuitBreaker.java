@@ -0,0 +1,88 @@
+package cn.wandersnail.common.http.retry;
+
+/**
+ * 单个主机的熔断器。连续失败达到阈值后打开，打开期间直接失败不发请求，
+ * 超过打开时长后放行一个探测请求，成功则关闭，失败则重新打开
+ * <p>
+ * date: 2026/10/18 20:05
+ * author: zengfansheng
+ */
+public class CircuitBreaker {
+    private final int failureThreshold;
+    private final long openDurationMillis;
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedTime;
+    private boolean probing;//半开状态下是否已放行探测请求
+
+    /**
+     * @param failureThreshold   连续失败多少次后打开
+     * @param openDurationMillis 打开后多久允许探测，单位：毫秒
+     */
+    public CircuitBreaker(int failureThreshold, long openDurationMillis) {
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openDurationMillis = openDurationMillis;
+    }
+
+    /**
+     * 是否允许发出请求
+     */
+    public synchronized boolean tryAcquire() {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (System.currentTimeMillis() - openedTime < openDurationMillis) {
+                    return false;
+                }
+                state = State.HALF_OPEN;
+                probing = true;
+                return true;
+            default:
+                //半开时只放行一个探测请求
+                if (probing) {
+                    return false;
+                }
+                probing = true;
+                return true;
+        }
+    }
+
+    /**
+     * 请求成功
+     */
+    public synchronized void onSuccess() {
+        consecutiveFailures = 0;
+        probing = false;
+        state = State.CLOSED;
+    }
+
+    /**
+     * 请求失败，如网络异常或5xx响应
+     */
+    public synchronized void onFailure() {
+        probing = false;
+        if (state == State.HALF_OPEN || ++consecutiveFailures >= failureThreshold) {
+            state = State.OPEN;
+            openedTime = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * 请求未得出结果，如被取消，只归还半开状态下的探测名额，不改变状态
+     */
+    public synchronized void release() {
+        probing = false;
+    }
+
+    public synchronized State getState() {
+        if (state == State.OPEN && System.currentTimeMillis() - openedTime >= openDurationMillis) {
+            return State.HALF_OPEN;
+        }
+        return state;
+    }
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+}
@@ -0,0 +1,47 @@
+package cn.wandersnail.common.http.retry;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按主机管理熔断器
+ * <p>
+ * date: 2026/10/18 20:10
+ * author: zengfansheng
+ */
+public class CircuitBreakerRegistry {
+    private final Map<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+    private final int failureThreshold;
+    private final long openDurationMillis;
+
+    public CircuitBreakerRegistry() {
+        this(5, 30000);
+    }
+
+    /**
+     * @param failureThreshold   连续失败多少次后打开
+     * @param openDurationMillis 打开后多久允许探测，单位：毫秒
+     */
+    public CircuitBreakerRegistry(int failureThreshold, long openDurationMillis) {
+        this.failureThreshold = failureThreshold;
+        this.openDurationMillis = openDurationMillis;
+    }
+
+    /**
+     * 获取主机的熔断器
+     */
+    public CircuitBreaker get(String host) {
+        CircuitBreaker breaker = breakers.get(host);
+        if (breaker == null) {
+            breaker = breakers.computeIfAbsent(host, h -> new CircuitBreaker(failureThreshold, openDurationMillis));
+        }
+        return breaker;
+    }
+
+    /**
+     * 移除所有熔断器，全部恢复为关闭状态
+     */
+    public void reset() {
+        breakers.clear();
+    }
+}
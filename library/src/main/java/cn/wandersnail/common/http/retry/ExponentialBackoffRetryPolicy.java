@@ -0,0 +1,173 @@
+package cn.wandersnail.common.http.retry;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+import javax.net.ssl.SSLPeerUnverifiedException;
+
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * 指数退避加全抖动的重试策略。第n次重试的等待时长在[0, min(maxDelay, baseDelay * 2^(n-1))]中随机，
+ * 多个客户端不会同时重试。响应带Retry-After时按其等待
+ * <p>
+ * date: 2026/10/18 19:58
+ * author: zengfansheng
+ */
+public class ExponentialBackoffRetryPolicy implements RetryPolicy {
+    private int maxRetries = 3;
+    private long baseDelayMillis = 500;
+    private long maxDelayMillis = 30000;
+    private long maxRetryAfterMillis = 60000;
+    private boolean retryNonIdempotent;
+    private RetryBudget retryBudget;
+    private final Set<Integer> retryableStatusCodes = new HashSet<>();
+
+    public ExponentialBackoffRetryPolicy() {
+        retryableStatusCodes.add(408);
+        retryableStatusCodes.add(429);
+        retryableStatusCodes.add(500);
+        retryableStatusCodes.add(502);
+        retryableStatusCodes.add(503);
+        retryableStatusCodes.add(504);
+    }
+
+    /**
+     * 最大重试次数，默认3
+     */
+    public ExponentialBackoffRetryPolicy setMaxRetries(int maxRetries) {
+        this.maxRetries = maxRetries;
+        return this;
+    }
+
+    /**
+     * 退避的基础时长，默认500毫秒
+     */
+    public ExponentialBackoffRetryPolicy setBaseDelay(long baseDelayMillis) {
+        this.baseDelayMillis = baseDelayMillis;
+        return this;
+    }
+
+    /**
+     * 退避时长上限，默认30秒
+     */
+    public ExponentialBackoffRetryPolicy setMaxDelay(long maxDelayMillis) {
+        this.maxDelayMillis = maxDelayMillis;
+        return this;
+    }
+
+    /**
+     * Retry-After允许的最长等待，超过则不再重试，默认60秒。等待期间会占用请求线程，
+     * 设置了callTimeout时等待不会超过剩余时间
+     */
+    public ExponentialBackoffRetryPolicy setMaxRetryAfter(long maxRetryAfterMillis) {
+        this.maxRetryAfterMillis = maxRetryAfterMillis;
+        return this;
+    }
+
+    /**
+     * 是否重试POST等非幂等请求，默认否。请求体须可重复写入
+     */
+    public ExponentialBackoffRetryPolicy setRetryNonIdempotent(boolean retryNonIdempotent) {
+        this.retryNonIdempotent = retryNonIdempotent;
+        return this;
+    }
+
+    /**
+     * 重试预算，多个策略可共用同一个预算
+     */
+    public ExponentialBackoffRetryPolicy setRetryBudget(RetryBudget retryBudget) {
+        this.retryBudget = retryBudget;
+        return this;
+    }
+
+    /**
+     * 需要重试的响应码，默认408、429、500、502、503、504
+     */
+    public ExponentialBackoffRetryPolicy setRetryableStatusCodes(int... codes) {
+        retryableStatusCodes.clear();
+        for (int code : codes) {
+            retryableStatusCodes.add(code);
+        }
+        return this;
+    }
+
+    @Override
+    public boolean isRetryable(Request request) {
+        return retryNonIdempotent || RetryPolicy.super.isRetryable(request);
+    }
+
+    @Override
+    public void onRequest(Request request) {
+        if (retryBudget != null) {
+            retryBudget.onRequest();
+        }
+    }
+
+    @Override
+    public long getRetryDelay(int retryCount, Request request, Response response, IOException error) {
+        if (retryCount > maxRetries) {
+            return -1;
+        }
+        long delay;
+        if (response != null) {
+            if (!retryableStatusCodes.contains(response.code())) {
+                return -1;
+            }
+            long retryAfter = getRetryAfter(response);
+            if (retryAfter > maxRetryAfterMillis) {
+                return -1;
+            }
+            delay = retryAfter >= 0 ? retryAfter : backoff(retryCount);
+        } else if (isRetryableError(error)) {
+            delay = backoff(retryCount);
+        } else {
+            return -1;
+        }
+        if (retryBudget != null && !retryBudget.tryAcquire()) {
+            return -1;
+        }
+        return delay;
+    }
+
+    //全抖动：在[0, 指数上限]内均匀随机
+    private long backoff(int retryCount) {
+        long cap = baseDelayMillis << Math.min(retryCount - 1, 30);
+        if (cap <= 0 || cap > maxDelayMillis) {
+            cap = maxDelayMillis;
+        }
+        return cap <= 0 ? 0 : ThreadLocalRandom.current().nextLong(cap + 1);
+    }
+
+    private boolean isRetryableError(IOException error) {
+        //主动取消及证书错误不重试，超时可重试
+        if (error instanceof InterruptedIOException) {
+            return error instanceof SocketTimeoutException;
+        }
+        return !(error instanceof SSLPeerUnverifiedException);
+    }
+
+    /**
+     * 解析Retry-After，支持秒数和HTTP日期
+     *
+     * @return 等待时长，单位：毫秒，没有时返回-1
+     */
+    static long getRetryAfter(Response response) {
+        String value = response.header("Retry-After");
+        if (value == null) {
+            return -1;
+        }
+        try {
+            return Math.max(0, Long.parseLong(value.trim()) * 1000);
+        } catch (NumberFormatException ignore) {
+        }
+        Date date = response.headers().getDate("Retry-After");
+        return date == null ? -1 : Math.max(0, date.getTime() - System.currentTimeMillis());
+    }
+}
@@ -0,0 +1,62 @@
+package cn.wandersnail.common.http.retry;
+
+/**
+ * 重试预算。限制一个时间窗口内重试数占请求数的比例，后端故障时避免重试把请求量放大数倍
+ * <p>
+ * date: 2026/10/18 19:54
+ * author: zengfansheng
+ */
+public class RetryBudget {
+    private final double ratio;
+    private final int minRetries;
+    private final long windowMillis;
+    private long windowStart;
+    private long requestCount;
+    private long retryCount;
+
+    public RetryBudget() {
+        this(0.1, 10, 10000);
+    }
+
+    /**
+     * @param ratio        窗口内允许的重试数与请求数之比
+     * @param minRetries   窗口内无论请求多少都允许的重试数
+     * @param windowMillis 窗口时长，单位：毫秒
+     */
+    public RetryBudget(double ratio, int minRetries, long windowMillis) {
+        this.ratio = ratio;
+        this.minRetries = minRetries;
+        this.windowMillis = windowMillis;
+    }
+
+    private void rollWindow() {
+        long now = System.currentTimeMillis();
+        if (now - windowStart >= windowMillis) {
+            windowStart = now;
+            requestCount = 0;
+            retryCount = 0;
+        }
+    }
+
+    /**
+     * 发出一次请求（不含重试）时调用
+     */
+    public synchronized void onRequest() {
+        rollWindow();
+        requestCount++;
+    }
+
+    /**
+     * 尝试占用一次重试
+     *
+     * @return 预算不足返回false
+     */
+    public synchronized boolean tryAcquire() {
+        rollWindow();
+        if (retryCount < minRetries + ratio * requestCount) {
+            retryCount++;
+            return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,100 @@
+package cn.wandersnail.common.http.retry;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.TimeUnit;
+
+import cn.wandersnail.common.http.EasyHttp;
+import cn.wandersnail.common.http.exception.CircuitOpenException;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * 按重试策略重试请求，并按主机熔断。在拦截器中重试，同步、异步请求及下载上传行为一致
+ * <p>
+ * date: 2026/10/18 20:15
+ * author: zengfansheng
+ */
+public class RetryInterceptor implements Interceptor {
+    private final RetryPolicy retryPolicy;
+    private final CircuitBreakerRegistry circuitBreakers;
+
+    /**
+     * @param retryPolicy     重试策略，为null时不重试
+     * @param circuitBreakers 熔断器，为null时不熔断
+     */
+    public RetryInterceptor(RetryPolicy retryPolicy, CircuitBreakerRegistry circuitBreakers) {
+        this.retryPolicy = retryPolicy;
+        this.circuitBreakers = circuitBreakers;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        String host = request.url().host();
+        CircuitBreaker breaker = circuitBreakers == null ? null : circuitBreakers.get(host);
+        boolean retryable = retryPolicy != null && retryPolicy.isRetryable(request);
+        if (retryable) {
+            retryPolicy.onRequest(request);
+        }
+        //设置了整体超时时，等待重试不超过剩余时间
+        long timeoutNanos = chain.call().timeout().timeoutNanos();
+        long deadline = timeoutNanos > 0 ? System.nanoTime() + timeoutNanos : 0;
+        int retryCount = 0;
+        while (true) {
+            if (breaker != null && !breaker.tryAcquire()) {
+                throw new CircuitOpenException(host);
+            }
+            Response response = null;
+            IOException error = null;
+            try {
+                response = chain.proceed(request);
+            } catch (IOException e) {
+                error = e;
+            } finally {
+                if (breaker != null) {
+                    //主动取消不代表主机故障
+                    boolean canceled = chain.call().isCanceled();
+                    if (!canceled && (error != null || (response != null && response.code() >= 500))) {
+                        breaker.onFailure();
+                    } else if (!canceled && response != null) {
+                        breaker.onSuccess();
+                    } else {
+                        //取消或抛出运行时异常时归还探测名额，否则半开状态无法恢复
+                        breaker.release();
+                    }
+                }
+            }
+            if (!retryable || chain.call().isCanceled()) {
+                return result(response, error);
+            }
+            long delay = retryPolicy.getRetryDelay(++retryCount, request, response, error);
+            if (delay < 0 || (deadline != 0 && System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delay) >= deadline)) {
+                return result(response, error);
+            }
+            if (response != null) {
+                response.close();
+            }
+            if (delay > 0) {
+                try {
+                    Thread.sleep(delay);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while waiting to retry");
+                }
+            }
+            if (chain.call().isCanceled()) {
+                throw new IOException("Canceled");
+            }
+            EasyHttp.getMetricsReporter().recordRetry(host);
+        }
+    }
+
+    private static Response result(Response response, IOException error) throws IOException {
+        if (error != null) {
+            throw error;
+        }
+        return response;
+    }
+}
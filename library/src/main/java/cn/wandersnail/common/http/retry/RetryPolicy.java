@@ -0,0 +1,47 @@
+package cn.wandersnail.common.http.retry;
+
+import java.io.IOException;
+
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * 重试策略
+ * <p>
+ * date: 2026/10/18 19:50
+ * author: zengfansheng
+ */
+public interface RetryPolicy {
+    /**
+     * 请求是否允许重试，默认只重试幂等的请求
+     */
+    default boolean isRetryable(Request request) {
+        switch (request.method()) {
+            case "GET":
+            case "HEAD":
+            case "PUT":
+            case "DELETE":
+            case "OPTIONS":
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * 发出请求时调用，不含重试，可用于统计重试预算
+     */
+    default void onRequest(Request request) {
+    }
+
+    /**
+     * 获取重试前的等待时长
+     *
+     * @param retryCount 第几次重试，从1开始
+     * @param request    请求
+     * @param response   响应，请求异常时为null
+     * @param error      请求异常，有响应时为null
+     * @return 等待时长，单位：毫秒，小于0表示不再重试
+     */
+    long getRetryDelay(int retryCount, Request request, Response response, IOException error);
+}
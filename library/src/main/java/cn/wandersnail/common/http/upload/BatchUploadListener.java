@@ -0,0 +1,31 @@
+package cn.wandersnail.common.http.upload;
+
+import java.util.List;
+
+import cn.wandersnail.common.http.TaskInfo;
+import cn.wandersnail.common.http.callback.MultiProgressListener;
+
+/**
+ * 批量上传监听
+ * <p>
+ * date: 2026/10/18 19:12
+ * author: zengfansheng
+ */
+public interface BatchUploadListener<T> extends UploadProgressListener, MultiProgressListener {
+    /**
+     * 整批任务状态改变
+     */
+    void onStateChange(TaskInfo.State state, Throwable t);
+
+    /**
+     * 单个文件上传结束，成功或重试后仍失败
+     */
+    default void onFileResult(BatchUploadResult<T> result) {}
+
+    /**
+     * 整批结束
+     *
+     * @param results 各文件的结果，顺序与添加的顺序一致
+     */
+    default void onComplete(List<BatchUploadResult<T>> results) {}
+}
@@ -0,0 +1,54 @@
+package cn.wandersnail.common.http.upload;
+
+import okhttp3.ResponseBody;
+import retrofit2.Response;
+
+/**
+ * 批量上传中单个文件的结果
+ * <p>
+ * date: 2026/10/18 19:10
+ * author: zengfansheng
+ */
+public class BatchUploadResult<T> {
+    /**
+     * 上传的文件
+     */
+    public final FileInfo fileInfo;
+    /**
+     * 请求次数，包含重试
+     */
+    public final int attempts;
+    /**
+     * 最后一次的原始响应，网络错误时为null
+     */
+    public final Response<ResponseBody> response;
+    /**
+     * 转换过的响应数据
+     */
+    public final T convertedResponse;
+    /**
+     * 转换异常，上传成功但转换失败时不为null
+     */
+    public final Throwable convertError;
+    /**
+     * 失败原因，成功时为null
+     */
+    public final Throwable error;
+
+    BatchUploadResult(FileInfo fileInfo, int attempts, Response<ResponseBody> response, T convertedResponse,
+                      Throwable convertError, Throwable error) {
+        this.fileInfo = fileInfo;
+        this.attempts = attempts;
+        this.response = response;
+        this.convertedResponse = convertedResponse;
+        this.convertError = convertError;
+        this.error = error;
+    }
+
+    /**
+     * 是否上传成功
+     */
+    public boolean isSuccessful() {
+        return error == null;
+    }
+}
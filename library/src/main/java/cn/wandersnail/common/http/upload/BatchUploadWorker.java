@@ -0,0 +1,198 @@
+package cn.wandersnail.common.http.upload;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import cn.wandersnail.common.http.EasyHttp;
+import cn.wandersnail.common.http.ProgressAggregator;
+import cn.wandersnail.common.http.TaskInfo;
+import io.reactivex.Observable;
+import io.reactivex.disposables.Disposable;
+import okhttp3.MediaType;
+import okhttp3.MultipartBody;
+import okhttp3.ResponseBody;
+import retrofit2.HttpException;
+import retrofit2.Response;
+import retrofit2.Retrofit;
+import retrofit2.adapter.rxjava2.RxJava2CallAdapterFactory;
+
+/**
+ * 批量上传执行。每个文件单独一个请求，限制同时进行的请求数，失败的文件单独重试，
+ * 大量小文件可同时占用多个连接
+ * <p>
+ * date: 2026/10/18 19:15
+ * author: zengfansheng
+ */
+public class BatchUploadWorker<T> implements Disposable {
+    private final UploadInfo<T> info;
+    private final BatchUploadListener<T> listener;
+    private final UploadService service;
+    private final int maxRetries;
+    private final AtomicReferenceArray<BatchUploadResult<T>> results;
+    private final Disposable disposable;
+    private int successNum;
+    private int failureNum;
+
+    /**
+     * @param info        上传信息，每个文件单独请求，携带相同的参数和请求头
+     * @param maxInFlight 同时进行的最大请求数
+     * @param maxRetries  每个文件失败后的最大重试次数，只对设置了{@link FileInfo#setFile(java.io.File)}的有效。
+     *                    只重试网络异常及5xx、408、429响应
+     */
+    public BatchUploadWorker(UploadInfo<T> info, int maxInFlight, int maxRetries, BatchUploadListener<T> listener) {
+        this.info = info;
+        this.listener = listener;
+        this.maxRetries = Math.max(0, maxRetries);
+        if (info.client != null) {
+            service = new Retrofit.Builder()
+                    .client(info.client)
+                    .addCallAdapterFactory(RxJava2CallAdapterFactory.create())
+                    .baseUrl(info.getBaseUrl())
+                    .build()
+                    .create(UploadService.class);
+        } else {
+            service = EasyHttp.getClientRegistry().getService(info.getBaseUrl(), 0, false,
+                    info.getRetryPolicy(), info.getCircuitBreakers(), UploadService.class);
+        }
+        List<FileInfo> fileInfos = info.fileInfos == null ? Collections.emptyList() : info.fileInfos;
+        int total = fileInfos.size();
+        results = new AtomicReferenceArray<>(total);
+        updateState(TaskInfo.State.START, null);
+        disposable = Observable.range(0, total)
+                .flatMap(i -> uploadFile(i, fileInfos.get(i)), Math.max(1, maxInFlight))
+                .subscribeOn(info.getSchedulerStrategy().getSubscribeScheduler())
+                .subscribe(result -> {
+                    if (result.isSuccessful()) {
+                        successNum++;
+                    } else {
+                        failureNum++;
+                    }
+                    if (listener != null) {
+                        listener.onFileResult(result);
+                        listener.onTotalProgress(successNum, failureNum, total);
+                    }
+                }, e -> updateState(TaskInfo.State.ERROR, e), () -> {
+                    updateState(TaskInfo.State.COMPLETED, null);
+                    if (listener != null) {
+                        List<BatchUploadResult<T>> list = new ArrayList<>(total);
+                        for (int i = 0; i < total; i++) {
+                            list.add(results.get(i));
+                        }
+                        listener.onComplete(list);
+                    }
+                });
+    }
+
+    private void updateState(TaskInfo.State state, Throwable t) {
+        info.state = state;
+        if (listener != null) {
+            listener.onStateChange(state, t);
+        }
+    }
+
+    //在进度汇聚器的定时器线程执行
+    private void deliverProgress(String filename, long progress, long max) {
+        if (info.state == TaskInfo.State.START || info.state == TaskInfo.State.ONGOING) {
+            if (info.state != TaskInfo.State.ONGOING) {
+                updateState(TaskInfo.State.ONGOING, null);
+            }
+            if (listener != null) {
+                listener.onProgress(filename, progress, max);
+            }
+        }
+    }
+
+    private Observable<BatchUploadResult<T>> uploadFile(int index, FileInfo fileInfo) {
+        AtomicInteger attempts = new AtomicInteger();
+        ProgressAggregator.Tracker tracker = EasyHttp.getProgressAggregator()
+                .newTracker((progress, max) -> deliverProgress(fileInfo.getFilename(), progress, max));
+        //输入流只能读一次，无法重试
+        int retries = fileInfo.getFile() == null ? 0 : maxRetries;
+        return Observable.defer(() -> {
+            attempts.incrementAndGet();
+            MultipartBody body = createBody(fileInfo, (name, progress, max) -> tracker.update(progress, max));
+            if (info.headers == null || info.headers.isEmpty()) {
+                return service.upload(info.url, body);
+            } else {
+                return service.upload(info.url, body, info.headers);
+            }
+        }).subscribeOn(info.getSchedulerStrategy().getSubscribeScheduler()).map(response -> {
+            if (!response.isSuccessful()) {
+                throw new HttpException(response);
+            }
+            return response;
+        }).retry(retries, BatchUploadWorker::isRetryable).map(response -> {
+            T convertedBody = null;
+            Throwable convertError = null;
+            if (info.converter != null && response.body() != null) {
+                try {
+                    convertedBody = info.converter.convert(response.body());
+                } catch (Throwable t) {
+                    convertError = t;
+                }
+            }
+            return new BatchUploadResult<>(fileInfo, attempts.get(), response, convertedBody, convertError, null);
+        }).onErrorReturn(e -> {
+            Response<ResponseBody> response = e instanceof HttpException ? responseOf((HttpException) e) : null;
+            return new BatchUploadResult<>(fileInfo, attempts.get(), response, null, null, e);
+        }).doOnNext(result -> results.set(index, result))
+                .doFinally(tracker::close);
+    }
+
+    //其他4xx重试也不会成功
+    private static boolean isRetryable(Throwable e) {
+        if (e instanceof HttpException) {
+            int code = ((HttpException) e).code();
+            return code >= 500 || code == 408 || code == 429;
+        }
+        return e instanceof IOException;
+    }
+
+    //HttpException由上面的map抛出，响应体类型一定是ResponseBody
+    @SuppressWarnings("unchecked")
+    private static Response<ResponseBody> responseOf(HttpException e) {
+        return (Response<ResponseBody>) e.response();
+    }
+
+    private MultipartBody createBody(FileInfo fileInfo, UploadProgressListener progressListener) throws UnsupportedEncodingException {
+        MultipartBody.Builder bodyBuilder = new MultipartBody.Builder();
+        if (info.paramParts != null) {
+            for (Map.Entry<String, String> entry : info.paramParts.entrySet()) {
+                bodyBuilder.addFormDataPart(entry.getKey(), entry.getValue());
+            }
+        }
+        bodyBuilder.addPart(MultipartBody.Part.createFormData(fileInfo.getFromDataName(),
+                URLEncoder.encode(fileInfo.getFilename(), "utf-8"),
+                ProgressRequestBody.create(MediaType.parse("multipart/form-data"), fileInfo, progressListener)));
+        return bodyBuilder.build();
+    }
+
+    /**
+     * 取消所有未完成的上传
+     */
+    @Override
+    public void dispose() {
+        if (!disposable.isDisposed()) {
+            disposable.dispose();
+            if (info.state == TaskInfo.State.START || info.state == TaskInfo.State.ONGOING) {
+                updateState(TaskInfo.State.CANCEL, null);
+            }
+        }
+    }
+
+    @Override
+    public boolean isDisposed() {
+        return disposable.isDisposed();
+    }
+
+    public void cancel() {
+        dispose();
+    }
+}
@@ -0,0 +1,145 @@
+package cn.wandersnail.common.http.upload;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import cn.wandersnail.common.http.SchedulerStrategy;
+import cn.wandersnail.common.http.retry.CircuitBreakerRegistry;
+import cn.wandersnail.common.http.retry.RetryPolicy;
+import okhttp3.OkHttpClient;
+import okhttp3.ResponseBody;
+import retrofit2.Converter;
+
+/**
+ * date: 2026/10/18 19:30
+ * author: zengfansheng
+ */
+public class BatchUploadWorkerBuilder<T> {
+    private Converter<ResponseBody, T> converter;
+    private Map<String, String> paramParts;
+    private OkHttpClient client;
+    private RetryPolicy retryPolicy;
+    private CircuitBreakerRegistry circuitBreakers;
+    private SchedulerStrategy schedulerStrategy;
+    private Map<String, String> headers;
+    private List<FileInfo> fileInfos;
+    private String url;
+    private BatchUploadListener<T> listener;
+    private int maxInFlight = 4;
+    private int maxRetries = 2;
+
+    public BatchUploadWorkerBuilder<T> setUrl(String url) {
+        this.url = url;
+        return this;
+    }
+
+    public BatchUploadWorkerBuilder<T> setListener(BatchUploadListener<T> listener) {
+        this.listener = listener;
+        return this;
+    }
+
+    public BatchUploadWorkerBuilder<T> setFileParts(List<FileInfo> fileInfos) {
+        this.fileInfos = fileInfos;
+        return this;
+    }
+
+    /**
+     * 添加要上传的文件，以固定长度上传
+     *
+     * @param fromDataName 表单数据的名称，例如：file
+     */
+    public BatchUploadWorkerBuilder<T> addFile(String fromDataName, File file) {
+        if (fileInfos == null) {
+            fileInfos = new ArrayList<>();
+        }
+        FileInfo info = new FileInfo();
+        info.setFromDataName(fromDataName);
+        info.setFile(file);
+        fileInfos.add(info);
+        return this;
+    }
+
+    public BatchUploadWorkerBuilder<T> setHeaders(Map<String, String> headers) {
+        this.headers = headers;
+        return this;
+    }
+
+    /**
+     * 设置响应体转换器
+     */
+    public BatchUploadWorkerBuilder<T> setConverter(Converter<ResponseBody, T> converter) {
+        this.converter = converter;
+        return this;
+    }
+
+    /**
+     * 设置携带的参数
+     */
+    public BatchUploadWorkerBuilder<T> setParamParts(Map<String, String> paramParts) {
+        this.paramParts = paramParts;
+        return this;
+    }
+
+    /**
+     * 设置自定义的OkHttpClient
+     */
+    public BatchUploadWorkerBuilder<T> setClient(OkHttpClient client) {
+        this.client = client;
+        return this;
+    }
+
+    /**
+     * 同时进行的最大请求数，默认4
+     */
+    public BatchUploadWorkerBuilder<T> setMaxInFlight(int maxInFlight) {
+        this.maxInFlight = maxInFlight;
+        return this;
+    }
+
+    /**
+     * 每个文件失败后的最大重试次数，默认2，只对以文件添加的有效
+     */
+    public BatchUploadWorkerBuilder<T> setMaxRetries(int maxRetries) {
+        this.maxRetries = maxRetries;
+        return this;
+    }
+
+    /**
+     * 设置重试策略，默认只重试幂等请求，上传需开启非幂等重试。使用自定义的OkHttpClient时无效
+     */
+    public BatchUploadWorkerBuilder<T> setRetryPolicy(RetryPolicy retryPolicy) {
+        this.retryPolicy = retryPolicy;
+        return this;
+    }
+
+    /**
+     * 设置按主机熔断，使用自定义的OkHttpClient时无效
+     */
+    public BatchUploadWorkerBuilder<T> setCircuitBreakers(CircuitBreakerRegistry circuitBreakers) {
+        this.circuitBreakers = circuitBreakers;
+        return this;
+    }
+
+    /**
+     * 设置调度策略，不设置时使用{@link SchedulerStrategy#io()}
+     */
+    public BatchUploadWorkerBuilder<T> setSchedulerStrategy(SchedulerStrategy schedulerStrategy) {
+        this.schedulerStrategy = schedulerStrategy;
+        return this;
+    }
+
+    public BatchUploadWorker<T> build() {
+        UploadInfo<T> info = new UploadInfo<>(url);
+        info.setClient(client)
+                .setConverter(converter)
+                .setFileParts(fileInfos)
+                .setHeaders(headers)
+                .setParamParts(paramParts);
+        info.setRetryPolicy(retryPolicy);
+        info.setCircuitBreakers(circuitBreakers);
+        info.setSchedulerStrategy(schedulerStrategy);
+        return new BatchUploadWorker<>(info, maxInFlight, maxRetries, listener);
+    }
+}
@@ -0,0 +1,200 @@
+package cn.wandersnail.common.http.upload;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import cn.wandersnail.common.http.TaskInfo;
+import io.reactivex.annotations.NonNull;
+import okhttp3.OkHttpClient;
+
+/**
+ * 分片上传信息。文件按固定大小切分，已被服务器确认的分片记录在文件旁的日志中，
+ * 中断后重新上传同一文件时只上传未确认的分片
+ * <p>
+ * date: 2026/10/18 18:20
+ * author: zengfansheng
+ */
+public class ChunkedUploadInfo extends TaskInfo {
+    public final File file;
+    Map<String, String> headers;
+    OkHttpClient client;
+    ChunkedUploadProtocol protocol = new ContentRangeUploadProtocol();
+    private long partSize = 8 * 1024 * 1024;
+    private int parallelism = 3;
+    private int maxRetries = 3;
+    private File journalDir;
+    private long fileLength;
+    private int partCount;
+    private final BitSet acknowledgedParts = new BitSet();
+    private ChunkedUploadJournal journal;
+
+    public ChunkedUploadInfo(@NonNull String url, @NonNull File file) {
+        this(UUID.randomUUID().toString(), url, file);
+    }
+
+    public ChunkedUploadInfo(String tag, @NonNull String url, @NonNull File file) {
+        super(tag, url);
+        this.file = file;
+    }
+
+    public ChunkedUploadInfo setHeaders(Map<String, String> headers) {
+        this.headers = headers;
+        return this;
+    }
+
+    /**
+     * 设置自定义的OkHttpClient
+     */
+    public ChunkedUploadInfo setClient(OkHttpClient client) {
+        this.client = client;
+        return this;
+    }
+
+    /**
+     * 设置分片上传协议，默认为{@link ContentRangeUploadProtocol}
+     */
+    public ChunkedUploadInfo setProtocol(@NonNull ChunkedUploadProtocol protocol) {
+        this.protocol = protocol;
+        return this;
+    }
+
+    /**
+     * 分片大小，默认8M。已有上传日志时以日志中的为准
+     */
+    public ChunkedUploadInfo setPartSize(long partSize) {
+        this.partSize = Math.max(1, partSize);
+        return this;
+    }
+
+    public long getPartSize() {
+        return partSize;
+    }
+
+    /**
+     * 同时上传的分片数，默认3。协议不接受乱序分片时固定为1，见{@link ChunkedUploadProtocol#isOutOfOrderAllowed()}
+     */
+    public ChunkedUploadInfo setParallelism(int parallelism) {
+        this.parallelism = Math.max(1, parallelism);
+        return this;
+    }
+
+    public int getParallelism() {
+        return protocol.isOutOfOrderAllowed() ? parallelism : 1;
+    }
+
+    /**
+     * 每个分片失败后的最大重试次数，默认3
+     */
+    public ChunkedUploadInfo setMaxRetries(int maxRetries) {
+        this.maxRetries = Math.max(0, maxRetries);
+        return this;
+    }
+
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    /**
+     * 上传日志保存的目录，默认与文件同目录
+     */
+    public ChunkedUploadInfo setJournalDir(File journalDir) {
+        this.journalDir = journalDir;
+        return this;
+    }
+
+    /**
+     * 文件长度
+     */
+    public long getFileLength() {
+        return fileLength;
+    }
+
+    /**
+     * 分片数
+     */
+    public int getPartCount() {
+        return partCount;
+    }
+
+    /**
+     * 已被服务器确认的分片数
+     */
+    public synchronized int getAcknowledgedCount() {
+        return acknowledgedParts.cardinality();
+    }
+
+    /**
+     * 已被服务器确认的长度
+     */
+    public synchronized long getAcknowledgedLength() {
+        long len = 0;
+        for (int i = acknowledgedParts.nextSetBit(0); i >= 0; i = acknowledgedParts.nextSetBit(i + 1)) {
+            len += getPartLength(i);
+        }
+        return len;
+    }
+
+    long getPartOffset(int index) {
+        return index * partSize;
+    }
+
+    long getPartLength(int index) {
+        return Math.min(partSize, fileLength - getPartOffset(index));
+    }
+
+    private ChunkedUploadJournal getJournal() {
+        if (journal == null) {
+            journal = new ChunkedUploadJournal(journalDir == null ? file.getAbsoluteFile().getParentFile() : journalDir, file);
+        }
+        return journal;
+    }
+
+    /**
+     * 开始上传前调用，计算分片并从日志恢复已确认的分片
+     */
+    synchronized void prepare() {
+        fileLength = file.length();
+        acknowledgedParts.clear();
+        long restoredPartSize = getJournal().restore(this, acknowledgedParts);
+        if (restoredPartSize > 0) {
+            partSize = restoredPartSize;
+        }
+        //空文件也发送一个分片
+        partCount = fileLength == 0 ? 1 : (int) ((fileLength + partSize - 1) / partSize);
+    }
+
+    /**
+     * 未确认的分片序号
+     */
+    synchronized List<Integer> getPendingParts() {
+        List<Integer> list = new ArrayList<>();
+        for (int i = acknowledgedParts.nextClearBit(0); i < partCount; i = acknowledgedParts.nextClearBit(i + 1)) {
+            list.add(i);
+        }
+        return list;
+    }
+
+    /**
+     * 记录分片已确认并写入日志
+     */
+    synchronized void acknowledge(int index) throws IOException {
+        acknowledgedParts.set(index);
+        //在锁内写入，避免旧的快照覆盖新的
+        getJournal().save(this, acknowledgedParts);
+    }
+
+    void deleteJournal() {
+        getJournal().delete();
+    }
+
+    @Override
+    public synchronized void reset() {
+        acknowledgedParts.clear();
+        deleteJournal();
+    }
+}
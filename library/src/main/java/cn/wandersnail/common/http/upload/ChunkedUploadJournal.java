@@ -0,0 +1,106 @@
+package cn.wandersnail.common.http.upload;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.BitSet;
+import java.util.Properties;
+
+/**
+ * 分片上传日志，记录已被服务器确认的分片。文件长度或修改时间变化后日志失效
+ * <p>
+ * date: 2026/10/18 18:30
+ * author: zengfansheng
+ */
+class ChunkedUploadJournal {
+    private static final String KEY_URL = "url";
+    private static final String KEY_PATH = "path";
+    private static final String KEY_LENGTH = "length";
+    private static final String KEY_LAST_MODIFIED = "lastModified";
+    private static final String KEY_PART_SIZE = "partSize";
+    private static final String KEY_PARTS = "parts";
+    private final File file;
+
+    ChunkedUploadJournal(File dir, File uploadFile) {
+        file = new File(dir, "." + uploadFile.getName() + ".upload");
+    }
+
+    /**
+     * 写入日志。先写临时文件再原子替换，写到一半崩溃也不会损坏已有日志
+     */
+    synchronized void save(ChunkedUploadInfo info, BitSet acknowledgedParts) throws IOException {
+        Properties props = new Properties();
+        props.setProperty(KEY_URL, info.url);
+        props.setProperty(KEY_PATH, info.file.getAbsolutePath());
+        props.setProperty(KEY_LENGTH, String.valueOf(info.getFileLength()));
+        props.setProperty(KEY_LAST_MODIFIED, String.valueOf(info.file.lastModified()));
+        props.setProperty(KEY_PART_SIZE, String.valueOf(info.getPartSize()));
+        StringBuilder sb = new StringBuilder();
+        for (int i = acknowledgedParts.nextSetBit(0); i >= 0; i = acknowledgedParts.nextSetBit(i + 1)) {
+            if (sb.length() > 0) {
+                sb.append(',');
+            }
+            sb.append(i);
+        }
+        props.setProperty(KEY_PARTS, sb.toString());
+        File parent = file.getParentFile();
+        if (parent != null && !parent.exists()) {
+            parent.mkdirs();
+        }
+        File tmp = new File(parent, file.getName() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(tmp)) {
+            props.store(out, null);
+            out.getFD().sync();
+        }
+        try {
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * 从日志恢复已确认的分片
+     *
+     * @return 日志有效时返回日志中的分片大小，否则返回0
+     */
+    synchronized long restore(ChunkedUploadInfo info, BitSet acknowledgedParts) {
+        if (!file.exists()) {
+            return 0;
+        }
+        Properties props = new Properties();
+        try (InputStream in = new FileInputStream(file)) {
+            props.load(in);
+        } catch (IOException e) {
+            return 0;
+        }
+        if (!info.url.equals(props.getProperty(KEY_URL)) ||
+                !info.file.getAbsolutePath().equals(props.getProperty(KEY_PATH)) ||
+                !String.valueOf(info.getFileLength()).equals(props.getProperty(KEY_LENGTH)) ||
+                !String.valueOf(info.file.lastModified()).equals(props.getProperty(KEY_LAST_MODIFIED))) {
+            return 0;
+        }
+        try {
+            long partSize = Long.parseLong(props.getProperty(KEY_PART_SIZE, "0"));
+            String parts = props.getProperty(KEY_PARTS, "");
+            if (!parts.isEmpty()) {
+                for (String item : parts.split(",")) {
+                    acknowledgedParts.set(Integer.parseInt(item));
+                }
+            }
+            return partSize;
+        } catch (RuntimeException e) {
+            acknowledgedParts.clear();
+            return 0;
+        }
+    }
+
+    synchronized void delete() {
+        file.delete();
+    }
+}
@@ -0,0 +1,25 @@
+package cn.wandersnail.common.http.upload;
+
+import cn.wandersnail.common.http.TaskInfo;
+
+/**
+ * 分片上传监听
+ * <p>
+ * date: 2026/10/18 18:34
+ * author: zengfansheng
+ */
+public interface ChunkedUploadListener extends UploadProgressListener {
+    /**
+     * 任务上传状态改变
+     */
+    void onStateChange(TaskInfo.State state, Throwable t);
+
+    /**
+     * 分片已被服务器确认
+     *
+     * @param index             分片序号
+     * @param acknowledgedCount 已确认的分片数
+     * @param partCount         分片总数
+     */
+    default void onPartAcknowledged(int index, int acknowledgedCount, int partCount) {}
+}
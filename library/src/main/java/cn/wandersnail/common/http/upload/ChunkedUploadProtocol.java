@@ -0,0 +1,45 @@
+package cn.wandersnail.common.http.upload;
+
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+
+/**
+ * 分片上传协议，用于适配不同服务器的分片上传接口
+ * <p>
+ * date: 2026/10/18 18:10
+ * author: zengfansheng
+ */
+public interface ChunkedUploadProtocol {
+    /**
+     * 创建上传一个分片的请求
+     *
+     * @param info   上传信息
+     * @param index  分片序号，从0开始
+     * @param offset 分片在文件中的起始位置
+     * @param length 分片长度
+     * @param body   分片数据
+     */
+    Request createPartRequest(ChunkedUploadInfo info, int index, long offset, long length, RequestBody body);
+
+    /**
+     * 服务器是否已确认收到，未确认的分片会重试
+     */
+    default boolean isAccepted(Response response) {
+        return response.isSuccessful();
+    }
+
+    /**
+     * 服务器是否接受乱序到达的分片。不接受时分片按顺序逐个上传，并发数设置无效
+     */
+    default boolean isOutOfOrderAllowed() {
+        return true;
+    }
+
+    /**
+     * 创建所有分片确认后的合并请求，不需要时返回null
+     */
+    default Request createCompleteRequest(ChunkedUploadInfo info) {
+        return null;
+    }
+}
@@ -0,0 +1,165 @@
+package cn.wandersnail.common.http.upload;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import cn.wandersnail.common.http.EasyHttp;
+import cn.wandersnail.common.http.ProgressAggregator;
+import cn.wandersnail.common.http.TaskInfo;
+import io.reactivex.Completable;
+import io.reactivex.Observable;
+import io.reactivex.disposables.Disposable;
+import okhttp3.Call;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * 分片上传执行。分片并发上传，失败的分片单独重试，已确认的分片写入日志，
+ * 暂停或中断后用同一文件和地址重新创建即可续传
+ * <p>
+ * date: 2026/10/18 18:40
+ * author: zengfansheng
+ */
+public class ChunkedUploadWorker implements Disposable {
+    private final ChunkedUploadInfo info;
+    private final ChunkedUploadListener listener;
+    private final OkHttpClient client;
+    private final AtomicLong uploadedLength = new AtomicLong();//已确认长度加上传中的长度
+    private final ProgressAggregator.Tracker progressTracker;
+    private final Disposable disposable;
+
+    public ChunkedUploadWorker(ChunkedUploadInfo info, ChunkedUploadListener listener) {
+        this.info = info;
+        this.listener = listener;
+        client = info.client != null ? info.client : EasyHttp.getClientRegistry().getClient(0, false,
+                info.getRetryPolicy(), info.getCircuitBreakers());
+        progressTracker = EasyHttp.getProgressAggregator().newTracker(this::deliverProgress);
+        info.prepare();
+        uploadedLength.set(info.getAcknowledgedLength());
+        updateState(TaskInfo.State.START, null);
+        disposable = Observable.fromIterable(info.getPendingParts())
+                .flatMap(index -> uploadPart(index).retry(info.getMaxRetries()), info.getParallelism())
+                .ignoreElements()
+                .andThen(Completable.defer(this::complete))
+                .subscribeOn(info.getSchedulerStrategy().getSubscribeScheduler())
+                .subscribe(() -> {
+                    info.deleteJournal();
+                    progressTracker.close();
+                    if (listener != null) {
+                        listener.onProgress(info.file.getName(), info.getFileLength(), info.getFileLength());
+                    }
+                    updateState(TaskInfo.State.COMPLETED, null);
+                }, e -> {
+                    progressTracker.close();
+                    updateState(TaskInfo.State.ERROR, e);
+                });
+    }
+
+    private void updateState(TaskInfo.State state, Throwable t) {
+        info.state = state;
+        if (listener != null) {
+            listener.onStateChange(state, t);
+        }
+    }
+
+    //在进度汇聚器的定时器线程执行
+    private void deliverProgress(long progress, long max) {
+        if (info.state == TaskInfo.State.START || info.state == TaskInfo.State.ONGOING) {
+            if (info.state != TaskInfo.State.ONGOING) {
+                updateState(TaskInfo.State.ONGOING, null);
+            }
+            if (listener != null) {
+                listener.onProgress(info.file.getName(), progress, max);
+            }
+        }
+    }
+
+    private Observable<Integer> uploadPart(int index) {
+        return Observable.<Integer>create(emitter -> {
+            long offset = info.getPartOffset(index);
+            long length = info.getPartLength(index);
+            long[] written = new long[1];//本次尝试已写出的长度，失败时从进度中扣除
+            FileRangeRequestBody body = new FileRangeRequestBody(info.file, offset, length, count -> {
+                progressTracker.update(uploadedLength.addAndGet(count - written[0]), info.getFileLength());
+                written[0] = count;
+            });
+            Request request = info.protocol.createPartRequest(info, index, offset, length, body);
+            Call call = client.newCall(request);
+            emitter.setCancellable(call::cancel);
+            try (Response response = call.execute()) {
+                if (!info.protocol.isAccepted(response)) {
+                    throw new IOException("Part " + index + " was not accepted, code: " + response.code());
+                }
+                //重试时已写出部分可能多于本次确认的长度，以分片长度为准
+                uploadedLength.addAndGet(length - written[0]);
+                written[0] = length;
+            } catch (IOException e) {
+                uploadedLength.addAndGet(-written[0]);
+                emitter.tryOnError(e);
+                return;
+            }
+            try {
+                info.acknowledge(index);
+            } catch (IOException ignore) {
+                //分片已被服务器确认，不需要重传。日志写入失败只影响中断后的续传，下次写入时会一并记录
+            }
+            if (listener != null) {
+                listener.onPartAcknowledged(index, info.getAcknowledgedCount(), info.getPartCount());
+            }
+            emitter.onNext(index);
+            emitter.onComplete();
+        }).subscribeOn(info.getSchedulerStrategy().getSubscribeScheduler());
+    }
+
+    private Completable complete() {
+        Request request = info.protocol.createCompleteRequest(info);
+        if (request == null) {
+            return Completable.complete();
+        }
+        return Completable.create(emitter -> {
+            Call call = client.newCall(request);
+            emitter.setCancellable(call::cancel);
+            try (Response response = call.execute()) {
+                if (!info.protocol.isAccepted(response)) {
+                    throw new IOException("Complete request was not accepted, code: " + response.code());
+                }
+            } catch (IOException e) {
+                emitter.tryOnError(e);
+                return;
+            }
+            emitter.onComplete();
+        });
+    }
+
+    /**
+     * 暂停，已确认的分片保留在日志中
+     */
+    @Override
+    public void dispose() {
+        stop(TaskInfo.State.PAUSE);
+    }
+
+    /**
+     * 取消，删除上传日志
+     */
+    public void cancel() {
+        stop(TaskInfo.State.CANCEL);
+        info.deleteJournal();
+    }
+
+    private void stop(TaskInfo.State state) {
+        if (!disposable.isDisposed()) {
+            disposable.dispose();
+            progressTracker.close();
+            if (info.state == TaskInfo.State.START || info.state == TaskInfo.State.ONGOING) {
+                updateState(state, null);
+            }
+        }
+    }
+
+    @Override
+    public boolean isDisposed() {
+        return disposable.isDisposed();
+    }
+}
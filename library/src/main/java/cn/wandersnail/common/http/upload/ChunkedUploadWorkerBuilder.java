@@ -0,0 +1,158 @@
+package cn.wandersnail.common.http.upload;
+
+import java.io.File;
+import java.util.Map;
+
+import cn.wandersnail.common.http.SchedulerStrategy;
+import cn.wandersnail.common.http.retry.CircuitBreakerRegistry;
+import cn.wandersnail.common.http.retry.RetryPolicy;
+import okhttp3.OkHttpClient;
+
+/**
+ * date: 2026/10/18 18:52
+ * author: zengfansheng
+ */
+public class ChunkedUploadWorkerBuilder {
+    private String tag;
+    private String url;
+    private File file;
+    private Map<String, String> headers;
+    private OkHttpClient client;
+    private RetryPolicy retryPolicy;
+    private CircuitBreakerRegistry circuitBreakers;
+    private SchedulerStrategy schedulerStrategy;
+    private ChunkedUploadProtocol protocol;
+    private long partSize;
+    private int parallelism;
+    private int maxRetries = -1;
+    private File journalDir;
+    private ChunkedUploadListener listener;
+
+    public ChunkedUploadWorkerBuilder setTag(String tag) {
+        this.tag = tag;
+        return this;
+    }
+
+    public ChunkedUploadWorkerBuilder setUrl(String url) {
+        this.url = url;
+        return this;
+    }
+
+    /**
+     * 要上传的文件
+     */
+    public ChunkedUploadWorkerBuilder setFile(File file) {
+        this.file = file;
+        return this;
+    }
+
+    public ChunkedUploadWorkerBuilder setHeaders(Map<String, String> headers) {
+        this.headers = headers;
+        return this;
+    }
+
+    /**
+     * 设置自定义的OkHttpClient
+     */
+    public ChunkedUploadWorkerBuilder setClient(OkHttpClient client) {
+        this.client = client;
+        return this;
+    }
+
+    /**
+     * 设置分片上传协议，默认为{@link ContentRangeUploadProtocol}
+     */
+    public ChunkedUploadWorkerBuilder setProtocol(ChunkedUploadProtocol protocol) {
+        this.protocol = protocol;
+        return this;
+    }
+
+    /**
+     * 分片大小，默认8M
+     */
+    public ChunkedUploadWorkerBuilder setPartSize(long partSize) {
+        this.partSize = partSize;
+        return this;
+    }
+
+    /**
+     * 同时上传的分片数，默认3。协议不接受乱序分片时固定为1
+     */
+    public ChunkedUploadWorkerBuilder setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    /**
+     * 每个分片失败后的最大重试次数，默认3
+     */
+    public ChunkedUploadWorkerBuilder setMaxRetries(int maxRetries) {
+        this.maxRetries = maxRetries;
+        return this;
+    }
+
+    /**
+     * 上传日志保存的目录，默认与文件同目录
+     */
+    public ChunkedUploadWorkerBuilder setJournalDir(File journalDir) {
+        this.journalDir = journalDir;
+        return this;
+    }
+
+    public ChunkedUploadWorkerBuilder setListener(ChunkedUploadListener listener) {
+        this.listener = listener;
+        return this;
+    }
+
+    /**
+     * 设置重试策略，每个分片请求单独重试。使用自定义的OkHttpClient时无效
+     */
+    public ChunkedUploadWorkerBuilder setRetryPolicy(RetryPolicy retryPolicy) {
+        this.retryPolicy = retryPolicy;
+        return this;
+    }
+
+    /**
+     * 设置按主机熔断，使用自定义的OkHttpClient时无效
+     */
+    public ChunkedUploadWorkerBuilder setCircuitBreakers(CircuitBreakerRegistry circuitBreakers) {
+        this.circuitBreakers = circuitBreakers;
+        return this;
+    }
+
+    /**
+     * 设置调度策略，不设置时使用{@link SchedulerStrategy#io()}
+     */
+    public ChunkedUploadWorkerBuilder setSchedulerStrategy(SchedulerStrategy schedulerStrategy) {
+        this.schedulerStrategy = schedulerStrategy;
+        return this;
+    }
+
+    public ChunkedUploadWorker build() {
+        ChunkedUploadInfo info;
+        if (tag == null || tag.length() == 0) {
+            info = new ChunkedUploadInfo(url, file);
+        } else {
+            info = new ChunkedUploadInfo(tag, url, file);
+        }
+        info.setHeaders(headers)
+                .setClient(client)
+                .setJournalDir(journalDir);
+        if (protocol != null) {
+            info.setProtocol(protocol);
+        }
+        if (partSize > 0) {
+            info.setPartSize(partSize);
+        }
+        if (parallelism > 0) {
+            info.setParallelism(parallelism);
+        }
+        if (maxRetries >= 0) {
+            info.setMaxRetries(maxRetries);
+        }
+        info.setRetryPolicy(retryPolicy);
+        info.setCircuitBreakers(circuitBreakers);
+        info.setSchedulerStrategy(schedulerStrategy);
+        return new ChunkedUploadWorker(info, listener);
+    }
+}
@@ -0,0 +1,66 @@
+package cn.wandersnail.common.http.upload;
+
+import java.util.Map;
+
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+
+/**
+ * 以Content-Range请求头标明分片位置的上传协议，每个分片向同一地址发送，
+ * 服务器按偏移写入。响应2xx或308(Resume Incomplete)表示分片已确认
+ * <p>
+ * 此类服务器多要求按顺序接收分片，默认逐个上传，服务器支持乱序写入时才可并发
+ * <p>
+ * date: 2026/10/18 18:12
+ * author: zengfansheng
+ */
+public class ContentRangeUploadProtocol implements ChunkedUploadProtocol {
+    private final String method;
+    private final boolean outOfOrderAllowed;
+
+    public ContentRangeUploadProtocol() {
+        this("PUT");
+    }
+
+    /**
+     * @param method 请求方法，如PUT、POST、PATCH
+     */
+    public ContentRangeUploadProtocol(String method) {
+        this(method, false);
+    }
+
+    /**
+     * @param method            请求方法，如PUT、POST、PATCH
+     * @param outOfOrderAllowed 服务器是否支持乱序写入分片，支持时才按并发数同时上传
+     */
+    public ContentRangeUploadProtocol(String method, boolean outOfOrderAllowed) {
+        this.method = method;
+        this.outOfOrderAllowed = outOfOrderAllowed;
+    }
+
+    @Override
+    public Request createPartRequest(ChunkedUploadInfo info, int index, long offset, long length, RequestBody body) {
+        Request.Builder builder = new Request.Builder().url(info.url);
+        if (info.headers != null) {
+            for (Map.Entry<String, String> entry : info.headers.entrySet()) {
+                builder.header(entry.getKey(), entry.getValue());
+            }
+        }
+        long total = info.getFileLength();
+        String range = length == 0 ? "bytes */" + total : "bytes " + offset + "-" + (offset + length - 1) + "/" + total;
+        return builder.header("Content-Range", range)
+                .method(method, body)
+                .build();
+    }
+
+    @Override
+    public boolean isOutOfOrderAllowed() {
+        return outOfOrderAllowed;
+    }
+
+    @Override
+    public boolean isAccepted(Response response) {
+        return response.isSuccessful() || response.code() == 308;
+    }
+}
@@ -1,5 +1,6 @@
 package cn.wandersnail.common.http.upload;
 
+import java.io.File;
 import java.io.InputStream;
 
 /**
@@ -10,6 +11,7 @@ public class FileInfo {
     private String fromDataName;
     private String filename;   
     private InputStream inputStream;
+    private File file;
 
     /**
      * 表单数据的名称，例如：file
@@ -52,4 +54,21 @@ public class FileInfo {
     public void setInputStream(InputStream inputStream) {
         this.inputStream = inputStream;
     }
+
+    /**
+     * 要上传的文件，设置后优先于输入流，以固定长度上传
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * 要上传的文件，设置后优先于输入流，以固定长度上传。未设置文件名时使用文件的名称
+     */
+    public void setFile(File file) {
+        this.file = file;
+        if (filename == null && file != null) {
+            filename = file.getName();
+        }
+    }
 }
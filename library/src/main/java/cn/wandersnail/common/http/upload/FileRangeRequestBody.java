@@ -0,0 +1,74 @@
+package cn.wandersnail.common.http.upload;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.Okio;
+import okio.Source;
+
+/**
+ * 文件中一段区间的请求体，长度已知，可重复写入
+ * <p>
+ * date: 2026/10/18 18:16
+ * author: zengfansheng
+ */
+class FileRangeRequestBody extends RequestBody {
+    private static final MediaType OCTET_STREAM = MediaType.parse("application/octet-stream");
+    private static final long READ_SIZE = 64 * 1024;
+    private final File file;
+    private final long offset;
+    private final long length;
+    private final Callback callback;
+
+    FileRangeRequestBody(File file, long offset, long length, Callback callback) {
+        this.file = file;
+        this.offset = offset;
+        this.length = length;
+        this.callback = callback;
+    }
+
+    @Override
+    public MediaType contentType() {
+        return OCTET_STREAM;
+    }
+
+    @Override
+    public long contentLength() {
+        return length;
+    }
+
+    @Override
+    public void writeTo(BufferedSink sink) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            channel.position(offset);
+            Source source = Okio.source(Channels.newInputStream(channel));
+            Buffer buffer = sink.buffer();
+            long count = 0;
+            while (count < length) {
+                long read = source.read(buffer, Math.min(READ_SIZE, length - count));
+                if (read == -1) {
+                    throw new IOException("File was truncated during upload: " + file);
+                }
+                sink.emitCompleteSegments();
+                count += read;
+                if (callback != null) {
+                    callback.onWritten(count);
+                }
+            }
+        }
+    }
+
+    interface Callback {
+        /**
+         * @param count 本次写入的累计字节数
+         */
+        void onWritten(long count);
+    }
+}
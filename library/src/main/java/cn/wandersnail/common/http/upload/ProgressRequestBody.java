@@ -1,21 +1,28 @@
 package cn.wandersnail.common.http.upload;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 
 import cn.wandersnail.common.http.util.HttpUtils;
 import okhttp3.MediaType;
 import okhttp3.RequestBody;
+import okio.Buffer;
 import okio.BufferedSink;
+import okio.Okio;
+import okio.Source;
 
 /**
  * date: 2019/8/23 18:17
  * author: zengfansheng
  */
 class ProgressRequestBody extends RequestBody {
+    private static final long READ_SIZE = 64 * 1024;
     private final MediaType contentType;
     private final String filename;
     private final InputStream inputStream;
+    private final File file;
+    private final long contentLength;
     private final UploadProgressListener listener;
 
     ProgressRequestBody(MediaType contentType, String filename, InputStream inputStream, UploadProgressListener listener) {
@@ -23,6 +30,30 @@ class ProgressRequestBody extends RequestBody {
         this.filename = filename;
         this.inputStream = inputStream;
         this.listener = listener;
+        file = null;
+        contentLength = -1;
+    }
+
+    /**
+     * 文件请求体，长度已知，可重复写入
+     */
+    ProgressRequestBody(MediaType contentType, String filename, File file, UploadProgressListener listener) {
+        this.contentType = contentType;
+        this.filename = filename;
+        this.file = file;
+        this.listener = listener;
+        inputStream = null;
+        contentLength = file.length();
+    }
+
+    /**
+     * 设置了文件时使用文件，否则使用输入流
+     */
+    static ProgressRequestBody create(MediaType contentType, FileInfo fileInfo, UploadProgressListener listener) {
+        if (fileInfo.getFile() != null) {
+            return new ProgressRequestBody(contentType, fileInfo.getFilename(), fileInfo.getFile(), listener);
+        }
+        return new ProgressRequestBody(contentType, fileInfo.getFilename(), fileInfo.getInputStream(), listener);
     }
 
     @Override
@@ -30,8 +61,17 @@ class ProgressRequestBody extends RequestBody {
         return contentType;
     }
 
+    @Override
+    public long contentLength() {
+        return contentLength;
+    }
+
     @Override
     public void writeTo(BufferedSink sink) throws IOException {
+        if (file != null) {
+            writeFile(sink);
+            return;
+        }
         long uploadCount = 0;
         try {
             byte[] buffer = new byte[10240];
@@ -47,4 +87,24 @@ class ProgressRequestBody extends RequestBody {
             HttpUtils.closeQuietly(inputStream);
         }
     }
+
+    //文件数据直接读入sink的缓冲段再发出，不经过中间数组
+    private void writeFile(BufferedSink sink) throws IOException {
+        long uploadCount = 0;
+        try (Source source = Okio.source(file)) {
+            Buffer buffer = sink.buffer();
+            while (uploadCount < contentLength) {
+                long read = source.read(buffer, Math.min(READ_SIZE, contentLength - uploadCount));
+                if (read == -1) {
+                    //已声明的长度不能改变
+                    throw new IOException("File was truncated during upload: " + file);
+                }
+                sink.emitCompleteSegments();
+                uploadCount += read;
+                if (listener != null) {
+                    listener.onProgress(filename, uploadCount, contentLength);
+                }
+            }
+        }
+    }
 }
@@ -4,8 +4,11 @@ package cn.wandersnail.common.http.upload;
 import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import cn.wandersnail.common.http.ConvertedResponse;
+import cn.wandersnail.common.http.EasyHttp;
+import cn.wandersnail.common.http.ProgressAggregator;
 import okhttp3.MediaType;
 import okhttp3.MultipartBody;
 import okhttp3.ResponseBody;
@@ -24,31 +27,39 @@ public class SyncUploadWorker<T> {
     public ConvertedResponse<T> convertedResp;
 
     public SyncUploadWorker(UploadInfo<T> info, UploadProgressListener listener) {
-        Retrofit.Builder builder = new Retrofit.Builder();
+        UploadService service;
         if (info.client != null) {
-            builder.client(info.client);
+            service = new Retrofit.Builder()
+                    .client(info.client)
+                    .addCallAdapterFactory(RxJava2CallAdapterFactory.create())
+                    .baseUrl(info.getBaseUrl())
+                    .build()
+                    .create(UploadService.class);
+        } else {
+            service = EasyHttp.getClientRegistry().getService(info.getBaseUrl(), 0, false,
+                    info.getRetryPolicy(), info.getCircuitBreakers(), UploadService.class);
         }
-        UploadService service = builder.addCallAdapterFactory(RxJava2CallAdapterFactory.create())
-                .baseUrl(info.getBaseUrl())
-                .build()
-                .create(UploadService.class);
         MultipartBody.Builder bodyBuilder = new MultipartBody.Builder();
         if (info.paramParts != null) {
             for (Map.Entry<String, String> entry : info.paramParts.entrySet()) {
                 bodyBuilder.addFormDataPart(entry.getKey(), entry.getValue());
             }
         }
-        UploadProgressListener localListener = (name, progress, max) -> {
-            if (listener != null) {
-                listener.onProgress(name, progress, max);
+        //进度经汇聚器按固定频率回调，不在每次写入时回调
+        Map<String, ProgressAggregator.Tracker> progressTrackers = new ConcurrentHashMap<>();
+        UploadProgressListener localListener = listener == null ? null : (name, progress, max) -> {
+            ProgressAggregator.Tracker tracker = progressTrackers.get(name);
+            if (tracker == null) {
+                tracker = progressTrackers.computeIfAbsent(name, n -> EasyHttp.getProgressAggregator()
+                        .newTracker((p, m) -> listener.onProgress(n, p, m)));
             }
+            tracker.update(progress, max);
         };
         for (FileInfo fileInfo : info.fileInfos) {
             try {
                 MultipartBody.Part part = MultipartBody.Part.createFormData(fileInfo.getFromDataName(),
                         URLEncoder.encode(fileInfo.getFilename(), "utf-8"),
-                        new ProgressRequestBody(MediaType.parse("multipart/form-data"), fileInfo.getFilename(),
-                                fileInfo.getInputStream(), localListener));
+                        ProgressRequestBody.create(MediaType.parse("multipart/form-data"), fileInfo, localListener));
                 bodyBuilder.addPart(part);
             } catch (UnsupportedEncodingException e) {
                 e.printStackTrace();
@@ -73,6 +84,11 @@ public class SyncUploadWorker<T> {
             }
         } catch (Exception e) {
             //取消任务会抛异常
+        } finally {
+            for (ProgressAggregator.Tracker tracker : progressTrackers.values()) {
+                tracker.flush();
+                tracker.close();
+            }
         }
     }
 }
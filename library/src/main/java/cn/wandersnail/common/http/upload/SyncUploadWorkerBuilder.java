@@ -1,8 +1,12 @@
 package cn.wandersnail.common.http.upload;
 
+import java.io.File;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
+import cn.wandersnail.common.http.retry.CircuitBreakerRegistry;
+import cn.wandersnail.common.http.retry.RetryPolicy;
 import okhttp3.OkHttpClient;
 import okhttp3.ResponseBody;
 import retrofit2.Converter;
@@ -15,6 +19,8 @@ public class SyncUploadWorkerBuilder<T> {
     private Converter<ResponseBody, T> converter;
     private Map<String, String> paramParts;
     private OkHttpClient client;
+    private RetryPolicy retryPolicy;
+    private CircuitBreakerRegistry circuitBreakers;
     private Map<String, String> headers;
     private List<FileInfo> fileInfos;
     private String tag;
@@ -41,6 +47,22 @@ public class SyncUploadWorkerBuilder<T> {
         return this;
     }
 
+    /**
+     * 添加要上传的文件，以固定长度上传
+     *
+     * @param fromDataName 表单数据的名称，例如：file
+     */
+    public SyncUploadWorkerBuilder<T> addFile(String fromDataName, File file) {
+        if (fileInfos == null) {
+            fileInfos = new ArrayList<>();
+        }
+        FileInfo info = new FileInfo();
+        info.setFromDataName(fromDataName);
+        info.setFile(file);
+        fileInfos.add(info);
+        return this;
+    }
+
     public SyncUploadWorkerBuilder<T> setHeaders(Map<String, String> headers) {
         this.headers = headers;
         return this;
@@ -70,6 +92,22 @@ public class SyncUploadWorkerBuilder<T> {
         return this;
     }
 
+    /**
+     * 设置重试策略，默认只重试幂等请求，上传需开启非幂等重试。使用自定义的OkHttpClient时无效
+     */
+    public SyncUploadWorkerBuilder<T> setRetryPolicy(RetryPolicy retryPolicy) {
+        this.retryPolicy = retryPolicy;
+        return this;
+    }
+
+    /**
+     * 设置按主机熔断，使用自定义的OkHttpClient时无效
+     */
+    public SyncUploadWorkerBuilder<T> setCircuitBreakers(CircuitBreakerRegistry circuitBreakers) {
+        this.circuitBreakers = circuitBreakers;
+        return this;
+    }
+
     public SyncUploadWorker<T> build() {
         UploadInfo<T> info;
         if (tag == null || tag.length() == 0) {
@@ -82,6 +120,8 @@ public class SyncUploadWorkerBuilder<T> {
                 .setFileParts(fileInfos)
                 .setHeaders(headers)
                 .setParamParts(paramParts);
+        info.setRetryPolicy(retryPolicy);
+        info.setCircuitBreakers(circuitBreakers);
         return new SyncUploadWorker<>(info, listener);
     }
 }
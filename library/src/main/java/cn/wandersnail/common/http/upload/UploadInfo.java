@@ -2,7 +2,6 @@ package cn.wandersnail.common.http.upload;
 
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -40,15 +39,10 @@ public class UploadInfo<T> extends TaskInfo {
         super(tag, url);
         fileInfos = new ArrayList<>();
         for (Map.Entry<String, File> entry : fileParts.entrySet()) {
-            try {
-                FileInfo info = new FileInfo();
-                info.setFromDataName(entry.getKey());
-                info.setFilename(entry.getValue().getName());
-                info.setInputStream(new FileInputStream(entry.getValue()));
-                fileInfos.add(info);
-            } catch (Exception e) {
-                e.printStackTrace();
-            }
+            FileInfo info = new FileInfo();
+            info.setFromDataName(entry.getKey());
+            info.setFile(entry.getValue());
+            fileInfos.add(info);
         }
     }
 
@@ -67,15 +61,10 @@ public class UploadInfo<T> extends TaskInfo {
         super(tag, url);
         fileInfos = new ArrayList<>();
         for (Map.Entry<String, File> entry : fileParts.entrySet()) {
-            try {
-                FileInfo info = new FileInfo();
-                info.setFromDataName(entry.getKey());
-                info.setFilename(entry.getValue().getName());
-                info.setInputStream(new FileInputStream(entry.getValue()));
-                fileInfos.add(info);
-            } catch (Exception e) {
-                e.printStackTrace();
-            }
+            FileInfo info = new FileInfo();
+            info.setFromDataName(entry.getKey());
+            info.setFile(entry.getValue());
+            fileInfos.add(info);
         }
         this.headers = headers;
     }
@@ -1,14 +1,15 @@
 package cn.wandersnail.common.http.upload;
 
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+import cn.wandersnail.common.http.EasyHttp;
+import cn.wandersnail.common.http.ProgressAggregator;
 import cn.wandersnail.common.http.TaskInfo;
 import io.reactivex.Observer;
 import io.reactivex.annotations.NonNull;
 import io.reactivex.disposables.Disposable;
-import io.reactivex.schedulers.Schedulers;
 import okhttp3.ResponseBody;
 import retrofit2.Response;
 
@@ -17,43 +18,60 @@ import retrofit2.Response;
  * author: zengfansheng
  */
 class UploadObserver<T> implements Observer<Response<ResponseBody>>, Disposable, UploadProgressListener {
-    private static final int UPDATE_LIMIT_DURATION = 500;//限制进度更新频率，毫秒
     private final UploadInfo<T> info;
     private final UploadListener<T> listener;
     private Disposable disposable;
-    private long lastUpdateTime;//上次进度更新时间
-    private final Map<String, Long> contentLengthMap = new HashMap<>();
+    private final Map<String, Long> contentLengthMap = new ConcurrentHashMap<>();
+    private final Map<String, ProgressAggregator.Tracker> progressTrackers = new ConcurrentHashMap<>();
 
     UploadObserver(@NonNull UploadInfo<T> info, UploadListener<T> listener) {
         this.info = info;
         this.listener = listener;
     }
 
+    /**
+     * 在I/O线程调用，只记录进度，由进度汇聚器按固定频率回调
+     */
     @Override
     public void onProgress(String filename, long progress, long max) {
-        Schedulers.io().scheduleDirect(() -> {
-            long completionLength = progress;
-            Long contentLen = contentLengthMap.get(filename);
-            if (contentLen != null && contentLen > max) {
-                completionLength += contentLen - max;
-            } else {
-                contentLengthMap.put(filename, max);
-                contentLen = max;
-            }
-            if (System.currentTimeMillis() - lastUpdateTime >= UPDATE_LIMIT_DURATION && (info.state == TaskInfo.State.IDLE ||
-                    info.state == TaskInfo.State.START || info.state == TaskInfo.State.ONGOING)) {
-                if (info.state != TaskInfo.State.ONGOING) {
-                    info.state = TaskInfo.State.ONGOING;
-                    if (listener != null) {
-                        listener.onStateChange(info.state, null);
-                    }
-                }
+        ProgressAggregator.Tracker tracker = progressTrackers.get(filename);
+        if (tracker == null) {
+            tracker = progressTrackers.computeIfAbsent(filename, name -> EasyHttp.getProgressAggregator()
+                    .newTracker((p, m) -> deliverProgress(name, p, m)));
+        }
+        tracker.update(progress, max);
+    }
+
+    //在进度汇聚器的定时器线程执行
+    private void deliverProgress(String filename, long progress, long max) {
+        long completionLength = progress;
+        Long contentLen = contentLengthMap.get(filename);
+        if (contentLen != null && contentLen > max) {
+            completionLength += contentLen - max;
+        } else {
+            contentLengthMap.put(filename, max);
+            contentLen = max;
+        }
+        if (info.state == TaskInfo.State.IDLE || info.state == TaskInfo.State.START || info.state == TaskInfo.State.ONGOING) {
+            if (info.state != TaskInfo.State.ONGOING) {
+                info.state = TaskInfo.State.ONGOING;
                 if (listener != null) {
-                    listener.onProgress(filename, completionLength, contentLen);
+                    listener.onStateChange(info.state, null);
                 }
-                lastUpdateTime = System.currentTimeMillis();
             }
-        });
+            if (listener != null) {
+                listener.onProgress(filename, completionLength, contentLen);
+            }
+        }
+    }
+
+    private void closeTrackers(boolean flush) {
+        for (ProgressAggregator.Tracker tracker : progressTrackers.values()) {
+            if (flush) {
+                tracker.flush();
+            }
+            tracker.close();
+        }
     }
 
     @Override
@@ -85,6 +103,7 @@ class UploadObserver<T> implements Observer<Response<ResponseBody>>, Disposable,
     @Override
     public void onError(Throwable e) {
         disposable = null;
+        closeTrackers(false);
         info.state = TaskInfo.State.ERROR;
         if (listener != null) {
             listener.onStateChange(info.state, e);
@@ -94,6 +113,8 @@ class UploadObserver<T> implements Observer<Response<ResponseBody>>, Disposable,
     @Override
     public void onComplete() {
         disposable = null;
+        //未到定时器周期就已传完的文件也需要记录总大小
+        closeTrackers(true);
         if (listener != null) {
             for (Map.Entry<String, Long> entry : contentLengthMap.entrySet()) {
                 listener.onProgress(entry.getKey(), entry.getValue(), entry.getValue());
@@ -107,7 +128,8 @@ class UploadObserver<T> implements Observer<Response<ResponseBody>>, Disposable,
 
     @Override
     public void dispose() {
-        Schedulers.io().scheduleDirect(() -> {
+        closeTrackers(false);
+        info.getSchedulerStrategy().execute(() -> {
             if (!isDisposed()) {
                 disposable.dispose();
             }
@@ -4,13 +4,11 @@ import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
 import java.util.Map;
 
-import cn.wandersnail.common.http.util.HttpUtils;
-import cn.wandersnail.common.http.util.SchedulerUtils;
+import cn.wandersnail.common.http.EasyHttp;
 import io.reactivex.Observable;
 import io.reactivex.disposables.Disposable;
 import okhttp3.MediaType;
 import okhttp3.MultipartBody;
-import okhttp3.OkHttpClient;
 import okhttp3.ResponseBody;
 import retrofit2.Response;
 import retrofit2.Retrofit;
@@ -27,14 +25,18 @@ public class UploadWorker<T> implements Disposable {
 
     public UploadWorker(UploadInfo<T> info, UploadListener<T> listener) {
         observer = new UploadObserver<>(info, listener);
-        Retrofit.Builder builder = new Retrofit.Builder();
+        UploadService service;
         if (info.client != null) {
-            builder.client(HttpUtils.initHttpsClient(true, new OkHttpClient.Builder()).build());
+            service = new Retrofit.Builder()
+                    .client(info.client)
+                    .addCallAdapterFactory(RxJava2CallAdapterFactory.create())
+                    .baseUrl(info.getBaseUrl())
+                    .build()
+                    .create(UploadService.class);
+        } else {
+            service = EasyHttp.getClientRegistry().getService(info.getBaseUrl(), 0, false,
+                    info.getRetryPolicy(), info.getCircuitBreakers(), UploadService.class);
         }
-        UploadService service = builder.addCallAdapterFactory(RxJava2CallAdapterFactory.create())
-                .baseUrl(info.getBaseUrl())
-                .build()
-                .create(UploadService.class);
         MultipartBody.Builder bodyBuilder = new MultipartBody.Builder();
         if (info.paramParts != null) {
             for (Map.Entry<String, String> entry : info.paramParts.entrySet()) {
@@ -45,8 +47,7 @@ public class UploadWorker<T> implements Disposable {
             try {
                 MultipartBody.Part part = MultipartBody.Part.createFormData(fileInfo.getFromDataName(),
                         URLEncoder.encode(fileInfo.getFilename(), "utf-8"),
-                        new ProgressRequestBody(MediaType.parse("multipart/form-data"), fileInfo.getFilename(),
-                                fileInfo.getInputStream(), observer));
+                        ProgressRequestBody.create(MediaType.parse("multipart/form-data"), fileInfo, observer));
                 bodyBuilder.addPart(part);
             } catch (UnsupportedEncodingException e) {
                 e.printStackTrace();
@@ -58,7 +59,7 @@ public class UploadWorker<T> implements Disposable {
         } else {
             observable = service.upload(info.url, bodyBuilder.build(), info.headers);
         }
-        observable.compose(SchedulerUtils.applyGeneralObservableSchedulers())
+        observable.compose(info.getSchedulerStrategy().observableTransformer())
                 .subscribe(observer);
     }    
 
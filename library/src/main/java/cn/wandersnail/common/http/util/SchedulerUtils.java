@@ -4,6 +4,7 @@ import io.reactivex.CompletableTransformer;
 import io.reactivex.FlowableTransformer;
 import io.reactivex.MaybeTransformer;
 import io.reactivex.ObservableTransformer;
+import io.reactivex.Scheduler;
 import io.reactivex.SingleTransformer;
 import io.reactivex.schedulers.Schedulers;
 
@@ -12,33 +13,49 @@ import io.reactivex.schedulers.Schedulers;
  * author: zengfansheng
  */
 public class SchedulerUtils {
+    private static volatile Scheduler ioScheduler = Schedulers.io();
+
+    /**
+     * 库内阻塞任务使用的调度器，默认Schedulers.io()
+     */
+    public static Scheduler io() {
+        return ioScheduler;
+    }
+
+    /**
+     * 设置库内阻塞任务使用的调度器，为null时恢复Schedulers.io()
+     */
+    public static void setIoScheduler(Scheduler scheduler) {
+        ioScheduler = scheduler == null ? Schedulers.io() : scheduler;
+    }
+
     public static <T> ObservableTransformer<T, T> applyGeneralObservableSchedulers() {
-        return upstream -> upstream.subscribeOn(Schedulers.io())
-                .unsubscribeOn(Schedulers.io())
-                .observeOn(Schedulers.io());
+        return upstream -> upstream.subscribeOn(io())
+                .unsubscribeOn(io())
+                .observeOn(io());
     }
 
     public static <T> FlowableTransformer<T, T> applyGeneralFlowableSchedulers() {
-        return upstream -> upstream.subscribeOn(Schedulers.io())
-                .unsubscribeOn(Schedulers.io())
-                .observeOn(Schedulers.io());
+        return upstream -> upstream.subscribeOn(io())
+                .unsubscribeOn(io())
+                .observeOn(io());
     }
 
     public static <T> SingleTransformer<T, T> applyGeneralSingleSchedulers() {
-        return upstream -> upstream.subscribeOn(Schedulers.io())
-                .unsubscribeOn(Schedulers.io())
-                .observeOn(Schedulers.io());
+        return upstream -> upstream.subscribeOn(io())
+                .unsubscribeOn(io())
+                .observeOn(io());
     }
 
     public static <T> MaybeTransformer<T, T> applyGeneralMaybeSchedulers() {
-        return upstream -> upstream.subscribeOn(Schedulers.io())
-                .unsubscribeOn(Schedulers.io())
-                .observeOn(Schedulers.io());
+        return upstream -> upstream.subscribeOn(io())
+                .unsubscribeOn(io())
+                .observeOn(io());
     }
 
     public static CompletableTransformer applyGeneralCompletableSchedulers() {
-        return upstream -> upstream.subscribeOn(Schedulers.io())
-                .unsubscribeOn(Schedulers.io())
-                .observeOn(Schedulers.io());
+        return upstream -> upstream.subscribeOn(io())
+                .unsubscribeOn(io())
+                .observeOn(io());
     }
 }
@@ -0,0 +1,99 @@
+package cn.wandersnail.common.http.util;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 线程工具。虚拟线程通过反射创建，在JDK 21以下也可编译运行
+ * <p>
+ * date: 2026/10/18 22:12
+ * author: zengfansheng
+ */
+public class ThreadUtils {
+    private static final Method OF_VIRTUAL;
+    private static final Method BUILDER_NAME;
+    private static final Method BUILDER_FACTORY;
+    private static final Method NEW_THREAD_PER_TASK_EXECUTOR;
+
+    static {
+        Method ofVirtual = null;
+        Method name = null;
+        Method factory = null;
+        Method perTask = null;
+        try {
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            ofVirtual = Thread.class.getMethod("ofVirtual");
+            name = builderClass.getMethod("name", String.class, long.class);
+            factory = builderClass.getMethod("factory");
+            perTask = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+        } catch (Exception ignore) {
+            ofVirtual = null;
+        }
+        OF_VIRTUAL = ofVirtual;
+        BUILDER_NAME = name;
+        BUILDER_FACTORY = factory;
+        NEW_THREAD_PER_TASK_EXECUTOR = perTask;
+    }
+
+    /**
+     * 当前JVM是否支持虚拟线程
+     */
+    public static boolean isVirtualThreadSupported() {
+        return OF_VIRTUAL != null;
+    }
+
+    /**
+     * 创建线程工厂
+     *
+     * @param name    线程名前缀
+     * @param virtual 是否使用虚拟线程，不支持时使用平台守护线程
+     */
+    public static ThreadFactory newThreadFactory(String name, boolean virtual) {
+        if (virtual && isVirtualThreadSupported()) {
+            try {
+                Object builder = BUILDER_NAME.invoke(OF_VIRTUAL.invoke(null), name + "-", 0L);
+                return (ThreadFactory) BUILDER_FACTORY.invoke(builder);
+            } catch (Exception ignore) {
+            }
+        }
+        AtomicInteger index = new AtomicInteger();
+        return r -> {
+            Thread thread = new Thread(r, name + "-" + index.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * 创建执行阻塞任务的线程池。支持虚拟线程时每个任务一个虚拟线程，否则为有界线程池，超出的任务排队
+     *
+     * @param name       线程名前缀
+     * @param maxThreads 不支持虚拟线程时的最大线程数
+     */
+    public static ExecutorService newVirtualThreadExecutor(String name, int maxThreads) {
+        if (isVirtualThreadSupported()) {
+            try {
+                return (ExecutorService) NEW_THREAD_PER_TASK_EXECUTOR.invoke(null, newThreadFactory(name, true));
+            } catch (Exception ignore) {
+            }
+        }
+        return newBoundedExecutor(name, maxThreads);
+    }
+
+    /**
+     * 创建有界线程池，闲置线程60秒后回收
+     */
+    public static ThreadPoolExecutor newBoundedExecutor(String name, int maxThreads) {
+        int size = Math.max(1, maxThreads);
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(size, size, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), newThreadFactory(name, false));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+}
@@ -0,0 +1,110 @@
+package cn.wandersnail.common;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * date: 2026/10/19 11:35
+ * author: zengfansheng
+ */
+public class DirectorySizeIndexTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    private File root;
+    private DirectorySizeIndex index;
+
+    @Before
+    public void setUp() throws Exception {
+        root = folder.newFolder("root");
+        write(new File(root, "a.bin"), 100);
+        write(new File(root, "sub/b.bin"), 200);
+        index = new DirectorySizeIndex(root).setReconcileInterval(0, TimeUnit.SECONDS);
+        index.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        index.close();
+    }
+
+    private static void write(File file, int length) throws Exception {
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), new byte[length]);
+    }
+
+    //事件异步到达，轮询直到一致
+    private static void awaitEquals(long expected, LongSupplier actual) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (actual.getAsLong() != expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(expected, actual.getAsLong());
+    }
+
+    @Test
+    public void initialScan() {
+        assertEquals(300, index.getSize());
+        assertEquals(200, index.getSize(new File(root, "sub")));
+        assertEquals(100, index.getSize(new File(root, "a.bin")));
+        assertEquals(0, index.getSize(new File(root, "missing")));
+        DirectorySizeIndex.Stats stats = index.getStats();
+        assertEquals(2, stats.fileCount);
+        assertEquals(2, stats.dirCount);
+    }
+
+    @Test
+    public void tracksCreateModifyAndDelete() throws Exception {
+        File c = new File(root, "c.bin");
+        write(c, 50);
+        awaitEquals(350, index::getSize);
+        write(c, 80);
+        awaitEquals(380, index::getSize);
+        Files.delete(c.toPath());
+        awaitEquals(300, index::getSize);
+    }
+
+    @Test
+    public void tracksNewAndRemovedSubtree() throws Exception {
+        File deep = new File(root, "x/y/z");
+        deep.mkdirs();
+        awaitEquals(5, () -> index.getStats().dirCount);
+        write(new File(deep, "d.bin"), 400);
+        awaitEquals(700, index::getSize);
+        awaitEquals(400, () -> index.getSize(new File(root, "x")));
+        FileUtils.deleteDir(new File(root, "x"));
+        awaitEquals(300, index::getSize);
+        awaitEquals(2, () -> index.getStats().dirCount);
+        assertEquals(0, index.getSize(new File(root, "x/y")));
+    }
+
+    @Test
+    public void reconcileAfterEventsHasNoDrift() throws Exception {
+        write(new File(root, "sub/e.bin"), 30);
+        awaitEquals(330, index::getSize);
+        index.reconcile();
+        DirectorySizeIndex.Stats stats = index.getStats();
+        assertEquals(330, stats.size);
+        assertEquals(0, stats.lastDrift);
+        assertEquals(0, stats.errorCount);
+        assertNull(stats.lastError);
+    }
+
+    @Test
+    public void closeStopsUpdates() throws Exception {
+        index.close();
+        write(new File(root, "late.bin"), 10);
+        Thread.sleep(200);
+        assertEquals(300, index.getSize());
+    }
+}
@@ -0,0 +1,106 @@
+package cn.wandersnail.common;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * date: 2026/10/19 11:45
+ * author: zengfansheng
+ */
+public class FileDeleterTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    private File root;
+
+    //根目录下3个子文件夹，每个600个10字节的文件，超过一批的数量
+    @Before
+    public void setUp() throws Exception {
+        root = folder.newFolder("root");
+        for (int i = 0; i < 3; i++) {
+            File dir = new File(root, "dir" + i + "/inner");
+            assertTrue(dir.mkdirs());
+            for (int j = 0; j < 600; j++) {
+                Files.write(new File(dir, j + ".bin").toPath(), new byte[10]);
+            }
+        }
+    }
+
+    @Test
+    public void deletesTreeWithCounts() {
+        FileDeleter.Result result = new FileDeleter().setParallelism(4).delete(root);
+        assertTrue(result.isSuccessful());
+        assertEquals(1800, result.deletedFiles);
+        assertEquals(7, result.deletedDirs);
+        assertEquals(18000, result.deletedBytes);
+        assertFalse(root.exists());
+    }
+
+    @Test
+    public void emptyKeepsDir() {
+        FileDeleter.Result result = new FileDeleter().empty(root);
+        assertTrue(result.isSuccessful());
+        assertEquals(1800, result.deletedFiles);
+        assertEquals(6, result.deletedDirs);
+        assertTrue(root.isDirectory());
+        assertArrayEquals(new String[0], root.list());
+    }
+
+    @Test
+    public void doesNotFollowSymlinks() throws Exception {
+        File outside = folder.newFolder("outside");
+        File kept = new File(outside, "kept.bin");
+        Files.write(kept.toPath(), new byte[5]);
+        Files.createSymbolicLink(new File(root, "link").toPath(), outside.toPath());
+        assertTrue(new FileDeleter().delete(root).isSuccessful());
+        assertFalse(root.exists());
+        assertTrue(kept.exists());
+    }
+
+    @Test
+    public void missingFileIsEmptyResult() throws Exception {
+        File missing = new File(folder.getRoot(), "missing");
+        FileDeleter.Result result = new FileDeleter().delete(missing);
+        assertTrue(result.isSuccessful());
+        assertEquals(0, result.deletedFiles + result.deletedDirs);
+        result = new FileDeleter().deleteInBackground(missing).get(10, TimeUnit.SECONDS);
+        assertEquals(0, result.deletedFiles + result.deletedDirs);
+    }
+
+    @Test
+    public void backgroundDeleteFreesPathImmediately() throws Exception {
+        File trash = folder.newFolder("trash");
+        FileDeleter deleter = new FileDeleter().setTrashDir(trash);
+        CompletableFuture<FileDeleter.Result> future = deleter.deleteInBackground(root);
+        //返回时原路径已不存在，可重新创建
+        assertFalse(root.exists());
+        assertTrue(root.mkdir());
+        FileDeleter.Result result = future.get(30, TimeUnit.SECONDS);
+        assertEquals(1800, result.deletedFiles);
+        assertTrue(root.isDirectory());
+        assertArrayEquals(new String[0], trash.list());
+    }
+
+    @Test
+    public void reclaimsLeftoverTrash() throws Exception {
+        File trash = folder.newFolder("trash");
+        //模拟上次后台删除中途退出留下的文件夹
+        assertTrue(new File(root, "dir0").renameTo(new File(trash, ".trash-dir0-1")));
+        File other = new File(trash, "other.bin");
+        Files.write(other.toPath(), new byte[1]);
+        FileDeleter.Result result = new FileDeleter().reclaimTrash(trash).get(30, TimeUnit.SECONDS);
+        assertEquals(600, result.deletedFiles);
+        assertArrayEquals(new String[]{"other.bin"}, trash.list());
+    }
+}
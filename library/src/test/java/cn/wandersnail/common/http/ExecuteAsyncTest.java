@@ -0,0 +1,146 @@
+package cn.wandersnail.common.http;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import okhttp3.Call;
+import okhttp3.OkHttpClient;
+import okhttp3.ResponseBody;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.SocketPolicy;
+import retrofit2.Retrofit;
+import retrofit2.adapter.rxjava2.RxJava2CallAdapterFactory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * date: 2026/10/19 15:20
+ * author: zengfansheng
+ */
+public class ExecuteAsyncTest {
+    private final AtomicReference<String> convertThread = new AtomicReference<>();
+    private MockWebServer server;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        server.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    private CompletableFuture<ConvertedResponse<String>> get(Configuration configuration, Executor executor) {
+        return EasyHttp.<String>getRequester()
+                .setConfiguration(configuration)
+                .setUrl(server.url("/data").toString())
+                .setConverter(body -> {
+                    convertThread.set(Thread.currentThread().getName());
+                    return body.string();
+                })
+                .executeAsync(executor);
+    }
+
+    private Retrofit retrofit(OkHttpClient client) {
+        return new Retrofit.Builder()
+                .baseUrl(server.url("/"))
+                .client(client)
+                .addCallAdapterFactory(RxJava2CallAdapterFactory.create())
+                .build();
+    }
+
+    @Test
+    public void completesOnCallerExecutor() throws Exception {
+        server.enqueue(new MockResponse().setBody("ok"));
+        ExecutorService executor = Executors.newSingleThreadExecutor(r -> new Thread(r, "caller-executor"));
+        try {
+            ConvertedResponse<String> result = get(new Configuration(), executor).get(10, TimeUnit.SECONDS);
+            assertEquals("ok", result.convertedResponse);
+            assertEquals(200, result.response.code());
+            //转换及完成都在调用方的线程池中执行
+            assertEquals("caller-executor", convertThread.get());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void timeoutCompletesNormally() throws Exception {
+        server.enqueue(new MockResponse().setSocketPolicy(SocketPolicy.NO_RESPONSE));
+        Configuration configuration = new Configuration();
+        configuration.callTimeout = 1;
+        //读取超时比整体超时长，只验证整体超时
+        configuration.retrofit = retrofit(new OkHttpClient.Builder().readTimeout(30, TimeUnit.SECONDS).build());
+        long start = System.nanoTime();
+        ConvertedResponse<String> result = get(configuration, null).get(10, TimeUnit.SECONDS);
+        assertTrue(result.isCallTimeout);
+        assertNull(result.convertedResponse);
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(4));
+    }
+
+    @Test
+    public void cancelingFutureCancelsCall() throws Exception {
+        //服务器不响应，请求一直挂起
+        server.enqueue(new MockResponse().setSocketPolicy(SocketPolicy.NO_RESPONSE));
+        AtomicReference<Call> call = new AtomicReference<>();
+        OkHttpClient client = new OkHttpClient.Builder()
+                .addInterceptor(chain -> {
+                    call.set(chain.call());
+                    return chain.proceed(chain.request());
+                })
+                .build();
+        Configuration configuration = new Configuration();
+        configuration.retrofit = retrofit(client);
+        CompletableFuture<ConvertedResponse<String>> future = get(configuration, null);
+        //等请求到达服务器后再取消
+        server.takeRequest(5, TimeUnit.SECONDS);
+        assertTrue(future.cancel(true));
+        assertTrue(call.get().isCanceled());
+        try {
+            future.get();
+            fail();
+        } catch (CancellationException expected) {
+        }
+    }
+
+    @Test
+    public void networkErrorCompletesExceptionally() throws Exception {
+        String url = server.url("/data").toString();
+        server.shutdown();
+        try {
+            EasyHttp.<String>getRequester().setUrl(url).setConverter(ResponseBody::string).executeAsync().get(10, TimeUnit.SECONDS);
+            fail();
+        } catch (ExecutionException expected) {
+        }
+    }
+
+    @Test
+    public void freshCacheHitMakesNoRequest() throws Exception {
+        server.enqueue(new MockResponse().setHeader("Cache-Control", "max-age=60").setBody("cached"));
+        Configuration configuration = new Configuration();
+        configuration.responseCache = new ResponseCache(1024 * 1024);
+        assertEquals("cached", get(configuration, null).get(10, TimeUnit.SECONDS).convertedResponse);
+        ConvertedResponse<String> second = get(configuration, null).get(10, TimeUnit.SECONDS);
+        assertEquals("cached", second.convertedResponse);
+        assertFalse(second.isCallTimeout);
+        assertEquals(1, server.getRequestCount());
+        assertEquals(1, configuration.responseCache.getStats().hitCount);
+    }
+}
@@ -0,0 +1,104 @@
+package cn.wandersnail.common.http;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import cn.wandersnail.common.http.callback.RequestCallback;
+import io.reactivex.Observable;
+import io.reactivex.schedulers.Schedulers;
+import okhttp3.MediaType;
+import okhttp3.ResponseBody;
+import retrofit2.Converter;
+import retrofit2.Response;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * date: 2026/10/19 14:40
+ * author: zengfansheng
+ */
+public class GeneralRequestTaskTest {
+    private static Response<ResponseBody> ok() {
+        return Response.success(ResponseBody.create(MediaType.parse("text/plain"), "ok"));
+    }
+
+    private static Configuration configuration(int callTimeout) {
+        Configuration configuration = new Configuration();
+        configuration.callTimeout = callTimeout;
+        //在构造线程订阅，在io线程回调
+        configuration.schedulerStrategy = SchedulerStrategy.from(Schedulers.trampoline(), Schedulers.io());
+        return configuration;
+    }
+
+    @Test
+    public void finishedBeforeSubscribeReturnsIsNotDisposed() throws Exception {
+        CountDownLatch converting = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(1);
+        AtomicBoolean interrupted = new AtomicBoolean();
+        AtomicReference<String> result = new AtomicReference<>();
+        //发出结果后等到转换开始才返回，即订阅返回时请求已正常结束
+        Observable<Response<ResponseBody>> observable = Observable.create(emitter -> {
+            emitter.onNext(ok());
+            converting.await();
+            emitter.onComplete();
+        });
+        Converter<ResponseBody, String> converter = body -> {
+            converting.countDown();
+            try {
+                Thread.sleep(300);
+            } catch (InterruptedException e) {
+                interrupted.set(true);
+            }
+            return body.string();
+        };
+        new GeneralRequestTask<>(observable, converter, configuration(10), new RequestCallback<String>() {
+            @Override
+            public void onError(Throwable t) {
+                done.countDown();
+            }
+
+            @Override
+            public void onResponse(Response<ResponseBody> response, String successBody, ResponseBody errorBody) {
+                result.set(successBody);
+                done.countDown();
+            }
+        });
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertFalse(interrupted.get());
+        assertEquals("ok", result.get());
+    }
+
+    @Test
+    public void timeoutDisposesRequest() throws Exception {
+        CountDownLatch done = new CountDownLatch(1);
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        AtomicBoolean disposed = new AtomicBoolean();
+        Observable<Response<ResponseBody>> never = Observable.<Response<ResponseBody>>never()
+                .doOnDispose(() -> disposed.set(true));
+        GeneralRequestTask<String> task = new GeneralRequestTask<>(never, ResponseBody::string, configuration(1),
+                new RequestCallback<String>() {
+                    @Override
+                    public void onError(Throwable t) {
+                        error.set(t);
+                        done.countDown();
+                    }
+
+                    @Override
+                    public void onResponse(Response<ResponseBody> response, String successBody, ResponseBody errorBody) {
+                        done.countDown();
+                    }
+                });
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertTrue(error.get() instanceof TimeoutException);
+        assertTrue(disposed.get());
+        assertNull(task.getDisposable());
+    }
+}
@@ -0,0 +1,118 @@
+package cn.wandersnail.common.http;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import cn.wandersnail.common.http.retry.ExponentialBackoffRetryPolicy;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.ResponseBody;
+import retrofit2.Response;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+/**
+ * date: 2026/10/19 10:00
+ * author: zengfansheng
+ */
+public class HttpClientRegistryTest {
+    private MockWebServer server;
+    private HttpClientRegistry registry;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        server.start();
+        registry = new HttpClientRegistry();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        registry.clear();
+        server.shutdown();
+    }
+
+    @Test
+    public void sameKeyReturnsCachedInstances() {
+        String baseUrl = server.url("/").toString();
+        HttpService a = registry.getService(baseUrl, 5, false, HttpService.class);
+        HttpService b = registry.getService(baseUrl, 5, false, HttpService.class);
+        assertSame(a, b);
+        assertSame(registry.getRetrofit(baseUrl, 5, false), registry.getRetrofit(baseUrl, 5, false));
+        assertNotSame(registry.getRetrofit(baseUrl, 10, false), registry.getRetrofit(baseUrl, 5, false));
+        HttpClientRegistry.Stats stats = registry.getStats();
+        assertEquals(2, stats.size);
+        assertEquals(2, stats.missCount);
+    }
+
+    @Test
+    public void clientsShareConnectionPool() {
+        OkHttpClient a = registry.getClient(5, false);
+        OkHttpClient b = registry.getClient(30, true);
+        assertNotSame(a, b);
+        assertSame(a.connectionPool(), b.connectionPool());
+        assertSame(a.dispatcher(), b.dispatcher());
+        assertEquals(TimeUnit.SECONDS.toMillis(5), a.readTimeoutMillis());
+    }
+
+    @Test
+    public void connectionsAreReused() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            server.enqueue(new MockResponse().setBody("ok"));
+        }
+        HttpService service = registry.getService(server.url("/").toString(), 5, false, HttpService.class);
+        for (int i = 0; i < 3; i++) {
+            Response<ResponseBody> response = service.getSync(server.url("/a").toString()).execute();
+            assertEquals("ok", response.body().string());
+        }
+        assertEquals(0, server.takeRequest().getSequenceNumber());
+        assertEquals(1, server.takeRequest().getSequenceNumber());
+        assertEquals(2, server.takeRequest().getSequenceNumber());
+        assertEquals(1, registry.getStats().connectionCount);
+    }
+
+    @Test
+    public void idleClientsAreEvicted() throws Exception {
+        registry.setIdleTimeout(50, TimeUnit.MILLISECONDS);
+        //每次新建重试策略，各自对应一个客户端
+        OkHttpClient first = registry.getClient(5, false, new ExponentialBackoffRetryPolicy(), null);
+        for (int i = 0; i < 9; i++) {
+            registry.getClient(5, false, new ExponentialBackoffRetryPolicy(), null);
+        }
+        assertEquals(10, registry.getStats().clientCount);
+        Thread.sleep(100);
+        assertEquals(10, registry.evictIdle());
+        assertEquals(0, registry.getStats().clientCount);
+        //被移除后仍可使用，共用连接池
+        server.enqueue(new MockResponse().setBody("ok"));
+        Request request = new Request.Builder().url(server.url("/")).build();
+        assertEquals("ok", first.newCall(request).execute().body().string());
+    }
+
+    @Test
+    public void clientInUseByEntryIsKept() throws Exception {
+        registry.setIdleTimeout(200, TimeUnit.MILLISECONDS);
+        String baseUrl = server.url("/").toString();
+        ExponentialBackoffRetryPolicy policy = new ExponentialBackoffRetryPolicy();
+        registry.getService(baseUrl, 5, false, policy, null, HttpService.class);
+        assertEquals(1, registry.getStats().clientCount);
+        //条目一直被使用，其客户端不会被移除
+        for (int i = 0; i < 3; i++) {
+            Thread.sleep(100);
+            registry.getService(baseUrl, 5, false, policy, null, HttpService.class);
+        }
+        assertEquals(0, registry.evictIdle());
+        assertEquals(1, registry.getStats().clientCount);
+        Thread.sleep(250);
+        assertEquals(2, registry.evictIdle());
+        assertEquals(0, registry.getStats().size);
+        assertEquals(0, registry.getStats().clientCount);
+    }
+}
@@ -0,0 +1,72 @@
+package cn.wandersnail.common.http;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * date: 2026/10/19 15:05
+ * author: zengfansheng
+ */
+public class ProgressAggregatorTest {
+    @Test
+    public void flushEmitsLatestOnce() {
+        List<String> emitted = new ArrayList<>();
+        ProgressAggregator.Tracker tracker = new ProgressAggregator(1, TimeUnit.HOURS)
+                .newTracker((progress, max) -> emitted.add(progress + "/" + max));
+        tracker.flush();
+        tracker.update(1, 10);
+        tracker.update(5, 10);
+        tracker.flush();
+        tracker.flush();
+        assertEquals(Collections.singletonList("5/10"), emitted);
+        tracker.update(10, 10);
+        tracker.flush();
+        assertEquals(2, emitted.size());
+        tracker.close();
+    }
+
+    @Test
+    public void concurrentUpdatesAreConsistentPairs() throws Exception {
+        AtomicReference<String> mismatch = new AtomicReference<>();
+        AtomicInteger count = new AtomicInteger();
+        ProgressAggregator aggregator = new ProgressAggregator(1, TimeUnit.MILLISECONDS);
+        //总大小始终为进度加1000，读到不匹配的一对即为错误
+        ProgressAggregator.Tracker tracker = aggregator.newTracker((progress, max) -> {
+            count.incrementAndGet();
+            if (max != progress + 1000) {
+                mismatch.set(progress + "/" + max);
+            }
+        });
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            threads.add(new Thread(() -> {
+                for (long i = 0; i < 200000; i++) {
+                    tracker.update(i, i + 1000);
+                    if (i % 1000 == 0) {
+                        tracker.flush();
+                    }
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        tracker.flush();
+        tracker.close();
+        assertNull(mismatch.get());
+        assertTrue(count.get() > 0);
+    }
+}
@@ -0,0 +1,161 @@
+package cn.wandersnail.common.http;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import cn.wandersnail.common.http.callback.RequestCallback;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.disposables.Disposables;
+import io.reactivex.functions.Function;
+import okhttp3.MediaType;
+import okhttp3.ResponseBody;
+import retrofit2.Converter;
+import retrofit2.Response;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * date: 2026/10/19 11:25
+ * author: zengfansheng
+ */
+public class RequestCoalescerTest {
+    private final RequestCoalescer coalescer = new RequestCoalescer();
+    private final Converter<ResponseBody, String> converter = ResponseBody::string;
+    private final AtomicInteger starts = new AtomicInteger();
+    private final AtomicReference<RequestCallback<String>> shared = new AtomicReference<>();
+    private final Disposable request = Disposables.empty();
+    //只记录回调，由测试决定何时返回结果
+    private final Function<RequestCallback<String>, Disposable> starter = callback -> {
+        starts.incrementAndGet();
+        shared.set(callback);
+        return request;
+    };
+
+    private void complete(String body) {
+        shared.get().onResponse(Response.success(ResponseBody.create(MediaType.parse("text/plain"), body)), body, null);
+    }
+
+    private static class Recorder implements RequestCallback<String> {
+        final List<String> results = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public void onError(Throwable t) {
+            results.add("error");
+        }
+
+        @Override
+        public void onResponse(Response<ResponseBody> response, String successBody, ResponseBody errorBody) {
+            results.add(successBody);
+        }
+    }
+
+    @Test
+    public void concurrentCallersShareOneRequest() throws Exception {
+        List<Recorder> recorders = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            Recorder recorder = new Recorder();
+            recorders.add(recorder);
+            threads.add(new Thread(() -> coalescer.enqueue("GET /a", converter, starter, recorder)));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(1, starts.get());
+        assertEquals(1, coalescer.getInFlightCount());
+        complete("v");
+        for (Recorder recorder : recorders) {
+            assertEquals(Collections.singletonList("v"), recorder.results);
+        }
+        assertEquals(0, coalescer.getInFlightCount());
+        //结束后的相同请求重新发起
+        coalescer.enqueue("GET /a", converter, starter, new Recorder());
+        assertEquals(2, starts.get());
+    }
+
+    @Test
+    public void differentKeyOrConverterIsNotShared() {
+        coalescer.enqueue("GET /a", converter, starter, new Recorder());
+        coalescer.enqueue("GET /b", converter, starter, new Recorder());
+        coalescer.enqueue("GET /a", ResponseBody::string, starter, new Recorder());
+        assertEquals(3, starts.get());
+    }
+
+    @Test
+    public void disposedCallerOnlyDetachesItself() {
+        Recorder first = new Recorder();
+        Recorder second = new Recorder();
+        Disposable d = coalescer.enqueue("GET /a", converter, starter, first);
+        coalescer.enqueue("GET /a", converter, starter, second);
+        d.dispose();
+        assertTrue(d.isDisposed());
+        assertFalse(request.isDisposed());
+        complete("v");
+        assertTrue(first.results.isEmpty());
+        assertEquals(Collections.singletonList("v"), second.results);
+    }
+
+    @Test
+    public void requestIsCanceledWhenAllCallersDispose() {
+        Disposable a = coalescer.enqueue("GET /a", converter, starter, new Recorder());
+        Disposable b = coalescer.enqueue("GET /a", converter, starter, new Recorder());
+        a.dispose();
+        assertFalse(request.isDisposed());
+        b.dispose();
+        assertTrue(request.isDisposed());
+        assertEquals(0, coalescer.getInFlightCount());
+    }
+
+    @Test
+    public void syncCallerReceivesResult() throws Exception {
+        coalescer.enqueue("GET /a", converter, starter, new Recorder());
+        AtomicReference<ConvertedResponse<String>> result = new AtomicReference<>();
+        Thread thread = new Thread(() -> result.set(coalescer.execute("GET /a", converter, starter)));
+        thread.start();
+        //等同步调用方加入后再返回结果
+        while (thread.getState() != Thread.State.WAITING) {
+            Thread.sleep(10);
+        }
+        complete("v");
+        thread.join(5000);
+        assertEquals("v", result.get().convertedResponse);
+        assertEquals(200, result.get().response.code());
+        assertEquals(1, starts.get());
+    }
+
+    @Test
+    public void interruptedSyncCallerDetaches() throws Exception {
+        Recorder other = new Recorder();
+        coalescer.enqueue("GET /a", converter, starter, other);
+        AtomicReference<ConvertedResponse<String>> result = new AtomicReference<>();
+        CountDownLatch returned = new CountDownLatch(1);
+        Thread thread = new Thread(() -> {
+            result.set(coalescer.execute("GET /a", converter, starter));
+            returned.countDown();
+        });
+        thread.start();
+        while (thread.getState() != Thread.State.WAITING) {
+            Thread.sleep(10);
+        }
+        thread.interrupt();
+        assertTrue(returned.await(5, TimeUnit.SECONDS));
+        assertTrue(result.get().isCanceled());
+        assertNull(result.get().convertedResponse);
+        assertFalse(request.isDisposed());
+        complete("v");
+        assertEquals(Collections.singletonList("v"), other.results);
+    }
+}
@@ -0,0 +1,123 @@
+package cn.wandersnail.common.http;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.ResponseBody;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import retrofit2.Converter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * date: 2026/10/19 11:15
+ * author: zengfansheng
+ */
+public class ResponseCacheTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    private final AtomicInteger conversions = new AtomicInteger();
+    private final Converter<ResponseBody, String> converter = body -> {
+        conversions.incrementAndGet();
+        return body.string();
+    };
+    private MockWebServer server;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        server.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    private ConvertedResponse<String> get(ResponseCache cache, Map<String, String> headers) {
+        Configuration configuration = new Configuration();
+        configuration.responseCache = cache;
+        configuration.headers = headers;
+        return EasyHttp.<String>getRequester()
+                .setConfiguration(configuration)
+                .setUrl(server.url("/data").toString())
+                .setConverter(converter)
+                .execute();
+    }
+
+    @Test
+    public void revalidatesWithETag() throws Exception {
+        server.enqueue(new MockResponse().setHeader("ETag", "\"v1\"").setBody("body"));
+        server.enqueue(new MockResponse().setResponseCode(304).setHeader("ETag", "\"v1\""));
+        ResponseCache cache = new ResponseCache(1024 * 1024);
+        assertEquals("body", get(cache, null).convertedResponse);
+        ConvertedResponse<String> second = get(cache, null);
+        assertEquals("body", second.convertedResponse);
+        assertEquals(200, second.response.code());
+        assertNull(server.takeRequest().getHeader("If-None-Match"));
+        assertEquals("\"v1\"", server.takeRequest().getHeader("If-None-Match"));
+        assertEquals(1, cache.getStats().revalidationCount);
+        //304沿用缓存的转换结果
+        assertEquals(1, conversions.get());
+    }
+
+    @Test
+    public void freshEntryIsServedWithoutRequest() {
+        server.enqueue(new MockResponse().setHeader("Cache-Control", "max-age=60").setBody("fresh"));
+        ResponseCache cache = new ResponseCache(1024 * 1024);
+        assertEquals("fresh", get(cache, null).convertedResponse);
+        assertEquals("fresh", get(cache, null).convertedResponse);
+        assertEquals(1, server.getRequestCount());
+        assertEquals(1, cache.getStats().hitCount);
+    }
+
+    @Test
+    public void keyHashesCredentialHeaders() {
+        Map<String, String> headers = new HashMap<>();
+        headers.put("authorization", "Bearer secret-token");
+        headers.put("Cookie", "session=secret-cookie");
+        headers.put("Accept", "application/json");
+        String key = ResponseCache.key("http://host/data", headers);
+        assertFalse(key.contains("secret"));
+        assertTrue(key.contains("Accept: application/json"));
+        headers.put("authorization", "Bearer other-token");
+        //凭据不同仍是不同的缓存
+        assertNotEquals(key, ResponseCache.key("http://host/data", headers));
+    }
+
+    @Test
+    public void diskStoreDoesNotPersistKey() throws Exception {
+        File dir = folder.newFolder("cache");
+        server.enqueue(new MockResponse().setHeader("Cache-Control", "max-age=60").setBody("disk"));
+        Map<String, String> headers = Collections.singletonMap("Authorization", "Bearer secret-token");
+        assertEquals("disk", get(new ResponseCache(1024).setDiskCache(dir, 1024 * 1024), headers).convertedResponse);
+        File[] files = dir.listFiles();
+        assertTrue(files != null && files.length == 2);
+        for (File file : files) {
+            String content = new String(Files.readAllBytes(file.toPath()), StandardCharsets.ISO_8859_1);
+            assertFalse(file.getName(), content.contains("secret"));
+            assertFalse(file.getName(), content.contains("/data"));
+        }
+        //新的实例从磁盘读取，按哈希校验键
+        ResponseCache reopened = new ResponseCache(1024).setDiskCache(dir, 1024 * 1024);
+        assertEquals("disk", get(reopened, headers).convertedResponse);
+        assertEquals(1, server.getRequestCount());
+        assertEquals(1, reopened.getStats().hitCount);
+    }
+}
@@ -0,0 +1,80 @@
+package cn.wandersnail.common.http.converter;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import okhttp3.MediaType;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * date: 2026/10/19 14:10
+ * author: zengfansheng
+ */
+public class JsonResponseConverterTest {
+    private static final MediaType JSON = MediaType.parse("application/json; charset=utf-8");
+
+    public static class Item {
+        public String name;
+        public int count;
+    }
+
+    //长度已知
+    private static ResponseBody body(String json) {
+        return ResponseBody.create(JSON, json);
+    }
+
+    //长度未知，走流式解析
+    private static ResponseBody chunkedBody(String json) {
+        return ResponseBody.create(JSON, -1, new Buffer().writeString(json, StandardCharsets.UTF_8));
+    }
+
+    private static JsonResponseConverter<Item> converter(JsonParserType type, long threshold) {
+        return new JsonResponseConverter<>(Item.class, type).setStreamingThreshold(threshold);
+    }
+
+    @Test
+    public void emptyBodyIsNull() throws Exception {
+        for (JsonParserType type : JsonParserType.values()) {
+            assertNull(type.name(), converter(type, 1024).convert(body("")));
+            assertNull(type.name(), converter(type, 0).convert(body("")));
+            assertNull(type.name(), converter(type, 1024).convert(chunkedBody("")));
+        }
+    }
+
+    @Test
+    public void nullLiteralIsNull() throws Exception {
+        for (JsonParserType type : JsonParserType.values()) {
+            assertNull(type.name(), converter(type, 1024).convert(body("null")));
+            assertNull(type.name(), converter(type, 1024).convert(chunkedBody("null")));
+        }
+    }
+
+    @Test
+    public void parsesObject() throws Exception {
+        String json = "{\"name\":\"中文\",\"count\":3}";
+        for (JsonParserType type : JsonParserType.values()) {
+            for (ResponseBody body : new ResponseBody[]{body(json), chunkedBody(json)}) {
+                Item item = converter(type, 1024).convert(body);
+                assertEquals(type.name(), "中文", item.name);
+                assertEquals(type.name(), 3, item.count);
+            }
+        }
+    }
+
+    @Test
+    public void parsesNonUtf8Body() throws Exception {
+        MediaType gbk = MediaType.parse("application/json; charset=GBK");
+        byte[] bytes = "{\"name\":\"中文\"}".getBytes("GBK");
+        for (JsonParserType type : JsonParserType.values()) {
+            Item item = converter(type, 1024).convert(ResponseBody.create(gbk, bytes));
+            assertEquals(type.name(), "中文", item.name);
+            item = converter(type, 1024).convert(ResponseBody.create(gbk, -1, new Buffer().write(bytes)));
+            assertEquals(type.name(), "中文", item.name);
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package cn.wandersnail.common.http.download;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import cn.wandersnail.common.http.TaskInfo;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * date: 2026/10/19 10:25
+ * author: zengfansheng
+ */
+public class DownloadJournalTest {
+    private static final String URL = "http://localhost/file.bin";
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    private MockWebServer server;
+
+    @After
+    public void tearDown() throws Exception {
+        if (server != null) {
+            server.shutdown();
+        }
+    }
+
+    private DownloadInfo newInfo(String url, File saveFile) {
+        DownloadInfo info = new DownloadInfo(url, saveFile.getPath());
+        info.setResumable(true);
+        return info;
+    }
+
+    private File journalFile(File saveFile) {
+        return new File(saveFile.getParentFile(), "." + saveFile.getName() + ".journal");
+    }
+
+    //下载到结束，返回错误
+    private Throwable download(String url, File saveFile) throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(1);
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        new DownloadWorkerBuilder()
+                .setFileInfo(url, saveFile.getPath())
+                .setResumable(true)
+                .setScheduler(new DownloadScheduler())
+                .setListener(new DownloadListener<DownloadInfo>() {
+                    @Override
+                    public void onStateChange(DownloadInfo info, Throwable t) {
+                        if (info.state == TaskInfo.State.COMPLETED || info.state == TaskInfo.State.ERROR) {
+                            error.set(t);
+                            latch.countDown();
+                        }
+                    }
+
+                    @Override
+                    public void onProgress(DownloadInfo info) {
+                    }
+                })
+                .build();
+        assertTrue(latch.await(30, TimeUnit.SECONDS));
+        return error.get();
+    }
+
+    @Test
+    public void restoresSegments() throws Exception {
+        File saveFile = new File(folder.getRoot(), "file.bin");
+        DownloadInfo info = newInfo(URL, saveFile);
+        info.prepare();
+        info.contentLength = 300;
+        info.eTag = "\"v1\"";
+        DownloadSegment first = new DownloadSegment(0, 149);
+        first.completionLength = 100;
+        first.persistedLength = 80;
+        DownloadSegment second = new DownloadSegment(150, 299);
+        second.completionLength = 150;
+        second.persistedLength = 150;
+        info.segments = Arrays.asList(first, second);
+        try (RandomAccessFile file = new RandomAccessFile(info.getTemporaryFile(), "rw")) {
+            file.setLength(300);
+        }
+        info.saveJournal();
+        assertTrue(journalFile(saveFile).exists());
+
+        DownloadInfo restored = newInfo(URL, saveFile);
+        restored.prepare();
+        assertEquals(info.getTemporaryFile(), restored.getTemporaryFile());
+        assertEquals(300, restored.contentLength);
+        assertEquals("\"v1\"", restored.eTag);
+        assertEquals(2, restored.segments.size());
+        //只恢复已落盘的长度
+        assertEquals(80, restored.segments.get(0).completionLength);
+        assertTrue(restored.segments.get(1).isComplete());
+        assertEquals(230, restored.completionLength);
+    }
+
+    @Test
+    public void ignoresJournalWithoutValidators() throws Exception {
+        File saveFile = new File(folder.getRoot(), "file.bin");
+        DownloadInfo info = newInfo(URL, saveFile);
+        info.prepare();
+        info.contentLength = 100;
+        info.persistedLength = 50;
+        Files.write(info.getTemporaryFile().toPath(), new byte[50]);
+        info.saveJournal();
+
+        DownloadInfo restored = newInfo(URL, saveFile);
+        restored.prepare();
+        assertNotEquals(info.getTemporaryFile(), restored.getTemporaryFile());
+        assertEquals(0, restored.completionLength);
+        assertFalse(journalFile(saveFile).exists());
+    }
+
+    @Test
+    public void ignoresJournalWhenTemporaryFileIsShort() throws Exception {
+        File saveFile = new File(folder.getRoot(), "file.bin");
+        DownloadInfo info = newInfo(URL, saveFile);
+        info.prepare();
+        info.contentLength = 100;
+        info.persistedLength = 50;
+        info.lastModified = "Mon, 19 Oct 2026 00:00:00 GMT";
+        Files.write(info.getTemporaryFile().toPath(), new byte[10]);
+        info.saveJournal();
+
+        DownloadInfo restored = newInfo(URL, saveFile);
+        restored.prepare();
+        assertEquals(0, restored.persistedLength);
+    }
+
+    @Test
+    public void ignoresJournalForDifferentUrl() throws Exception {
+        File saveFile = new File(folder.getRoot(), "file.bin");
+        DownloadInfo info = newInfo(URL, saveFile);
+        info.prepare();
+        info.persistedLength = 10;
+        info.eTag = "\"v1\"";
+        Files.write(info.getTemporaryFile().toPath(), new byte[10]);
+        info.saveJournal();
+
+        DownloadInfo restored = newInfo(URL + "?v=2", saveFile);
+        restored.prepare();
+        assertEquals(0, restored.persistedLength);
+    }
+
+    @Test
+    public void resumesFromPersistedOffset() throws Exception {
+        byte[] data = new byte[64 * 1024];
+        new Random(2).nextBytes(data);
+        server = new MockWebServer();
+        server.start();
+        String url = server.url("/file.bin").toString();
+        File saveFile = new File(folder.getRoot(), "file.bin");
+        //模拟上次进程退出前已写入前半部分
+        DownloadInfo previous = newInfo(url, saveFile);
+        previous.prepare();
+        previous.contentLength = data.length;
+        previous.persistedLength = 20000;
+        previous.eTag = "\"v1\"";
+        Files.write(previous.getTemporaryFile().toPath(), Arrays.copyOf(data, 20000));
+        previous.saveJournal();
+        server.enqueue(new MockResponse().setResponseCode(206)
+                .setHeader("ETag", "\"v1\"")
+                .setHeader("Content-Range", "bytes 20000-" + (data.length - 1) + "/" + data.length)
+                .setBody(new Buffer().write(data, 20000, data.length - 20000)));
+
+        assertNull(download(url, saveFile));
+        RecordedRequest request = server.takeRequest();
+        assertEquals("bytes=20000-", request.getHeader("Range"));
+        assertEquals("\"v1\"", request.getHeader("If-Range"));
+        assertArrayEquals(data, Files.readAllBytes(saveFile.toPath()));
+        //完成后删除日志
+        assertFalse(journalFile(saveFile).exists());
+    }
+
+    @Test
+    public void restartTruncatesStaleData() throws Exception {
+        byte[] data = new byte[5000];
+        new Random(5).nextBytes(data);
+        server = new MockWebServer();
+        server.start();
+        String url = server.url("/file.bin").toString();
+        File saveFile = new File(folder.getRoot(), "file.bin");
+        DownloadInfo previous = newInfo(url, saveFile);
+        previous.prepare();
+        previous.contentLength = 64 * 1024;
+        previous.persistedLength = 20000;
+        previous.eTag = "\"v1\"";
+        Files.write(previous.getTemporaryFile().toPath(), new byte[20000]);
+        previous.saveJournal();
+        //文件已变化，If-Range失败，返回更短的完整内容
+        server.enqueue(new MockResponse().setHeader("ETag", "\"v2\"").setBody(new Buffer().write(data)));
+
+        assertNull(download(url, saveFile));
+        assertEquals("bytes=20000-", server.takeRequest().getHeader("Range"));
+        assertArrayEquals(data, Files.readAllBytes(saveFile.toPath()));
+    }
+}
@@ -0,0 +1,99 @@
+package cn.wandersnail.common.http.download;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * date: 2026/10/19 10:40
+ * author: zengfansheng
+ */
+public class DownloadSchedulerTest {
+    private final List<String> started = Collections.synchronizedList(new ArrayList<>());
+
+    private DownloadScheduler.Task task(String name, Object owner, String host, int priority, int connections) {
+        return new DownloadScheduler.Task(owner, host, priority, connections) {
+            @Override
+            void start() {
+                started.add(name);
+            }
+        };
+    }
+
+    @Test
+    public void limitsTotalTasks() {
+        DownloadScheduler scheduler = new DownloadScheduler(2, 10);
+        DownloadScheduler.Task a = task("a", this, "h1", 0, 1);
+        scheduler.enqueue(a);
+        scheduler.enqueue(task("b", this, "h2", 0, 1));
+        scheduler.enqueue(task("c", this, "h3", 0, 1));
+        assertEquals(Arrays.asList("a", "b"), started);
+        assertEquals(1, scheduler.queuedCount());
+        scheduler.finished(a);
+        assertEquals(Arrays.asList("a", "b", "c"), started);
+        assertEquals(2, scheduler.runningCount());
+    }
+
+    @Test
+    public void limitsConnectionsPerHost() {
+        DownloadScheduler scheduler = new DownloadScheduler(10, 4);
+        DownloadScheduler.Task segmented = task("segmented", this, "h1", 0, 3);
+        scheduler.enqueue(segmented);
+        //已用3个连接，再开2个会超出上限
+        scheduler.enqueue(task("two", this, "h1", 0, 2));
+        scheduler.enqueue(task("one", this, "h1", 0, 1));
+        scheduler.enqueue(task("other", this, "h2", 0, 2));
+        assertEquals(Arrays.asList("segmented", "one", "other"), started);
+        scheduler.finished(segmented);
+        assertEquals(Arrays.asList("segmented", "one", "other", "two"), started);
+    }
+
+    @Test
+    public void wideTaskStartsWhenHostIsIdle() {
+        DownloadScheduler scheduler = new DownloadScheduler(10, 2);
+        DownloadScheduler.Task single = task("single", this, "h1", 0, 1);
+        scheduler.enqueue(single);
+        scheduler.enqueue(task("wide", this, "h1", 0, 8));
+        assertEquals(Collections.singletonList("single"), started);
+        scheduler.finished(single);
+        assertEquals(Arrays.asList("single", "wide"), started);
+    }
+
+    @Test
+    public void startsByPriorityThenFairness() {
+        DownloadScheduler scheduler = new DownloadScheduler(1, 10);
+        Object ownerA = new Object();
+        Object ownerB = new Object();
+        DownloadScheduler.Task blocker = task("blocker", ownerA, "h", 0, 1);
+        scheduler.enqueue(blocker);
+        DownloadScheduler.Task a1 = task("a1", ownerA, "h", 0, 1);
+        DownloadScheduler.Task b1 = task("b1", ownerB, "h", 0, 1);
+        DownloadScheduler.Task urgent = task("urgent", ownerA, "h", 5, 1);
+        scheduler.enqueue(a1);
+        scheduler.enqueue(b1);
+        scheduler.enqueue(urgent);
+        scheduler.finished(blocker);
+        scheduler.finished(urgent);
+        scheduler.finished(a1);
+        assertEquals(Arrays.asList("blocker", "urgent", "a1", "b1"), started);
+    }
+
+    @Test
+    public void finishedQueuedTaskIsDropped() {
+        DownloadScheduler scheduler = new DownloadScheduler(1, 10);
+        DownloadScheduler.Task running = task("running", this, "h", 0, 1);
+        DownloadScheduler.Task queued = task("queued", this, "h", 0, 1);
+        scheduler.enqueue(running);
+        scheduler.enqueue(queued);
+        scheduler.finished(queued);
+        scheduler.finished(running);
+        assertEquals(Collections.singletonList("running"), started);
+        assertEquals(0, scheduler.queuedCount());
+        assertEquals(0, scheduler.runningCount());
+    }
+}
@@ -0,0 +1,125 @@
+package cn.wandersnail.common.http.download;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import cn.wandersnail.common.http.TaskInfo;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * date: 2026/10/19 10:10
+ * author: zengfansheng
+ */
+public class SegmentedDownloadTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    private final byte[] data = new byte[4 * 1024 * 1024 + 17];
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicInteger maxRunning = new AtomicInteger();
+    private final AtomicInteger rangeRequests = new AtomicInteger();
+    private volatile boolean rangeSupported = true;
+    private MockWebServer server;
+
+    @Before
+    public void setUp() throws Exception {
+        new Random(1).nextBytes(data);
+        server = new MockWebServer();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                String range = request.getHeader("Range");
+                if (range == null || !rangeSupported) {
+                    return new MockResponse().setBody(new Buffer().write(data));
+                }
+                String[] parts = range.substring("bytes=".length()).split("-");
+                int start = Integer.parseInt(parts[0]);
+                int end = Integer.parseInt(parts[1]);
+                if (end > 0) {
+                    rangeRequests.incrementAndGet();
+                    int count = running.incrementAndGet();
+                    maxRunning.accumulateAndGet(count, Math::max);
+                    //拉长每个区间的时长，便于观察是否重叠
+                    Thread.sleep(300);
+                    running.decrementAndGet();
+                }
+                return new MockResponse().setResponseCode(206)
+                        .setHeader("Accept-Ranges", "bytes")
+                        .setHeader("ETag", "\"v1\"")
+                        .setHeader("Content-Range", "bytes " + start + "-" + end + "/" + data.length)
+                        .setBody(new Buffer().write(data, start, end - start + 1));
+            }
+        });
+        server.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    @Test
+    public void segmentsDownloadConcurrently() throws Exception {
+        File saveFile = new File(folder.getRoot(), "out.bin");
+        download(saveFile);
+        assertArrayEquals(data, Files.readAllBytes(saveFile.toPath()));
+        assertEquals(4, rangeRequests.get());
+        assertTrue("segments did not overlap, max concurrent: " + maxRunning.get(), maxRunning.get() > 1);
+    }
+
+    @Test
+    public void fallsBackToSingleConnectionWithoutRangeSupport() throws Exception {
+        rangeSupported = false;
+        File saveFile = new File(folder.getRoot(), "out.bin");
+        download(saveFile);
+        assertArrayEquals(data, Files.readAllBytes(saveFile.toPath()));
+        assertEquals(0, rangeRequests.get());
+    }
+
+    private void download(File saveFile) throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(1);
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        AtomicReference<TaskInfo.State> finalState = new AtomicReference<>();
+        new DownloadWorkerBuilder()
+                .setFileInfo(server.url("/file").toString(), saveFile.getPath())
+                .setSegmentCount(4)
+                .setScheduler(new DownloadScheduler())
+                .setListener(new DownloadListener<DownloadInfo>() {
+                    @Override
+                    public void onStateChange(DownloadInfo info, Throwable t) {
+                        if (info.state == TaskInfo.State.COMPLETED || info.state == TaskInfo.State.ERROR) {
+                            error.set(t);
+                            finalState.set(info.state);
+                            latch.countDown();
+                        }
+                    }
+
+                    @Override
+                    public void onProgress(DownloadInfo info) {
+                    }
+                })
+                .build();
+        assertTrue(latch.await(30, TimeUnit.SECONDS));
+        assertNull(error.get());
+        assertEquals(TaskInfo.State.COMPLETED, finalState.get());
+    }
+}
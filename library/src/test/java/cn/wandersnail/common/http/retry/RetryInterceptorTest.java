@@ -0,0 +1,170 @@
+package cn.wandersnail.common.http.retry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Call;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * date: 2026/10/19 11:00
+ * author: zengfansheng
+ */
+public class RetryInterceptorTest {
+    private MockWebServer server;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        server.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    private OkHttpClient client(RetryPolicy policy, CircuitBreakerRegistry breakers) {
+        return new OkHttpClient.Builder()
+                .addInterceptor(new RetryInterceptor(policy, breakers))
+                .build();
+    }
+
+    private Request get() {
+        return new Request.Builder().url(server.url("/")).build();
+    }
+
+    @Test
+    public void retriesRetryableStatus() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(503));
+        server.enqueue(new MockResponse().setResponseCode(503));
+        server.enqueue(new MockResponse().setBody("ok"));
+        OkHttpClient client = client(new ExponentialBackoffRetryPolicy().setBaseDelay(1), null);
+        try (Response response = client.newCall(get()).execute()) {
+            assertEquals(200, response.code());
+            assertEquals("ok", response.body().string());
+        }
+        assertEquals(3, server.getRequestCount());
+    }
+
+    @Test
+    public void doesNotRetryNonIdempotentRequest() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(503));
+        OkHttpClient client = client(new ExponentialBackoffRetryPolicy().setBaseDelay(1), null);
+        Request post = new Request.Builder().url(server.url("/"))
+                .post(RequestBody.create(MediaType.parse("text/plain"), "x")).build();
+        try (Response response = client.newCall(post).execute()) {
+            assertEquals(503, response.code());
+        }
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    public void retryWaitIsCappedByCallTimeout() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(503).setHeader("Retry-After", "5"));
+        OkHttpClient client = client(new ExponentialBackoffRetryPolicy(), null).newBuilder()
+                .callTimeout(1, TimeUnit.SECONDS)
+                .build();
+        long start = System.nanoTime();
+        try (Response response = client.newCall(get()).execute()) {
+            assertEquals(503, response.code());
+        }
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    public void opensAfterConsecutiveFailures() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(500));
+        server.enqueue(new MockResponse().setResponseCode(500));
+        CircuitBreakerRegistry breakers = new CircuitBreakerRegistry(2, 60000);
+        OkHttpClient client = client(null, breakers);
+        client.newCall(get()).execute().close();
+        client.newCall(get()).execute().close();
+        assertEquals(CircuitBreaker.State.OPEN, breakers.get(server.getHostName()).getState());
+        try {
+            client.newCall(get()).execute();
+            fail();
+        } catch (IOException e) {
+            assertEquals(2, server.getRequestCount());
+        }
+    }
+
+    @Test
+    public void runtimeExceptionReleasesProbe() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(500));
+        server.enqueue(new MockResponse().setBody("ok"));
+        CircuitBreakerRegistry breakers = new CircuitBreakerRegistry(1, 0);
+        boolean[] explode = {false};
+        OkHttpClient client = client(null, breakers).newBuilder()
+                .addInterceptor(chain -> {
+                    if (explode[0]) {
+                        throw new IllegalStateException("boom");
+                    }
+                    return chain.proceed(chain.request());
+                })
+                .build();
+        client.newCall(get()).execute().close();
+        //打开时长为0，下一次即为半开探测
+        explode[0] = true;
+        try {
+            client.newCall(get()).execute();
+            fail();
+        } catch (IllegalStateException expected) {
+        }
+        explode[0] = false;
+        try (Response response = client.newCall(get()).execute()) {
+            assertEquals(200, response.code());
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, breakers.get(server.getHostName()).getState());
+    }
+
+    @Test
+    public void canceledCallIsNotAFailure() throws Exception {
+        server.enqueue(new MockResponse().setBody("slow").setHeadersDelay(2, TimeUnit.SECONDS));
+        CircuitBreakerRegistry breakers = new CircuitBreakerRegistry(1, 60000);
+        Call call = client(null, breakers).newCall(get());
+        new Thread(() -> {
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException ignore) {
+            }
+            call.cancel();
+        }).start();
+        try {
+            call.execute();
+            fail();
+        } catch (IOException expected) {
+        }
+        assertTrue(call.isCanceled());
+        assertEquals(CircuitBreaker.State.CLOSED, breakers.get(server.getHostName()).getState());
+    }
+
+    @Test
+    public void halfOpenAllowsSingleProbe() {
+        CircuitBreaker breaker = new CircuitBreaker(1, 0);
+        breaker.onFailure();
+        assertTrue(breaker.tryAcquire());
+        assertFalse(breaker.tryAcquire());
+        breaker.release();
+        assertTrue(breaker.tryAcquire());
+        breaker.onSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.tryAcquire());
+    }
+}
@@ -0,0 +1,153 @@
+package cn.wandersnail.common.http.upload;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import cn.wandersnail.common.http.TaskInfo;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * date: 2026/10/19 10:50
+ * author: zengfansheng
+ */
+public class ChunkedUploadWorkerTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    private final byte[] data = new byte[4500];
+    private final byte[] received = new byte[data.length];
+    private final List<String> ranges = Collections.synchronizedList(new ArrayList<>());
+    private final Set<Long> rejectedOffsets = ConcurrentHashMap.newKeySet();
+    private MockWebServer server;
+    private File file;
+
+    @Before
+    public void setUp() throws Exception {
+        new Random(3).nextBytes(data);
+        file = folder.newFile("data.bin");
+        Files.write(file.toPath(), data);
+        server = new MockWebServer();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                //格式：bytes start-end/total
+                String range = request.getHeader("Content-Range");
+                ranges.add(range);
+                String[] parts = range.substring("bytes ".length(), range.indexOf('/')).split("-");
+                long start = Long.parseLong(parts[0]);
+                if (rejectedOffsets.contains(start)) {
+                    return new MockResponse().setResponseCode(400);
+                }
+                byte[] body = request.getBody().readByteArray();
+                System.arraycopy(body, 0, received, (int) start, body.length);
+                return new MockResponse().setResponseCode(308);
+            }
+        });
+        server.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    private ChunkedUploadInfo newInfo() {
+        return new ChunkedUploadInfo(server.url("/upload").toString(), file)
+                .setPartSize(1000)
+                .setParallelism(3)
+                .setMaxRetries(0);
+    }
+
+    private TaskInfo.State upload(ChunkedUploadInfo info) throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(1);
+        AtomicReference<TaskInfo.State> finalState = new AtomicReference<>();
+        new ChunkedUploadWorker(info, new ChunkedUploadListener() {
+            @Override
+            public void onStateChange(TaskInfo.State state, Throwable t) {
+                if (state == TaskInfo.State.COMPLETED || state == TaskInfo.State.ERROR) {
+                    finalState.set(state);
+                    latch.countDown();
+                }
+            }
+
+            @Override
+            public void onProgress(String name, long progress, long max) {
+            }
+        });
+        assertTrue(latch.await(30, TimeUnit.SECONDS));
+        return finalState.get();
+    }
+
+    private File journalFile() {
+        return new File(file.getParentFile(), "." + file.getName() + ".upload");
+    }
+
+    @Test
+    public void contentRangeUploadsPartsInOrder() throws Exception {
+        ChunkedUploadInfo info = newInfo();
+        assertEquals(1, info.getParallelism());
+        assertEquals(TaskInfo.State.COMPLETED, upload(info));
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            expected.add("bytes " + i * 1000 + "-" + Math.min(i * 1000 + 999, data.length - 1) + "/" + data.length);
+        }
+        assertEquals(expected, ranges);
+        assertArrayEquals(data, received);
+        assertFalse(journalFile().exists());
+    }
+
+    @Test
+    public void protocolCanAllowParallelParts() {
+        ChunkedUploadInfo info = newInfo().setProtocol(new ContentRangeUploadProtocol("PUT", true));
+        assertEquals(3, info.getParallelism());
+    }
+
+    @Test
+    public void resumesOnlyPendingParts() throws Exception {
+        rejectedOffsets.add(2000L);
+        assertEquals(TaskInfo.State.ERROR, upload(newInfo()));
+        assertTrue(journalFile().exists());
+        ranges.clear();
+        rejectedOffsets.clear();
+        ChunkedUploadInfo info = newInfo();
+        assertEquals(TaskInfo.State.COMPLETED, upload(info));
+        //按顺序上传，出错前已确认0、1两个分片
+        assertEquals("bytes 2000-2999/4500", ranges.get(0));
+        assertEquals(3, ranges.size());
+        assertArrayEquals(data, received);
+        assertFalse(journalFile().exists());
+    }
+
+    @Test
+    public void journalFailureDoesNotReuploadParts() throws Exception {
+        //日志目录是一个文件，写日志必定失败
+        File notDir = folder.newFile("journal");
+        ChunkedUploadInfo info = newInfo().setJournalDir(notDir);
+        assertEquals(TaskInfo.State.COMPLETED, upload(info));
+        assertEquals(5, ranges.size());
+        assertEquals(5, info.getAcknowledgedCount());
+        assertArrayEquals(data, received);
+    }
+}